@@ -0,0 +1,73 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.security.BoundedBCryptPasswordEncoder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Password encoding at sign up and matching at login, on the calling thread and through the bounded hashing pool.
+ * The pool hop should be noise next to the hash itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BCryptBenchmark {
+
+    private static final String PASSWORD = "benchmarkPassword";
+
+    @Param({"4", "10"})
+    private int strength;
+
+    private BCryptPasswordEncoder direct;
+
+    private BoundedBCryptPasswordEncoder bounded;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        direct = new BCryptPasswordEncoder(strength);
+        bounded = new BoundedBCryptPasswordEncoder(strength, 0, 64);
+        hash = direct.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bounded.shutdown();
+    }
+
+    @Benchmark
+    public String encode() {
+        return direct.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return direct.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public String boundedEncode() {
+        return bounded.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean boundedMatches() {
+        return bounded.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cart mutations and order creation on carts with {@code lines} distinct items of 5 units each.
+ *
+ * <p>Every mutating benchmark undoes its own change, so the cart is the same size for every invocation.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBenchmark {
+
+    private static final int UNITS_PER_LINE = 5;
+
+    @Param({"10", "1000", "10000"})
+    private int lines;
+
+    private Cart cart;
+
+    private Item present;
+
+    private Item absent;
+
+    @Setup
+    public void setUp() {
+        final User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user);
+        user.setCart(cart);
+        for (long id = 1; id <= lines; id++) {
+            cart.addItem(item(id), UNITS_PER_LINE);
+        }
+        present = item(lines / 2 + 1);
+        absent = item(lines + 1);
+    }
+
+    @Benchmark
+    public Cart addAndRemoveUnitOfExistingLine() {
+        cart.addItem(present);
+        cart.removeItem(present);
+        return cart;
+    }
+
+    @Benchmark
+    public Cart addAndRemoveNewLine() {
+        cart.addItem(absent, 3);
+        cart.removeItem(absent, 3);
+        return cart;
+    }
+
+    @Benchmark
+    public UserOrder createOrderFromCart() {
+        return UserOrder.createFromCart(cart);
+    }
+
+    static Item item(final long id) {
+        final Item item = new Item();
+        item.setId(id);
+        item.setName("Item " + id);
+        item.setPrice(BigDecimal.valueOf(100 + id % 10_000, 2));
+        item.setDescription("A benchmark item with id " + id);
+        return item;
+    }
+}
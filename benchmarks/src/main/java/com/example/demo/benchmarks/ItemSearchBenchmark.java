@@ -0,0 +1,167 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.catalog.ItemSearchIndex;
+import com.example.demo.model.persistence.Item;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link ItemSearchIndex} with the {@code LIKE '%term%'} query a database backed search would need, on a
+ * synthetic catalog loaded into an in-memory H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ItemSearchBenchmark {
+
+    private static final String[] ADJECTIVES = {"round", "square", "shiny", "rusty", "tiny", "giant", "smart", "solar",
+                                                "wooden", "golden", "silent", "rapid", "frozen", "magnetic", "folding"};
+    private static final String[] NOUNS = {"widget", "gadget", "sprocket", "gizmo", "lamp", "kettle", "drone", "chair",
+                                           "clock", "speaker", "bottle", "wrench", "bicycle", "camera", "tent"};
+    private static final String[] QUERIES = {"widg", "rusty sprocket", "agnet", "golden clock", "amera"};
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    private Connection connection;
+
+    private PreparedStatement like;
+
+    private PreparedStatement rankedLike;
+
+    private ItemSearchIndex index;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table item (id bigint primary key, name varchar(255) not null, "
+                              + "price decimal(19,2) not null, description varchar(255) not null)");
+        }
+
+        index = new ItemSearchIndex();
+        final Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("insert into item values (?, ?, ?, ?)")) {
+            for (long id = 1; id <= catalogSize; id++) {
+                final Item item = syntheticItem(id, random);
+                insert.setLong(1, item.getId());
+                insert.setString(2, item.getName());
+                insert.setBigDecimal(3, item.getPrice());
+                insert.setString(4, item.getDescription());
+                insert.addBatch();
+                if (id % 1000 == 0) {
+                    insert.executeBatch();
+                }
+                index.put(item);
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        like = connection.prepareStatement("select id, name, price, description from item "
+                                           + "where lower(name) like ? or lower(description) like ? limit 20");
+        // the closest SQL equivalent of the index: every term must match and name matches rank first
+        rankedLike = connection.prepareStatement("select id, name, price, description from item "
+                                                 + "where lower(name || ' ' || description) like ? "
+                                                 + "and lower(name || ' ' || description) like ? "
+                                                 + "order by case when lower(name) like ? then 0 else 1 end, id limit 20");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Item> likeQuery() throws SQLException {
+        final String query = nextQuery();
+        // a LIKE query can only match the whole phrase, it has no notion of separate terms or ranking
+        final String pattern = "%" + query + "%";
+        like.setString(1, pattern);
+        like.setString(2, pattern);
+        return read(like);
+    }
+
+    @Benchmark
+    public List<Item> rankedLikeQuery() throws SQLException {
+        final String query = nextQuery();
+        final String[] terms = query.split(" ");
+        rankedLike.setString(1, "%" + terms[0] + "%");
+        rankedLike.setString(2, "%" + terms[terms.length - 1] + "%");
+        rankedLike.setString(3, "%" + query + "%");
+        return read(rankedLike);
+    }
+
+    @Benchmark
+    public List<Item> searchIndex() {
+        return index.search(nextQuery(), 20);
+    }
+
+    private static List<Item> read(final PreparedStatement statement) throws SQLException {
+        final List<Item> items = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                final Item item = new Item();
+                item.setId(rs.getLong(1));
+                item.setName(rs.getString(2));
+                item.setPrice(rs.getBigDecimal(3));
+                item.setDescription(rs.getString(4));
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private String nextQuery() {
+        next = (next + 1) % QUERIES.length;
+        return QUERIES[next];
+    }
+
+    private static Item syntheticItem(final long id, final Random random) {
+        final String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+        final String noun = NOUNS[random.nextInt(NOUNS.length)];
+        final String other = NOUNS[random.nextInt(NOUNS.length)];
+        final Item item = new Item();
+        item.setId(id);
+        item.setName(capitalize(adjective) + " " + capitalize(noun) + " " + id);
+        item.setPrice(BigDecimal.valueOf(random.nextInt(100_000), 2));
+        item.setDescription("A " + adjective + " " + noun + " that goes well with any " + other);
+        return item;
+    }
+
+    private static String capitalize(final String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token signing as done by {@code JWTAuthenticationFilter} on a successful login, with a shared algorithm instance and
+ * with a new one per token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTCreationBenchmark {
+
+    private static final String SECRET = "haveToTellYouOne";
+    private static final long EXPIRATION_TIME = TimeUnit.DAYS.toMillis(10);
+
+    private Algorithm algorithm;
+
+    @Setup
+    public void setUp() {
+        algorithm = Algorithm.HMAC512(SECRET.getBytes());
+    }
+
+    @Benchmark
+    public String sharedAlgorithm() {
+        return JWT.create()
+                  .withSubject("benchmark")
+                  .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                  .sign(algorithm);
+    }
+
+    @Benchmark
+    public String newAlgorithm() {
+        return JWT.create()
+                  .withSubject("benchmark")
+                  .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                  .sign(Algorithm.HMAC512(SECRET.getBytes()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.example.demo.security.JWTTokenVerifier;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the original per request verification in {@code JWTAuthenticationVerificationFilter} (new algorithm and
+ * verifier every call) with a reused verifier and with the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTVerificationBenchmark {
+
+    private static final String SECRET = "haveToTellYouOne";
+
+    private String token;
+
+    private JWTVerifier reusedVerifier;
+
+    private JWTTokenVerifier cachingVerifier;
+
+    @Setup
+    public void setUp() {
+        token = JWT.create()
+                   .withSubject("benchmark")
+                   .withExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                   .sign(Algorithm.HMAC512(SECRET.getBytes()));
+        reusedVerifier = JWT.require(Algorithm.HMAC512(SECRET.getBytes())).build();
+        cachingVerifier = new JWTTokenVerifier();
+    }
+
+    @Benchmark
+    public String uncachedNewVerifier() {
+        return JWT.require(Algorithm.HMAC512(SECRET.getBytes()))
+                  .build()
+                  .verify(token)
+                  .getSubject();
+    }
+
+    @Benchmark
+    public String uncachedReusedVerifier() {
+        return reusedVerifier.verify(token).getSubject();
+    }
+
+    @Benchmark
+    public String cached() {
+        return cachingVerifier.verify(token);
+    }
+}
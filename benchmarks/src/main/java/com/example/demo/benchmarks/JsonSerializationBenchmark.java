@@ -0,0 +1,81 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson serialisation of the response bodies of the cart, order and item endpoints, with {@code size} distinct items
+ * of 2 units each in the cart and order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private Cart cart;
+
+    private UserOrder order;
+
+    private List<Item> items;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        final User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user);
+        user.setCart(cart);
+        items = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            final Item item = CartBenchmark.item(id);
+            items.add(item);
+            cart.addItem(item, 2);
+        }
+        order = UserOrder.createFromCart(cart);
+        order.setId(1L);
+    }
+
+    @Benchmark
+    public byte[] cart() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] order() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] items() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(items);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.model.persistence.Money;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Totalling {@code lines} cart lines of price times quantity, as {@code Cart} did with {@link BigDecimal} and as it
+ * does now with {@link Money} minor units. Run with {@code -prof gc} to see the allocation per total next to the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"10", "1000"})
+    private int lines;
+
+    private BigDecimal[] decimalPrices;
+
+    private long[] minorUnitPrices;
+
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        decimalPrices = new BigDecimal[lines];
+        minorUnitPrices = new long[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            decimalPrices[i] = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            minorUnitPrices[i] = Money.toMinorUnits(decimalPrices[i]);
+            quantities[i] = 1 + random.nextInt(5);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long minorUnitsTotal() {
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            total = Math.addExact(total, Money.times(minorUnitPrices[i], quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal minorUnitsTotalAsDecimal() {
+        return Money.toBigDecimal(minorUnitsTotal());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Thin blocking HTTP client for the endpoints the load test drives. Every response body is read in full, as a real
+ * client would, and then discarded.
+ */
+final class EcommerceClient implements Closeable {
+
+    static final class Response {
+        final int status;
+        final String authorization;
+
+        private Response(final int status, final String authorization) {
+            this.status = status;
+            this.authorization = authorization;
+        }
+    }
+
+    private static final int TIMEOUT_MS = 30_000;
+
+    private final String baseUrl;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    EcommerceClient(final String baseUrl, final int maxConnections) {
+        this.baseUrl = baseUrl;
+        final PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnections);
+        this.httpClient = HttpClients.custom()
+                                     .setConnectionManager(connections)
+                                     .setDefaultRequestConfig(RequestConfig.custom()
+                                                                           .setConnectTimeout(TIMEOUT_MS)
+                                                                           .setConnectionRequestTimeout(TIMEOUT_MS)
+                                                                           .setSocketTimeout(TIMEOUT_MS)
+                                                                           .build())
+                                     .disableAutomaticRetries()
+                                     .build();
+    }
+
+    Response createUser(final String username, final String password) throws IOException {
+        final ObjectNode body = objectMapper.createObjectNode()
+                                            .put("username", username)
+                                            .put("password", password)
+                                            .put("mirrorPassword", password);
+        return execute(post("/api/user/create", body, null));
+    }
+
+    /**
+     * @return the response, whose {@code authorization} is the bearer token on success
+     */
+    Response login(final String username, final String password) throws IOException {
+        final ObjectNode body = objectMapper.createObjectNode()
+                                            .put("username", username)
+                                            .put("password", password);
+        return execute(post("/login", body, null));
+    }
+
+    Response getItems(final String token) throws IOException {
+        final HttpGet request = new HttpGet(baseUrl + "/api/item");
+        request.setHeader("Authorization", token);
+        return execute(request);
+    }
+
+    Response addToCart(final String token, final String username, final long itemId) throws IOException {
+        final ObjectNode body = objectMapper.createObjectNode()
+                                            .put("username", username)
+                                            .put("itemId", itemId)
+                                            .put("quantity", 1);
+        return execute(post("/api/cart/addToCart", body, token));
+    }
+
+    Response submitOrder(final String token, final String username) throws IOException {
+        return execute(post("/api/order/submit/" + username, null, token));
+    }
+
+    Response health() throws IOException {
+        return execute(new HttpGet(baseUrl + "/actuator/health"));
+    }
+
+    List<Long> itemIds(final String token) throws IOException {
+        final HttpGet request = new HttpGet(baseUrl + "/api/item");
+        request.setHeader("Authorization", token);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            final JsonNode items = objectMapper.readTree(EntityUtils.toString(response.getEntity()));
+            final List<Long> ids = new ArrayList<>();
+            items.forEach(item -> ids.add(item.get("id").asLong()));
+            return ids;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private HttpPost post(final String path, final JsonNode body, final String token) throws IOException {
+        final HttpPost request = new HttpPost(baseUrl + path);
+        if (body != null) {
+            request.setEntity(new StringEntity(objectMapper.writeValueAsString(body), ContentType.APPLICATION_JSON));
+        }
+        if (token != null) {
+            request.setHeader("Authorization", token);
+        }
+        return request;
+    }
+
+    private Response execute(final HttpUriRequest request) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+            final Header authorization = response.getFirstHeader("Authorization");
+            return new Response(response.getStatusLine().getStatusCode(),
+                                authorization == null ? null : authorization.getValue());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Per endpoint latency and status code bookkeeping for a load test run.
+ *
+ * <p>Latencies are recorded in microseconds into one {@link Recorder} per endpoint. {@link #flushInterval()} moves what
+ * was recorded since the last call into the cumulative histogram and appends it, tagged with the endpoint, to an HDR
+ * histogram log, so latency over time can be plotted after the run as well as the overall distribution.</p>
+ */
+final class LatencyReport {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final HistogramLogWriter log;
+    private long startMillis;
+
+    LatencyReport(final File logFile) throws FileNotFoundException {
+        this.log = new HistogramLogWriter(logFile);
+    }
+
+    void start() {
+        startMillis = System.currentTimeMillis();
+        endpoints.values().forEach(Endpoint::reset);
+        dropped.reset();
+        log.outputLogFormatVersion();
+        log.outputStartTime(startMillis);
+        log.setBaseTime(startMillis);
+        log.outputLegend();
+    }
+
+    /**
+     * @param status the HTTP status, or {@code -1} when no response was received
+     */
+    void record(final String endpoint, final long latencyNanos, final int status) {
+        final Endpoint stats = endpoints.computeIfAbsent(endpoint, Endpoint::new);
+        stats.recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        stats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    /**
+     * An arrival that was not sent because {@code max-in-flight} requests were already outstanding. A non zero count
+     * means the offered rate was not actually applied and the latencies understate the overload.
+     */
+    void dropped() {
+        dropped.increment();
+    }
+
+    synchronized void flushInterval() {
+        endpoints.values().forEach(endpoint -> {
+            final Histogram interval = endpoint.recorder.getIntervalHistogram();
+            endpoint.total.add(interval);
+            interval.setTag(endpoint.name);
+            log.outputIntervalHistogram(interval);
+        });
+    }
+
+    /**
+     * Writes the summary, and a percentile distribution per endpoint, to {@code directory} and the summary to
+     * {@code out}.
+     */
+    synchronized void write(final File directory, final PrintStream out) throws IOException {
+        flushInterval();
+        log.close();
+        final double seconds = Math.max(1, System.currentTimeMillis() - startMillis) / 1000.0;
+
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("durationSeconds", seconds);
+        summary.put("droppedArrivals", dropped.sum());
+        final Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        summary.put("endpoints", perEndpoint);
+
+        final String header = String.format("%-28s %8s %7s %9s %9s %9s %9s %9s %9s  %s", "endpoint", "count", "errors",
+                                            "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "statuses");
+        final StringBuilder table = new StringBuilder(header).append(System.lineSeparator());
+        for (Endpoint endpoint : endpoints.values()) {
+            final Histogram histogram = endpoint.total;
+            final Map<Integer, Long> statuses = new TreeMap<>();
+            endpoint.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            final long errors = statuses.entrySet().stream()
+                                        .filter(e -> e.getKey() < 200 || e.getKey() >= 300)
+                                        .mapToLong(Map.Entry::getValue)
+                                        .sum();
+
+            final Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("errors", errors);
+            stats.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+            stats.put("p50Millis", millis(histogram, 50));
+            stats.put("p90Millis", millis(histogram, 90));
+            stats.put("p99Millis", millis(histogram, 99));
+            stats.put("p999Millis", millis(histogram, 99.9));
+            stats.put("maxMillis", histogram.getMaxValue() / MICROS_PER_MILLI);
+            stats.put("statuses", statuses);
+            perEndpoint.put(endpoint.name, stats);
+
+            table.append(String.format("%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s", endpoint.name,
+                                       histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                                       millis(histogram, 50), millis(histogram, 90), millis(histogram, 99),
+                                       millis(histogram, 99.9), histogram.getMaxValue() / MICROS_PER_MILLI, statuses))
+                 .append(System.lineSeparator());
+
+            try (PrintStream distribution = new PrintStream(new File(directory, fileName(endpoint.name) + ".hgrm"))) {
+                histogram.outputPercentileDistribution(distribution, MICROS_PER_MILLI);
+            }
+        }
+        table.append(String.format("%.1f s measured, %d arrivals dropped at the in-flight limit", seconds, dropped.sum()))
+             .append(System.lineSeparator());
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                          .writeValue(new File(directory, "summary.json"), summary);
+        try (PrintStream file = new PrintStream(new File(directory, "summary.txt"))) {
+            file.print(table);
+        }
+        out.print(table);
+    }
+
+    private static double millis(final Histogram histogram, final double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static String fileName(final String endpoint) {
+        return endpoint.replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    private static final class Endpoint {
+        private final String name;
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        private Endpoint(final String name) {
+            this.name = name;
+        }
+
+        private void reset() {
+            recorder.reset();
+            total.reset();
+            statuses.clear();
+        }
+    }
+}
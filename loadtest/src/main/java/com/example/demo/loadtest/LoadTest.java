@@ -0,0 +1,264 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.EcommerceApplication;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Open model HTTP load test of the whole application, filter chain and H2 included, in a single JVM.
+ *
+ * <p>The application is started on a random port, {@code users} users are signed up and logged in, and then arrivals
+ * are generated at a fixed average {@code rate} per second regardless of how fast responses come back. Each arrival
+ * runs one {@link Scenario} picked from the weighted {@code mix}. Latency is measured from when a request was due to be
+ * sent, not from when a thread got round to sending it, so queueing in the generator counts against the application
+ * rather than hiding its stalls.</p>
+ *
+ * <p>Results go to {@code output}: {@code summary.txt} and {@code summary.json} with throughput, errors and
+ * percentiles per endpoint, one {@code .hgrm} percentile distribution per endpoint, and {@code latency.hlog}, an HDR
+ * histogram log with one tagged interval per endpoint and second. Generator and application share the machine, so
+ * compare runs made on the same box rather than reading the numbers as absolute capacity.</p>
+ *
+ * <pre>mvn -f loadtest/pom.xml compile exec:java -Dexec.args="--rate=200 --duration=60"</pre>
+ */
+public final class LoadTest {
+
+    private static final String PASSWORD = "loadtestPassword";
+    private static final int SETUP_THREADS = 16;
+
+    private final LoadTestOptions options;
+    private final EcommerceClient client;
+    private final LatencyReport report;
+    private final List<User> users = new ArrayList<>();
+    private final AtomicInteger signups = new AtomicInteger();
+    private final int[] cumulativeWeights;
+    private final Scenario[] scenarios = Scenario.values();
+    private List<Long> itemIds;
+
+    private LoadTest(final LoadTestOptions options, final EcommerceClient client, final LatencyReport report) {
+        this.options = options;
+        this.client = client;
+        this.report = report;
+        this.cumulativeWeights = new int[scenarios.length];
+        int sum = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            sum += options.mix.getOrDefault(scenarios[i], 0);
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadTestOptions options = LoadTestOptions.parse(args);
+        final List<String> applicationArgs = new ArrayList<>(options.applicationArgs);
+        applicationArgs.add(0, "--server.port=0");
+
+        final File output = new File(options.output);
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Cannot create output directory " + output);
+        }
+
+        final SpringApplication application = new SpringApplication(EcommerceApplication.class);
+        if (options.dbDelayMillis > 0) {
+            application.addInitializers(context -> context.getBeanFactory()
+                                                          .addBeanPostProcessor(new SlowDatabase(options.dbDelayMillis)));
+        }
+        final ConfigurableApplicationContext context = application.run(applicationArgs.toArray(new String[0]));
+        try (EcommerceClient client = new EcommerceClient(baseUrl(context), options.maxInFlight + SETUP_THREADS)) {
+            new LoadTest(options, client, new LatencyReport(new File(output, "latency.hlog"))).run(output);
+        } finally {
+            context.close();
+        }
+        // exec:java waits for stray non daemon threads, the run is over
+        System.exit(0);
+    }
+
+    private void run(final File output) throws Exception {
+        setUp();
+        System.out.printf("Load test: %.1f arrivals/s (%s) for %d s after %d s warm up, mix %s, %d users, %d ms added per statement%n",
+                          options.rate, options.arrivals, options.durationSeconds, options.warmupSeconds,
+                          options.mix, options.users, options.dbDelayMillis);
+
+        final ExecutorService workers = Executors.newCachedThreadPool(daemonThreads("loadtest-worker"));
+        final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemonThreads("loadtest-report"));
+        final Semaphore inFlight = new Semaphore(options.maxInFlight);
+        final Random arrivals = new Random(options.seed);
+
+        generate(workers, inFlight, arrivals, options.warmupSeconds);
+        report.start();
+        reporter.scheduleAtFixedRate(report::flushInterval, 1, 1, TimeUnit.SECONDS);
+        generate(workers, inFlight, arrivals, options.durationSeconds);
+
+        // let outstanding requests finish so they are part of the report
+        inFlight.tryAcquire(options.maxInFlight, 60, TimeUnit.SECONDS);
+        reporter.shutdownNow();
+        workers.shutdownNow();
+        report.write(output, System.out);
+        System.out.println("Results written to " + output.getAbsolutePath());
+    }
+
+    /**
+     * Issues arrivals for {@code seconds}, each at its scheduled time, whether or not earlier ones have completed.
+     */
+    private void generate(final ExecutorService workers, final Semaphore inFlight, final Random arrivals,
+                          final int seconds) {
+        final long meanGapNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long next = System.nanoTime();
+        while (next < end) {
+            final long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            final long intended = next;
+            if (inFlight.tryAcquire()) {
+                workers.execute(() -> {
+                    try {
+                        runScenario(pickScenario(), intended);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } else {
+                report.dropped();
+            }
+            next += options.arrivals == LoadTestOptions.Arrivals.POISSON
+                    ? (long) (-Math.log(1 - arrivals.nextDouble()) * meanGapNanos)
+                    : meanGapNanos;
+        }
+    }
+
+    private Scenario pickScenario() {
+        final int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        throw new IllegalStateException("Roll outside the scenario weights: " + roll);
+    }
+
+    private void runScenario(final Scenario scenario, final long intended) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final User user = users.get(random.nextInt(users.size()));
+        switch (scenario) {
+            case BROWSE:
+                timed("GET /api/item", intended, () -> client.getItems(user.token));
+                break;
+            case CART:
+                final long itemId = itemIds.get(random.nextInt(itemIds.size()));
+                timed("POST /api/cart/addToCart", intended, () -> client.addToCart(user.token, user.name, itemId));
+                break;
+            case ORDER:
+                timed("POST /api/order/submit", intended, () -> client.submitOrder(user.token, user.name));
+                break;
+            case SIGNUP:
+                final String name = "loadtest-signup-" + signups.incrementAndGet();
+                final int created = timed("POST /api/user/create", intended, () -> client.createUser(name, PASSWORD));
+                if (created == 200) {
+                    timed("POST /login", System.nanoTime(), () -> client.login(name, PASSWORD));
+                }
+                break;
+            case HEALTH:
+                timed("GET /actuator/health", intended, client::health);
+                break;
+            default:
+                throw new IllegalStateException("Unknown scenario " + scenario);
+        }
+    }
+
+    private int timed(final String endpoint, final long startNanos, final Call call) {
+        int status;
+        try {
+            status = call.execute().status;
+        } catch (IOException ex) {
+            status = -1;
+        }
+        report.record(endpoint, System.nanoTime() - startNanos, status);
+        return status;
+    }
+
+    /**
+     * Signs up and logs in the users the scenarios act as, with a cart already holding one item so orders are not
+     * empty.
+     */
+    private void setUp() throws Exception {
+        final ExecutorService setup = Executors.newFixedThreadPool(SETUP_THREADS, daemonThreads("loadtest-setup"));
+        try {
+            final List<Future<User>> created = new ArrayList<>();
+            for (int i = 0; i < options.users; i++) {
+                final String name = "loadtest-user-" + i;
+                created.add(setup.submit(() -> signUp(name)));
+            }
+            for (Future<User> user : created) {
+                users.add(user.get());
+            }
+        } finally {
+            setup.shutdownNow();
+        }
+        itemIds = Collections.unmodifiableList(client.itemIds(users.get(0).token));
+        if (itemIds.isEmpty()) {
+            throw new IllegalStateException("The catalog is empty, nothing to add to carts");
+        }
+        for (User user : users) {
+            expect(client.addToCart(user.token, user.name, itemIds.get(0)), "add to cart for " + user.name);
+        }
+    }
+
+    private User signUp(final String name) throws IOException {
+        expect(client.createUser(name, PASSWORD), "sign up " + name);
+        final EcommerceClient.Response login = client.login(name, PASSWORD);
+        expect(login, "log in " + name);
+        return new User(name, login.authorization);
+    }
+
+    private static void expect(final EcommerceClient.Response response, final String what) {
+        if (response.status != 200) {
+            throw new IllegalStateException("Set up failed to " + what + ": HTTP " + response.status);
+        }
+    }
+
+    private static String baseUrl(final ConfigurableApplicationContext context) {
+        final int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        return "http://localhost:" + port;
+    }
+
+    private static ThreadFactory daemonThreads(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private interface Call {
+        EcommerceClient.Response execute() throws IOException;
+    }
+
+    private static final class User {
+        private final String name;
+        private final String token;
+
+        private User(final String name, final String token) {
+            this.name = name;
+            this.token = token;
+        }
+    }
+}
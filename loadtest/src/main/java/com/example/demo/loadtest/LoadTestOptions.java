@@ -0,0 +1,106 @@
+package com.example.demo.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}. Options the load test does not know are
+ * handed to the application, so any Spring property can be set for a run, e.g.
+ * {@code --ecommerce.orders.write-behind.enabled=true}.
+ */
+final class LoadTestOptions {
+
+    enum Arrivals { POISSON, UNIFORM }
+
+    double rate = 100;
+    int warmupSeconds = 10;
+    int durationSeconds = 60;
+    int users = 50;
+    int maxInFlight = 500;
+    long seed = 42;
+    long dbDelayMillis;
+    Arrivals arrivals = Arrivals.POISSON;
+    String output = System.getProperty("loadtest.output", "target/loadtest");
+    Map<Scenario, Integer> mix = parseMix("browse=50,cart=30,order=15,signup=5");
+    final List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(final String[] args) {
+        final LoadTestOptions options = new LoadTestOptions();
+        // the application logs every request at INFO, which drowns the report; pass a level to override
+        options.applicationArgs.add("--logging.level.com.example.demo=WARN");
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            final String name = arg.substring(2, arg.indexOf('='));
+            final String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    options.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "users":
+                    options.users = Integer.parseInt(value);
+                    break;
+                case "max-in-flight":
+                    options.maxInFlight = Integer.parseInt(value);
+                    break;
+                case "seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+                case "arrivals":
+                    options.arrivals = Arrivals.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "db-delay-ms":
+                    options.dbDelayMillis = Long.parseLong(value);
+                    break;
+                case "output":
+                    options.output = value;
+                    break;
+                case "mix":
+                    options.mix = parseMix(value);
+                    break;
+                default:
+                    options.applicationArgs.add(arg);
+            }
+        }
+        if (options.rate <= 0 || options.users <= 0 || options.maxInFlight <= 0) {
+            throw new IllegalArgumentException("rate, users and max-in-flight must be positive");
+        }
+        if (options.dbDelayMillis < 0) {
+            throw new IllegalArgumentException("db-delay-ms must not be negative");
+        }
+        return options;
+    }
+
+    /**
+     * @param mix comma separated {@code scenario=weight} pairs, e.g. {@code browse=80,order=20}
+     */
+    static Map<Scenario, Integer> parseMix(final String mix) {
+        final Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String entry : mix.split(",")) {
+            final String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected scenario=weight but got " + entry);
+            }
+            final int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights.put(Scenario.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The scenario mix needs at least one positive weight");
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.loadtest;
+
+/**
+ * What a single arrival does. Each scenario is one user journey; {@link #SIGNUP} makes two requests in sequence.
+ */
+enum Scenario {
+    /** {@code GET /api/item} as an existing user. */
+    BROWSE,
+    /** {@code POST /api/cart/addToCart} of one unit of a random item for an existing user. */
+    CART,
+    /** {@code POST /api/order/submit/{username}} for an existing user. */
+    ORDER,
+    /** {@code POST /api/user/create} of a new user followed by {@code POST /login}. */
+    SIGNUP,
+    /** {@code GET /actuator/health} without a token, as a load balancer probing the instance would. */
+    HEALTH
+}
@@ -0,0 +1,69 @@
+package com.example.demo.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Makes every statement the application executes take at least {@code delayMillis} longer, while it holds its pooled
+ * connection, to stand in for a database that has become slow. Registered by {@link LoadTest} when
+ * {@code --db-delay-ms} is set; everything else about the database is left as it is.
+ */
+final class SlowDatabase implements BeanPostProcessor {
+
+    private final long delayMillis;
+
+    SlowDatabase(final long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        // data sources that only hand out another's connections, such as the read replica's routing, are delayed there
+        if (!(bean instanceof DataSource) || bean instanceof DelegatingDataSource) {
+            return bean;
+        }
+        final DataSource target = (DataSource) bean;
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            final Object result = invoke(target, method, args);
+            return result instanceof Connection ? proxy(Connection.class, statements((Connection) result)) : result;
+        });
+    }
+
+    private InvocationHandler statements(final Connection connection) {
+        return (proxy, method, args) -> {
+            final Object result = invoke(connection, method, args);
+            if (result instanceof Statement) {
+                final Class<?> type = method.getReturnType();
+                return proxy(type, (statement, call, callArgs) -> {
+                    if (call.getName().startsWith("execute")) {
+                        TimeUnit.MILLISECONDS.sleep(delayMillis);
+                    }
+                    return invoke(result, call, callArgs);
+                });
+            }
+            return result;
+        };
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SlowDatabase.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
@@ -7,7 +8,8 @@ import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfi
 import org.springframework.boot.autoconfigure.web.servlet.error.ErrorMvcAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.demo.security.BoundedBCryptPasswordEncoder;
 
 @EnableJpaRepositories("com.example.demo.model.persistence.repositories")
 @EntityScan("com.example.demo.model.persistence")
@@ -16,8 +18,10 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 public class EcommerceApplication {
 
     @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedBCryptPasswordEncoder bCryptPasswordEncoder(@Value("${ecommerce.security.bcrypt.strength:10}") int strength,
+                                                       @Value("${ecommerce.security.bcrypt.threads:0}") int threads,
+                                                       @Value("${ecommerce.security.bcrypt.queue-capacity:64}") int queueCapacity) {
+        return new BoundedBCryptPasswordEncoder(strength, threads, queueCapacity);
     }
 
 	public static void main(String[] args) {
@@ -0,0 +1,82 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.persistence.Item;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in Hibernate second-level and query cache for the item catalog, backed by a heap-only Ehcache.
+ *
+ * <p>Enabled with {@code ecommerce.cache.catalog.enabled=true}. Items are cached read-write, so saves and deletes made
+ * through {@code ItemRepository} update the entity region and invalidate cached query results for the item table.
+ * Writes that bypass Hibernate (plain JDBC, bulk SQL) must evict the regions themselves.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.cache.catalog.enabled", havingValue = "true")
+public class CatalogCacheConfiguration {
+
+    public static final String ITEM_REGION = Item.class.getName();
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${ecommerce.cache.catalog.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${ecommerce.cache.catalog.item-max-entries:10000}")
+    private long itemMaxEntries;
+
+    @Value("${ecommerce.cache.catalog.query-max-entries:1000}")
+    private long queryMaxEntries;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager catalogCacheManager() {
+        final Duration ttl = Duration.ofSeconds(ttlSeconds);
+        final org.ehcache.config.Configuration configuration = ConfigurationBuilder
+                .newConfigurationBuilder()
+                .addCache(ITEM_REGION, regionConfiguration(itemMaxEntries, ExpiryPolicyBuilder.timeToLiveExpiration(ttl)))
+                .addCache(QUERY_RESULTS_REGION, regionConfiguration(queryMaxEntries, ExpiryPolicyBuilder.timeToLiveExpiration(ttl)))
+                // update timestamps decide whether a cached query result is stale, they must outlive the results
+                .addCache(UPDATE_TIMESTAMPS_REGION, regionConfiguration(1000, ExpiryPolicyBuilder.noExpiration()))
+                .build();
+
+        final EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // a unique URI per application context, otherwise the provider hands back a shared (possibly closed) manager
+        return provider.getCacheManager(URI.create("urn:ecommerce:catalog:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer catalogCacheHibernateProperties(final CacheManager catalogCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, catalogCacheManager);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    private static CacheConfiguration<Object, Object> regionConfiguration(final long maxEntries,
+                                                                          final ExpiryPolicy<Object, Object> expiry) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                                        .withExpiry(expiry)
+                                        .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Small concurrent cache with a hard size bound and per entry expiry.
+ *
+ * <p>Lookups are a single {@link ConcurrentHashMap} read. When a put pushes the cache over its bound, expired entries
+ * are swept first and then arbitrary entries are dropped until the cache is back to 90% of its bound, so the sweep
+ * cost is amortised over many puts.</p>
+ */
+public class ExpiringCache<K, V> {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    public ExpiringCache(final int maximumSize) {
+        this(maximumSize, System::currentTimeMillis);
+    }
+
+    public ExpiringCache(final int maximumSize, final LongSupplier clock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+    }
+
+    public V get(final K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(final K key, final V value) {
+        put(key, value, NEVER);
+    }
+
+    public void put(final K key, final V value, final long expiresAt) {
+        entries.put(key, new Entry<>(value, expiresAt));
+        puts.increment();
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+    }
+
+    public void invalidate(final K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose value matches, for callers that know what changed but not under which key.
+     */
+    public void invalidateIf(final Predicate<? super V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    private synchronized void evict() {
+        if (entries.size() <= maximumSize) {
+            return;
+        }
+        final long now = clock.getAsLong();
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAt <= now) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        });
+
+        final int target = maximumSize - maximumSize / 10;
+        final Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(final V value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
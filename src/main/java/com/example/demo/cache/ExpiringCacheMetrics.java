@@ -0,0 +1,55 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import java.util.Collections;
+
+/**
+ * Publishes an {@link ExpiringCache} under the standard Micrometer cache meters ({@code cache.gets},
+ * {@code cache.puts}, {@code cache.evictions}, {@code cache.size}) tagged with the cache name, plus its bound as
+ * {@code cache.maximum.size}.
+ */
+public class ExpiringCacheMetrics extends CacheMeterBinder {
+
+    private final ExpiringCache<?, ?> cache;
+
+    public ExpiringCacheMetrics(final ExpiringCache<?, ?> cache, final String name) {
+        super(cache, name, Collections.<Tag>emptyList());
+        this.cache = cache;
+    }
+
+    @Override
+    protected Long size() {
+        return (long) cache.size();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.getHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.getMissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(final MeterRegistry registry) {
+        Gauge.builder("cache.maximum.size", cache, ExpiringCache::getMaximumSize)
+             .tags(getTagsWithCacheName())
+             .description("The number of entries the cache holds before evicting")
+             .register(registry);
+    }
+}
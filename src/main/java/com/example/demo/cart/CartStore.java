@@ -0,0 +1,388 @@
+package com.example.demo.cart;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.replica.ReadRouting;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Where cart changes go. By default every change is written through the {@link CartUpdater}; with
+ * {@code ecommerce.cart.write-behind.enabled} active carts are kept in memory instead.
+ *
+ * <p>With write-behind, a cart is read from the database the first time it is changed and from then on changed in
+ * memory, one change at a time per cart. A background thread writes the carts changed since its last run every
+ * {@code flush-interval-ms}, {@code batch-size} carts per transaction, and {@link #flush(long)} writes one cart at once
+ * for readers that need the database to be current, such as order submission. Carts nobody changed for
+ * {@code idle-seconds}, or beyond {@code max-carts}, are dropped from memory once written. On shutdown every changed
+ * cart is written before the context closes. A flush prices the lines at the items' prices of the moment and, once it
+ * committed, pins the user's reads to the primary like any other write, see {@link ReadRouting}.</p>
+ *
+ * <p>The memory copy is the master, so write-behind assumes carts are only changed through this store on this node; a
+ * change made elsewhere is overwritten by the next flush.</p>
+ */
+@Component
+public class CartStore {
+    public static final Logger logger = LoggerFactory.getLogger(CartStore.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    @Value("${ecommerce.cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ecommerce.cart.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${ecommerce.cart.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Value("${ecommerce.cart.write-behind.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${ecommerce.cart.write-behind.idle-seconds:600}")
+    private long idleSeconds;
+
+    @Autowired
+    private CartUpdater cartUpdater;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, Entry> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // one flush at a time, so an older copy of a cart can never be written over a newer one
+    private final Lock flushLock = new ReentrantLock();
+
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "cart-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Cart write-behind started, flushing every " + flushIntervalMs + " ms in batches of " + batchSize + ".");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            logger.error("Cart flusher did not stop in time.");
+        }
+        flushAll();
+        if (!dirty.isEmpty()) {
+            logger.error(dirty.size() + " changed carts were not written before shutdown.");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Applies {@code change} to the cart, in memory with write-behind and through the {@link CartUpdater} otherwise.
+     *
+     * @return a copy of the cart after the change, or {@code null} when there is no cart with this id
+     * @throws CartUpdateConflictException when written through and every attempt lost against a concurrent writer
+     */
+    public Cart update(final long cartId, final Consumer<Cart> change) {
+        if (!enabled) {
+            return cartUpdater.update(cartId, change);
+        }
+        while (true) {
+            final Entry entry = entry(cartId);
+            if (entry == null) {
+                return null;
+            }
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue;
+                }
+                change.accept(entry.cart);
+                entry.lastAccess = System.currentTimeMillis();
+                if (entry.dirtySince == 0) {
+                    entry.dirtySince = entry.lastAccess;
+                }
+                dirty.add(cartId);
+                return copy(entry.cart);
+            }
+        }
+    }
+
+    /**
+     * Writes the cart now if it has changes not yet in the database. Does nothing when changes are written through.
+     */
+    public void flush(final long cartId) {
+        if (!enabled) {
+            return;
+        }
+        // taken even when the cart looks clean, it may be in the batch the flusher is writing right now
+        flushLock.lock();
+        try {
+            if (dirty.contains(cartId)) {
+                write(Collections.singletonList(cartId));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every cart with changes not yet in the database, then drops idle carts from memory.
+     */
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            final List<Long> ids = new ArrayList<>(dirty);
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                write(ids.subList(from, Math.min(ids.size(), from + batchSize)));
+            }
+            // under the lock, a cart dropped while its write is still open would be read back without it
+            evict();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getCachedCount() {
+        return carts.size();
+    }
+
+    /**
+     * @return carts changed in memory and not yet written
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * @return how long the oldest change not yet written has been waiting, 0 when everything is written
+     */
+    public long getFlushLagMillis() {
+        long oldest = Long.MAX_VALUE;
+        for (Long id : dirty) {
+            final Entry entry = carts.get(id);
+            if (entry != null) {
+                final long since = entry.dirtySince;
+                if (since != 0 && since < oldest) {
+                    oldest = since;
+                }
+            }
+        }
+        return oldest == Long.MAX_VALUE ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    private void flushSafely() {
+        try {
+            flushAll();
+        } catch (RuntimeException ex) {
+            // an exception would cancel the schedule for good
+            logger.error("Flushing carts failed.", ex);
+        }
+    }
+
+    /**
+     * The cart's entry, read from the database on a miss into a copy no persistence context knows about.
+     */
+    private Entry entry(final long cartId) {
+        final Entry cached = carts.get(cartId);
+        if (cached != null) {
+            return cached;
+        }
+        final Cart loaded = transactionTemplate.execute(status -> cartRepository.findById(cartId)
+                .map(CartStore::copy)
+                .orElse(null));
+        if (loaded == null) {
+            return null;
+        }
+        final Entry entry = new Entry(loaded);
+        final Entry raced = carts.putIfAbsent(cartId, entry);
+        return raced == null ? entry : raced;
+    }
+
+    /**
+     * Writes the current lines of the given carts in one transaction, or one by one when that fails. Carts that fail
+     * on their own stay changed and are tried again on the next flush.
+     */
+    private void write(final List<Long> ids) {
+        final Map<Long, Map<Item, Integer>> lines = new LinkedHashMap<>();
+        final Map<Long, Long> dirtySince = new LinkedHashMap<>();
+        final Map<Long, String> usernames = new HashMap<>();
+        for (Long id : ids) {
+            final Entry entry = carts.get(id);
+            if (entry == null) {
+                dirty.remove(id);
+                continue;
+            }
+            synchronized (entry) {
+                if (dirty.remove(id)) {
+                    lines.put(id, new LinkedHashMap<>(entry.cart.getQuantities()));
+                    dirtySince.put(id, entry.dirtySince);
+                    if (entry.cart.getUser() != null) {
+                        usernames.put(id, entry.cart.getUser().getUsername());
+                    }
+                    entry.dirtySince = 0;
+                }
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            writeLines(lines, usernames);
+        } catch (RuntimeException ex) {
+            if (lines.size() == 1) {
+                logger.error("Cart <" + lines.keySet().iterator().next() + "> could not be written, retrying on the next flush.", ex);
+                lines.keySet().forEach(id -> markDirtyAgain(id, dirtySince.get(id)));
+                return;
+            }
+            logger.warn("Batch of " + lines.size() + " carts could not be written, retrying one by one.", ex);
+            lines.forEach((id, cartLines) -> {
+                try {
+                    writeLines(Collections.singletonMap(id, cartLines), usernames);
+                } catch (RuntimeException single) {
+                    logger.error("Cart <" + id + "> could not be written, retrying on the next flush.", single);
+                    markDirtyAgain(id, dirtySince.get(id));
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the lines in one transaction, priced at the items' prices as they are now rather than as they were when
+     * the carts were loaded into memory, and once it committed records the write for each cart's user.
+     */
+    private void writeLines(final Map<Long, Map<Item, Integer>> lines, final Map<Long, String> usernames) {
+        final Set<Long> missing = transactionTemplate.execute(status -> {
+            final Map<Long, Item> items = new HashMap<>();
+            final Set<Long> itemIds = new HashSet<>();
+            lines.values().forEach(cartLines -> cartLines.keySet().forEach(item -> itemIds.add(item.getId())));
+            itemRepository.findAllById(itemIds).forEach(item -> items.put(item.getId(), item));
+            final Set<Long> notFound = new HashSet<>(lines.keySet());
+            for (Cart cart : cartRepository.findAllById(lines.keySet())) {
+                final Map<Item, Integer> current = new LinkedHashMap<>();
+                lines.get(cart.getId()).forEach((item, quantity) -> {
+                    final Item currentItem = items.get(item.getId());
+                    if (currentItem != null) {
+                        current.put(currentItem, quantity);
+                    }
+                });
+                // the loaded cart is dirty checked, so only lines that differ are written when the transaction commits
+                cart.replaceQuantities(current);
+                notFound.remove(cart.getId());
+            }
+            return notFound;
+        });
+        // only now is the cart in the database, pinning the user's reads any earlier could end before it is
+        lines.keySet().stream()
+             .filter(id -> !missing.contains(id))
+             .forEach(id -> readRouting.wrote(usernames.get(id)));
+        for (Long id : missing) {
+            logger.warn("Cart <" + id + "> no longer exists, its unwritten changes are dropped.");
+            final Entry entry = carts.remove(id);
+            if (entry != null) {
+                synchronized (entry) {
+                    entry.evicted = true;
+                }
+            }
+        }
+    }
+
+    private void markDirtyAgain(final long cartId, final long since) {
+        final Entry entry = carts.get(cartId);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.dirtySince == 0 || since < entry.dirtySince) {
+                entry.dirtySince = since;
+            }
+            dirty.add(cartId);
+        }
+    }
+
+    /**
+     * Drops written carts that have been idle too long, and then, while there are more than {@code max-carts}, any
+     * written cart.
+     */
+    private void evict() {
+        final long idleBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleSeconds);
+        for (Map.Entry<Long, Entry> cached : carts.entrySet()) {
+            final boolean full = carts.size() > maxCarts;
+            final Entry entry = cached.getValue();
+            synchronized (entry) {
+                if (entry.dirtySince == 0 && !dirty.contains(cached.getKey()) && (full || entry.lastAccess < idleBefore)) {
+                    entry.evicted = true;
+                    carts.remove(cached.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    private static Cart copy(final Cart source) {
+        final Cart copy = new Cart();
+        copy.setId(source.getId());
+        copy.setUser(source.getUser());
+        copy.setQuantities(new LinkedHashMap<>(source.getQuantities()));
+        return copy;
+    }
+
+    private static final class Entry {
+        private final Cart cart;
+        private long lastAccess = System.currentTimeMillis();
+        // when the oldest change not yet written was made, 0 when the cart matches the database
+        private volatile long dirtySince;
+        private boolean evicted;
+
+        private Entry(final Cart cart) {
+            this.cart = cart;
+        }
+    }
+}
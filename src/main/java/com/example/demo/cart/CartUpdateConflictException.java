@@ -0,0 +1,15 @@
+package com.example.demo.cart;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a cart change kept losing against concurrent changes to the same cart and was given up.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CartUpdateConflictException extends RuntimeException {
+
+    public CartUpdateConflictException(final long cartId, final int attempts, final Throwable cause) {
+        super("Cart " + cartId + " was changed concurrently on each of " + attempts + " attempts, try again.", cause);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.cart;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Applies changes to a cart so that concurrent changes to the same cart are never lost.
+ *
+ * <p>On this node, changes to one cart are serialised by a lock striped by cart id, so they queue in memory instead of
+ * racing to the database. Each change reads the cart, applies the change and writes it in one transaction, and the
+ * cart's {@code @Version} check catches writers this lock cannot see, such as other nodes or a copy read before the
+ * lock was taken. A change that loses that race is re-applied to a fresh copy, up to {@code max-attempts} times, and
+ * then fails with {@link CartUpdateConflictException}.</p>
+ */
+@Component
+public class CartUpdater {
+    public static final Logger logger = LoggerFactory.getLogger(CartUpdater.class);
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Lock[] stripes;
+    private final int maxAttempts;
+
+    public CartUpdater(final CartRepository cartRepository,
+                       final PlatformTransactionManager transactionManager,
+                       @Value("${ecommerce.cart.lock-stripes:256}") final int lockStripes,
+                       @Value("${ecommerce.cart.max-attempts:5}") final int maxAttempts) {
+        if (lockStripes <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Lock stripes and attempts must be positive");
+        }
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int size = 1;
+        while (size < lockStripes) {
+            size <<= 1;
+        }
+        this.stripes = new Lock[size];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Applies {@code change} to the current state of the cart and saves it.
+     *
+     * @param change applied to a freshly read cart, possibly more than once, so it must not depend on earlier attempts
+     * @return the saved cart, or {@code null} when there is no cart with this id
+     * @throws CartUpdateConflictException when every attempt lost against a concurrent writer
+     */
+    public Cart update(final long cartId, final Consumer<Cart> change) {
+        final Lock lock = stripes[stripe(cartId)];
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> {
+                        final Cart cart = cartRepository.findById(cartId).orElse(null);
+                        if (cart == null) {
+                            return null;
+                        }
+                        change.accept(cart);
+                        return cartRepository.saveAndFlush(cart);
+                    });
+                } catch (OptimisticLockingFailureException ex) {
+                    if (attempt >= maxAttempts) {
+                        throw new CartUpdateConflictException(cartId, attempt, ex);
+                    }
+                    logger.debug("Cart <" + cartId + "> changed concurrently, attempt " + attempt + " of " + maxAttempts + ".");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(final long cartId) {
+        // spread sequential ids, the low bits of which alone would map runs of carts to neighbouring stripes
+        final long mixed = cartId * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & (stripes.length - 1);
+    }
+}
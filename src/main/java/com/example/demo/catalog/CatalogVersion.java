@@ -0,0 +1,38 @@
+package com.example.demo.catalog;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Counter that moves every time a change to the catalog commits, the basis of the strong ETags of catalog responses.
+ *
+ * <p>Tags are {@code "c<epoch>-<version>"}, where the epoch is drawn when the application starts, so a tag handed out
+ * before a restart never matches after it. Read the tag before reading the catalog: a change committing in between then
+ * only costs the client one more full response, while the other order could answer 304 for content it never got.
+ * Writers that bypass JPA have to call {@link #increment()} themselves once their change has committed.</p>
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long get() {
+        return version.get();
+    }
+
+    public String etag() {
+        return "\"c" + epoch + "-" + version.get() + "\"";
+    }
+
+    public void increment() {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(final ItemChangedEvent event) {
+        increment();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener turning item lifecycle callbacks into {@link ItemChangedEvent}s. Instantiated by Hibernate through
+ * Spring, so it can be injected.
+ */
+public class ItemChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(final Item item) {
+        eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.SAVED));
+    }
+
+    @PostRemove
+    public void onRemove(final Item item) {
+        eventPublisher.publishEvent(new ItemChangedEvent(item, ItemChangedEvent.Type.DELETED));
+    }
+}
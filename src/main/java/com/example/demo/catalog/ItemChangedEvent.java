@@ -0,0 +1,28 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+
+/**
+ * Published whenever an item is inserted, updated or deleted. Listeners that keep derived catalog state should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)} so they only observe committed changes.
+ */
+public class ItemChangedEvent {
+
+    public enum Type { SAVED, DELETED }
+
+    private final Item item;
+    private final Type type;
+
+    public ItemChangedEvent(final Item item, final Type type) {
+        this.item = item;
+        this.type = type;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
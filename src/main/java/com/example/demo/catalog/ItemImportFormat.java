@@ -0,0 +1,39 @@
+package com.example.demo.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import org.springframework.http.MediaType;
+
+/**
+ * File formats {@link ItemImporter} reads: CSV with a header row naming the columns, or one JSON object per line.
+ */
+public enum ItemImportFormat {
+
+    CSV("text/csv", ".csv"),
+    NDJSON("application/x-ndjson", ".ndjson", ".jsonl");
+
+    private final MediaType mediaType;
+    private final List<String> extensions;
+
+    ItemImportFormat(final String mediaType, final String... extensions) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extensions = Arrays.asList(extensions);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static Optional<ItemImportFormat> of(final MediaType mediaType) {
+        return Arrays.stream(values()).filter(format -> format.mediaType.includes(mediaType)).findFirst();
+    }
+
+    public static Optional<ItemImportFormat> ofFileName(final String fileName) {
+        final String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                     .filter(format -> format.extensions.stream().anyMatch(lowerCase::endsWith))
+                     .findFirst();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Running totals of an import, and the rows it rejected with the reason.
+ */
+public class ItemImportResult {
+
+    private final int maxReportedErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private long millis;
+
+    ItemImportResult(final int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * @return data rows read, header and blank lines excluded
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return up to {@code max-reported-errors} rejected rows, by line; {@link #getRejected()} counts all of them
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    void read() {
+        rows++;
+    }
+
+    void inserted() {
+        inserted++;
+    }
+
+    void updated() {
+        updated++;
+    }
+
+    void reject(final long line, final String message) {
+        rejected++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    void finish(final long millis) {
+        this.millis = millis;
+        // rows the database turned down are only known once their batch was written, after later invalid rows
+        errors.sort(Comparator.comparingLong(RowError::getLine));
+    }
+
+    @Override
+    public String toString() {
+        return rows + " rows, " + inserted + " inserted, " + updated + " updated, " + rejected + " rejected in "
+               + millis + " ms";
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        RowError(final long line, final String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * @return line of the file the row starts on, counting from 1
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.catalog;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports the file given with {@code --ecommerce.catalog.import.file=<path>} on startup, in the format its extension
+ * names ({@code .csv}, {@code .ndjson} or {@code .jsonl}) unless {@code ecommerce.catalog.import.format} says otherwise.
+ *
+ * <p>The application goes on serving afterwards, with the imported catalog. With
+ * {@code ecommerce.catalog.import.exit=true} it stops instead, with exit status 1 when rows were rejected.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.catalog.import.file")
+public class ItemImportRunner implements ApplicationRunner {
+    public static final Logger logger = LoggerFactory.getLogger(ItemImportRunner.class);
+
+    @Value("${ecommerce.catalog.import.file}")
+    private String file;
+
+    @Value("${ecommerce.catalog.import.format:}")
+    private String format;
+
+    @Value("${ecommerce.catalog.import.exit:false}")
+    private boolean exit;
+
+    @Autowired
+    private ItemImporter itemImporter;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(final ApplicationArguments args) throws Exception {
+        final Path path = Paths.get(file);
+        final ItemImportFormat importFormat = format.isEmpty()
+                ? ItemImportFormat.ofFileName(file).orElseThrow(() -> new IllegalArgumentException(
+                        "Cannot tell the format of " + file + ", set ecommerce.catalog.import.format to csv or ndjson"))
+                : ItemImportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        logger.info("Importing items from " + path.toAbsolutePath() + " as " + importFormat + ".");
+
+        final ItemImportResult result;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            result = itemImporter.importItems(reader, importFormat);
+        }
+        result.getErrors().forEach(error -> logger.warn("Rejected " + error + "."));
+        if (result.getRejected() > result.getErrors().size()) {
+            logger.warn((result.getRejected() - result.getErrors().size()) + " more rows were rejected.");
+        }
+
+        if (exit) {
+            System.exit(SpringApplication.exit(context, () -> result.getRejected() == 0 ? 0 : 1));
+        }
+    }
+}
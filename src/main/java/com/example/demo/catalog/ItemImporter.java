@@ -0,0 +1,393 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads items from a CSV or NDJSON file of any size with batched JDBC statements.
+ *
+ * <p>The input is parsed one row at a time and only the current batch of {@code batch-size} rows is held in memory.
+ * Rows carry {@code name}, {@code price} and optionally {@code description} and {@code id}: rows without an id are
+ * inserted, with ids taken from {@code item_seq} in the same blocks Hibernate allocates them in, and rows with one
+ * update that item. Every batch commits on its own, so an import that stops half way keeps the batches before.</p>
+ *
+ * <p>Invalid rows are rejected and reported with their line, the others are imported. When a batch fails in the
+ * database, it is rolled back and written again row by row to single out the failing rows. Once a batch committed, an
+ * {@link ItemChangedEvent} is published for each of its items, which updates the search index and the catalog version,
+ * and the Hibernate caches of the catalog are cleared, since these writes bypass Hibernate.</p>
+ */
+@Component
+public class ItemImporter {
+    public static final Logger logger = LoggerFactory.getLogger(ItemImporter.class);
+
+    static final String INSERT = "insert into item (id, name, price, description) values (?, ?, ?, ?)";
+    static final String UPDATE = "update item set name = ?, price = ?, description = ? where id = ?";
+    private static final String NEXT_ID_BLOCK = "select next value for item_seq";
+    // the increment of item_seq and the allocation size of Item's generator
+    private static final int ID_BLOCK = 50;
+    // length of the name and description columns
+    private static final int MAX_LENGTH = 255;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ecommerce.catalog.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${ecommerce.catalog.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    @Value("${ecommerce.catalog.import.progress-rows:100000}")
+    private long progressRows;
+
+    /**
+     * Imports every row of {@code input}, which is not closed.
+     *
+     * @throws IllegalArgumentException when the CSV header lacks a {@code name} or {@code price} column
+     */
+    public ItemImportResult importItems(final Reader input, final ItemImportFormat format) throws IOException, SQLException {
+        final long start = System.nanoTime();
+        final ItemImportResult result = new ItemImportResult(maxReportedErrors);
+        final RowSource rows = format == ItemImportFormat.CSV ? new CsvRows(input) : new JsonRows(input);
+        try (Connection connection = dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT);
+                 PreparedStatement update = connection.prepareStatement(UPDATE)) {
+                final Batch batch = new Batch(connection, insert, update, result);
+                long nextProgress = progressRows;
+                Row row;
+                while ((row = rows.next(result)) != null) {
+                    batch.add(row);
+                    if (batch.rows.size() == batchSize) {
+                        batch.flush();
+                    }
+                    if (result.getRows() == nextProgress) {
+                        logger.info("Item import read " + result.getRows() + " rows, " + result.getRejected() + " rejected.");
+                        nextProgress += progressRows;
+                    }
+                }
+                batch.flush();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        result.finish(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Item import done: " + result + ".");
+        return result;
+    }
+
+    /**
+     * @throws IllegalArgumentException with the reason the row cannot be imported
+     */
+    private static Item item(final String id, final String name, final String price, final String description) {
+        final Item item = new Item();
+        if (id != null && !id.trim().isEmpty()) {
+            try {
+                item.setId(Long.valueOf(id.trim()));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Id '" + id + "' is not a number");
+            }
+        }
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name is missing");
+        }
+        item.setName(text("Name", name));
+        if (price == null || price.trim().isEmpty()) {
+            throw new IllegalArgumentException("Price is missing");
+        }
+        try {
+            final BigDecimal amount = new BigDecimal(price.trim());
+            if (amount.signum() < 0) {
+                throw new IllegalArgumentException("Price " + price + " is negative");
+            }
+            item.setPriceInMinorUnits(Money.toMinorUnits(amount));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Price '" + price + "' is not a number");
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Price " + price + " is not a whole number of cents");
+        }
+        item.setDescription(description == null ? "" : text("Description", description));
+        return item;
+    }
+
+    private static String text(final String field, final String value) {
+        final String trimmed = value.trim();
+        if (trimmed.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException(field + " is longer than " + MAX_LENGTH + " characters");
+        }
+        return trimmed;
+    }
+
+    private static final class Row {
+        private final long line;
+        private final Item item;
+        private final boolean insert;
+        private boolean missing;
+
+        private Row(final long line, final Item item) {
+            this.line = line;
+            this.item = item;
+            this.insert = item.getId() == null;
+        }
+    }
+
+    private interface RowSource {
+        /**
+         * @return the next valid row, after recording the invalid ones before it, or {@code null} at the end
+         */
+        Row next(ItemImportResult result) throws IOException;
+    }
+
+    private static final class CsvRows implements RowSource {
+        private final CsvReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private boolean done;
+
+        private CsvRows(final Reader input) throws IOException {
+            this.reader = new CsvReader(input);
+            final List<String> header = reader.next();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            if (!columns.containsKey("name") || !columns.containsKey("price")) {
+                throw new IllegalArgumentException("The first line must name the columns, name and price at least");
+            }
+        }
+
+        @Override
+        public Row next(final ItemImportResult result) throws IOException {
+            while (!done) {
+                final List<String> fields;
+                try {
+                    fields = reader.next();
+                } catch (IllegalArgumentException ex) {
+                    // the open quote took the rest of the file
+                    done = true;
+                    result.read();
+                    result.reject(reader.getRecordLine(), ex.getMessage());
+                    return null;
+                }
+                if (fields == null) {
+                    done = true;
+                } else if (fields.size() > 1 || !fields.get(0).trim().isEmpty()) {
+                    result.read();
+                    try {
+                        return new Row(reader.getRecordLine(), item(field(fields, "id"), field(fields, "name"),
+                                                                    field(fields, "price"), field(fields, "description")));
+                    } catch (IllegalArgumentException ex) {
+                        result.reject(reader.getRecordLine(), ex.getMessage());
+                    }
+                }
+            }
+            return null;
+        }
+
+        private String field(final List<String> fields, final String column) {
+            final Integer index = columns.get(column);
+            return index == null || index >= fields.size() ? null : fields.get(index);
+        }
+    }
+
+    private final class JsonRows implements RowSource {
+        private final BufferedReader reader;
+        private long line;
+
+        private JsonRows(final Reader input) {
+            this.reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        }
+
+        @Override
+        public Row next(final ItemImportResult result) throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.trim().isEmpty()) {
+                    continue;
+                }
+                result.read();
+                try {
+                    final JsonNode node = objectMapper.readTree(text);
+                    if (node == null || !node.isObject()) {
+                        throw new IllegalArgumentException("Line is not a JSON object");
+                    }
+                    return new Row(line, item(field(node, "id"), field(node, "name"), field(node, "price"),
+                                              field(node, "description")));
+                } catch (JsonProcessingException ex) {
+                    result.reject(line, "Line is not valid JSON: " + ex.getOriginalMessage());
+                } catch (IllegalArgumentException ex) {
+                    result.reject(line, ex.getMessage());
+                }
+            }
+            return null;
+        }
+
+        private String field(final JsonNode node, final String name) {
+            final JsonNode value = node.get(name);
+            if (value == null || value.isNull()) {
+                return null;
+            }
+            // numbers keep the digits they were written with, 2.50 is not read as 2.5000000001
+            return value.isNumber() ? value.decimalValue().toPlainString() : value.asText();
+        }
+    }
+
+    /**
+     * Rows read since the last flush, written with the import's two statements.
+     */
+    private final class Batch {
+        private final Connection connection;
+        private final PreparedStatement insert;
+        private final PreparedStatement update;
+        private final ItemImportResult result;
+        private final List<Row> rows = new ArrayList<>();
+        private long nextId;
+        private long lastId = -1;
+
+        private Batch(final Connection connection, final PreparedStatement insert, final PreparedStatement update,
+                      final ItemImportResult result) {
+            this.connection = connection;
+            this.insert = insert;
+            this.update = update;
+            this.result = result;
+        }
+
+        void add(final Row row) throws SQLException {
+            if (row.insert) {
+                // kept when the batch is retried row by row, the failed attempt was rolled back
+                row.item.setId(nextId());
+            }
+            rows.add(row);
+        }
+
+        void flush() throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                write(rows);
+                connection.commit();
+                committed(rows);
+            } catch (SQLException ex) {
+                rollback();
+                for (Row row : rows) {
+                    try {
+                        write(Collections.singletonList(row));
+                        connection.commit();
+                        committed(Collections.singletonList(row));
+                    } catch (SQLException rowEx) {
+                        rollback();
+                        result.reject(row.line, rowEx.getMessage());
+                    }
+                }
+            }
+            entityManagerFactory.getCache().evict(Item.class);
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+            rows.clear();
+        }
+
+        private void write(final List<Row> batch) throws SQLException {
+            final List<Row> updates = new ArrayList<>();
+            boolean inserts = false;
+            for (Row row : batch) {
+                final PreparedStatement statement = row.insert ? insert : update;
+                final int offset = row.insert ? 1 : 0;
+                statement.setString(1 + offset, row.item.getName());
+                statement.setBigDecimal(2 + offset, row.item.getPrice());
+                statement.setString(3 + offset, row.item.getDescription());
+                statement.setLong(row.insert ? 1 : 4, row.item.getId());
+                statement.addBatch();
+                if (row.insert) {
+                    inserts = true;
+                } else {
+                    updates.add(row);
+                }
+            }
+            if (inserts) {
+                insert.executeBatch();
+            }
+            if (!updates.isEmpty()) {
+                final int[] counts = update.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    updates.get(i).missing = counts[i] == 0;
+                }
+            }
+        }
+
+        private void committed(final List<Row> batch) {
+            for (Row row : batch) {
+                if (row.missing) {
+                    result.reject(row.line, "There is no item with id " + row.item.getId());
+                    continue;
+                }
+                if (row.insert) {
+                    result.inserted();
+                } else {
+                    result.updated();
+                }
+                eventPublisher.publishEvent(new ItemChangedEvent(row.item, ItemChangedEvent.Type.SAVED));
+            }
+        }
+
+        private void rollback() throws SQLException {
+            connection.rollback();
+            insert.clearBatch();
+            update.clearBatch();
+        }
+
+        /**
+         * Takes ids from {@code item_seq} like Hibernate's pooled optimizer: a sequence value {@code n} stands for the
+         * block of ids up to and including {@code n}, so ids handed out here and by Hibernate never meet.
+         */
+        private long nextId() throws SQLException {
+            if (nextId > lastId) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet next = statement.executeQuery(NEXT_ID_BLOCK)) {
+                    next.next();
+                    lastId = next.getLong(1);
+                }
+                nextId = Math.max(1, lastId - ID_BLOCK + 1);
+            }
+            return nextId++;
+        }
+    }
+}
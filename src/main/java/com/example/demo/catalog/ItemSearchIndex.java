@@ -0,0 +1,314 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-process inverted index over item names and descriptions supporting prefix, substring and multi term search.
+ *
+ * <p>Words are indexed in sorted maps so a prefix is a range scan, and every word is also broken into trigrams so a
+ * substring of three or more characters only has to be verified against the items sharing all of its trigrams. All
+ * query terms must match; results are ranked by where and how well each term matched, name before description.</p>
+ *
+ * <p>The index is built when the application is ready and kept current from committed {@link ItemChangedEvent}s.
+ * Searches are lock free, writers are serialised.</p>
+ */
+@Component
+public class ItemSearchIndex {
+    public static final Logger logger = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    private static final int NAME_EXACT = 100;
+    private static final int NAME_WORD = 40;
+    private static final int NAME_PREFIX = 25;
+    private static final int NAME_SUBSTRING = 10;
+    private static final int DESCRIPTION_WORD = 8;
+    private static final int DESCRIPTION_PREFIX = 5;
+    private static final int DESCRIPTION_SUBSTRING = 2;
+
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Long>> nameWords = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<Long>> descriptionWords = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        final long start = System.currentTimeMillis();
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.execute(status -> {
+            try (Stream<Item> items = itemRepository.streamAll()) {
+                items.forEach(item -> {
+                    put(item);
+                    entityManager.detach(item);
+                });
+            }
+            return null;
+        });
+        logger.info("Item search index built with " + documents.size() + " items in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(final ItemChangedEvent event) {
+        if (event.getType() == ItemChangedEvent.Type.DELETED) {
+            remove(event.getItem().getId());
+        } else {
+            put(event.getItem());
+        }
+    }
+
+    public synchronized void put(final Item item) {
+        if (item.getId() == null) {
+            return;
+        }
+        remove(item.getId());
+        final Document document = new Document(copy(item));
+        documents.put(item.getId(), document);
+        document.nameWords.forEach(word -> postings(nameWords, word).add(item.getId()));
+        document.descriptionWords.forEach(word -> postings(descriptionWords, word).add(item.getId()));
+        document.trigrams().forEach(gram -> postings(trigrams, gram).add(item.getId()));
+    }
+
+    public synchronized void remove(final Long id) {
+        final Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        document.nameWords.forEach(word -> unpost(nameWords, word, id));
+        document.descriptionWords.forEach(word -> unpost(descriptionWords, word, id));
+        document.trigrams().forEach(gram -> unpost(trigrams, gram, id));
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * @return at most {@code limit} items matching every term of {@code query}, best match first
+     */
+    public List<Item> search(final String query, final int limit) {
+        final List<String> terms = words(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        final List<Map<Long, Integer>> termScores = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            final Map<Long, Integer> scores = termScores(term);
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+            termScores.add(scores);
+        }
+        // intersect starting from the most selective term
+        termScores.sort(Comparator.comparingInt(Map::size));
+        final Map<Long, Integer> scores = termScores.get(0);
+        for (int i = 1; i < termScores.size() && !scores.isEmpty(); i++) {
+            final Map<Long, Integer> other = termScores.get(i);
+            scores.entrySet().removeIf(entry -> {
+                final Integer score = other.get(entry.getKey());
+                if (score == null) {
+                    return true;
+                }
+                entry.setValue(entry.getValue() + score);
+                return false;
+            });
+        }
+
+        final String phrase = String.join(" ", terms);
+        final PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+        scores.forEach((id, score) -> {
+            final Document document = documents.get(id);
+            if (document == null) {
+                return;
+            }
+            final int total = document.name.equals(phrase) ? score + NAME_EXACT : score;
+            if (best.size() == limit && !best.peek().isWorseThan(total, id)) {
+                return;
+            }
+            best.add(new Hit(document.item, total));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+
+        final List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        final List<Item> items = new ArrayList<>(hits.size());
+        hits.forEach(hit -> items.add(hit.item));
+        return items;
+    }
+
+    /**
+     * Best score of {@code term} for every item it matches: whole words and prefixes come straight from the word
+     * postings, substrings are verified only for items not already matching as well as a name substring would.
+     */
+    private Map<Long, Integer> termScores(final String term) {
+        final Map<Long, Integer> scores = new HashMap<>();
+        addWordScores(scores, nameWords, term, NAME_WORD, NAME_PREFIX);
+        addWordScores(scores, descriptionWords, term, DESCRIPTION_WORD, DESCRIPTION_PREFIX);
+        if (term.length() < GRAM) {
+            return scores;
+        }
+        for (Long id : substringCandidates(term)) {
+            final Integer current = scores.get(id);
+            if (current != null && current >= NAME_SUBSTRING) {
+                continue;
+            }
+            final Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            if (document.name.contains(term)) {
+                scores.put(id, NAME_SUBSTRING);
+            } else if (current == null && document.description.contains(term)) {
+                scores.put(id, DESCRIPTION_SUBSTRING);
+            }
+        }
+        return scores;
+    }
+
+    private static void addWordScores(final Map<Long, Integer> scores, final NavigableMap<String, Set<Long>> words,
+                                      final String term, final int word, final int prefix) {
+        words.subMap(term, true, term + Character.MAX_VALUE, false).forEach((candidate, ids) -> {
+            final Integer score = candidate.equals(term) ? word : prefix;
+            ids.forEach(id -> scores.merge(id, score, Math::max));
+        });
+    }
+
+    private Set<Long> substringCandidates(final String term) {
+        final List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(term)) {
+            final Set<Long> posting = trigrams.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            postings.add(posting);
+        }
+        // intersect starting from the rarest trigram so the working set is as small as possible
+        postings.sort(Comparator.comparingInt(Set::size));
+        final Set<Long> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private static Set<Long> postings(final Map<String, Set<Long>> index, final String key) {
+        return index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static void unpost(final Map<String, Set<Long>> index, final String key, final Long id) {
+        final Set<Long> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                index.remove(key, posting);
+            }
+        }
+    }
+
+    static List<String> words(final String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        final List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> grams(final String word) {
+        final Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            grams.add(word.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static Item copy(final Item item) {
+        final Item copy = new Item();
+        copy.setId(item.getId());
+        copy.setName(item.getName());
+        copy.setPriceInMinorUnits(item.getPriceInMinorUnits());
+        copy.setDescription(item.getDescription());
+        return copy;
+    }
+
+    private static final class Document {
+        private final Item item;
+        private final String name;
+        private final String description;
+        private final Set<String> nameWords;
+        private final Set<String> descriptionWords;
+
+        private Document(final Item item) {
+            this.item = item;
+            this.nameWords = new HashSet<>(words(item.getName()));
+            this.descriptionWords = new HashSet<>(words(item.getDescription()));
+            this.name = String.join(" ", words(item.getName()));
+            this.description = String.join(" ", words(item.getDescription()));
+        }
+
+        private Set<String> trigrams() {
+            final Set<String> all = new HashSet<>();
+            nameWords.forEach(word -> all.addAll(grams(word)));
+            descriptionWords.forEach(word -> all.addAll(grams(word)));
+            return all;
+        }
+    }
+
+    private static final class Hit {
+        private static final Comparator<Hit> WORST_FIRST =
+                Comparator.<Hit>comparingInt(hit -> hit.score).thenComparingLong(hit -> -hit.item.getId());
+
+        private final Item item;
+        private final int score;
+
+        private Hit(final Item item, final int score) {
+            this.item = item;
+            this.score = score;
+        }
+
+        private boolean isWorseThan(final int otherScore, final Long otherId) {
+            return score < otherScore || (score == otherScore && item.getId() > otherId);
+        }
+    }
+}
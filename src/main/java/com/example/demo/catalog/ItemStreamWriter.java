@@ -0,0 +1,61 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.responses.ItemResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the whole catalog as a JSON array, one item at a time, straight from a database cursor.
+ *
+ * <p>Items are read as {@link ItemResponse} projections the persistence context never holds, so memory use does not
+ * grow with the size of the catalog.</p>
+ */
+@Component
+public class ItemStreamWriter {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public long writeAll(final OutputStream out) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            try (Stream<ItemResponse> items = itemRepository.streamAllResponses();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                return write(items.iterator(), generator);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private long write(final Iterator<ItemResponse> items, final JsonGenerator generator) throws IOException {
+        long written = 0;
+        generator.writeStartArray();
+        while (items.hasNext()) {
+            generator.writeObject(items.next());
+            if (++written % ItemRepository.STREAM_FETCH_SIZE == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEndArray();
+        return written;
+    }
+}
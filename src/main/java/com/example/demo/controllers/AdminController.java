@@ -0,0 +1,129 @@
+package com.example.demo.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.catalog.ItemImportFormat;
+import com.example.demo.catalog.ItemImportResult;
+import com.example.demo.catalog.ItemImporter;
+import com.example.demo.order.OrderExportFormat;
+import com.example.demo.order.OrderExporter;
+
+/**
+ * Endpoints for the users named in {@code ecommerce.security.admins}, see {@code WebSecurityConfiguration}.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+	public static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+	static final String GZIP_MEDIA_TYPE = "application/gzip";
+
+	@Autowired
+	private OrderExporter orderExporter;
+
+	@Autowired
+	private ItemImporter itemImporter;
+
+	/**
+	 * Every order with its lines, as NDJSON or CSV, optionally gzip compressed. Limited to ids in
+	 * {@code [fromId, toId)} and to orders placed in {@code [from, to)} when given; times are ISO instants or dates,
+	 * which stand for the start of the day in UTC.
+	 *
+	 * <p>The body is written on the request thread as it is read rather than handed to the async executor, so the
+	 * async request timeout does not cut long exports short.</p>
+	 */
+	@GetMapping("/orders/export")
+	public ResponseEntity<Void> exportOrders(@RequestParam(defaultValue = "ndjson") String format,
+			@RequestParam(required = false) Long fromId, @RequestParam(required = false) Long toId,
+			@RequestParam(required = false) String from, @RequestParam(required = false) String to,
+			@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response) throws IOException {
+		final OrderExportFormat exportFormat = OrderExportFormat.of(format).orElse(null);
+		final Instant fromTime;
+		final Instant toTime;
+		try {
+			fromTime = from == null ? OrderExporter.FIRST_CREATED_AT : parseTime(from);
+			toTime = to == null ? OrderExporter.LAST_CREATED_AT : parseTime(to);
+		} catch (DateTimeParseException ex) {
+			logger.warn("Order export refused, cannot read " + ex.getParsedString() + " as a time.");
+			return ResponseEntity.badRequest().build();
+		}
+		if(exportFormat == null) {
+			logger.warn("Order export refused, unknown format " + format + ".");
+			return ResponseEntity.badRequest().build();
+		}
+
+		final String fileName = "orders" + exportFormat.getExtension() + (gzip ? ".gz" : "");
+		response.setContentType(gzip ? GZIP_MEDIA_TYPE : exportFormat.getMediaType().toString() + ";charset=UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+		final long started = System.currentTimeMillis();
+		final long orders;
+		if(gzip) {
+			final GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), 8192);
+			orders = export(out, exportFormat, fromId, toId, fromTime, toTime);
+			out.finish();
+		} else {
+			orders = export(response.getOutputStream(), exportFormat, fromId, toId, fromTime, toTime);
+		}
+		response.flushBuffer();
+		logger.info("Exported " + orders + " orders as " + fileName + " in " + (System.currentTimeMillis() - started) + " ms.");
+		// answered through the response already
+		return null;
+	}
+
+	/**
+	 * Loads the items of a CSV ({@code text/csv}) or NDJSON ({@code application/x-ndjson}) body, read as it arrives.
+	 * Answers with the counts and the rejected rows, or 400 when a CSV body does not start with a usable header.
+	 */
+	@PostMapping(value = "/items/import", consumes = { "text/csv", "application/x-ndjson" })
+	public ResponseEntity<ItemImportResult> importItems(
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException, SQLException {
+		final MediaType mediaType = MediaType.parseMediaType(contentType);
+		final Optional<ItemImportFormat> format = ItemImportFormat.of(mediaType);
+		if(!format.isPresent()) {
+			return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+		}
+		final Charset charset = mediaType.getCharset() == null ? StandardCharsets.UTF_8 : mediaType.getCharset();
+		try (Reader reader = new InputStreamReader(body, charset)) {
+			return ResponseEntity.ok(itemImporter.importItems(reader, format.get()));
+		} catch (IllegalArgumentException ex) {
+			logger.warn("Item import refused: " + ex.getMessage());
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	private long export(OutputStream out, OrderExportFormat format, Long fromId, Long toId, Instant from, Instant to) {
+		return orderExporter.export(out, format, fromId == null ? 0 : fromId, toId == null ? Long.MAX_VALUE : toId, from, to);
+	}
+
+	private static Instant parseTime(String value) {
+		return value.indexOf('T') < 0 ? LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant() : Instant.parse(value);
+	}
+}
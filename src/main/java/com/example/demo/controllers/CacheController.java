@@ -0,0 +1,70 @@
+package com.example.demo.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.cache.CatalogCacheConfiguration;
+import com.example.demo.cache.ExpiringCache;
+import com.example.demo.identity.UserIdentityCache;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@GetMapping("/catalog")
+	public ResponseEntity<Map<String, Object>> getCatalogCacheStatistics() {
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		final Map<String, Object> body = new LinkedHashMap<>();
+		body.put("enabled", statistics.isStatisticsEnabled());
+		if(!statistics.isStatisticsEnabled()) {
+			return ResponseEntity.ok(body);
+		}
+		body.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+		body.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+		body.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+		body.put("queryCacheHits", statistics.getQueryCacheHitCount());
+		body.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+		body.put("queryCachePuts", statistics.getQueryCachePutCount());
+
+		final CacheRegionStatistics items = statistics.getDomainDataRegionStatistics(CatalogCacheConfiguration.ITEM_REGION);
+		if(items != null) {
+			body.put("itemRegionHits", items.getHitCount());
+			body.put("itemRegionMisses", items.getMissCount());
+			body.put("itemRegionElements", items.getElementCountInMemory());
+		}
+		return ResponseEntity.ok(body);
+	}
+
+	@GetMapping("/users")
+	public ResponseEntity<Map<String, Object>> getUserCacheStatistics() {
+		final ExpiringCache<?, ?> cache = userIdentityCache.getCache();
+		final long hits = cache.getHitCount();
+		final long lookups = hits + cache.getMissCount();
+		final Map<String, Object> body = new LinkedHashMap<>();
+		body.put("size", cache.size());
+		body.put("maximumSize", cache.getMaximumSize());
+		body.put("hits", hits);
+		body.put("misses", cache.getMissCount());
+		body.put("evictions", cache.getEvictionCount());
+		body.put("hitRatio", lookups == 0 ? 0.0 : (double) hits / lookups);
+		return ResponseEntity.ok(body);
+	}
+
+}
@@ -1,8 +1,16 @@
 package com.example.demo.controllers;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.IntStream;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,59 +19,172 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.cart.CartStore;
+import com.example.demo.identity.UserIdentity;
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.jdbc.JdbcExecutor;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.User;
-import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.ItemRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.BulkModifyCartRequest;
+import com.example.demo.model.requests.CartLineChange;
 import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.CartResponse;
+import com.example.demo.replica.ReadRouting;
 
 @RestController
 @RequestMapping("/api/cart")
 public class CartController {
+    public static final Logger logger = LoggerFactory.getLogger(CartController.class);
+	static final int MAX_BULK_CHANGES = 1000;
 	
 	@Autowired
 	private UserRepository userRepository;
 	
-	@Autowired
-	private CartRepository cartRepository;
-	
 	@Autowired
 	private ItemRepository itemRepository;
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private CartStore cartStore;
+
+	@Autowired
+	private JdbcExecutor jdbcExecutor;
+
+	@Autowired
+	private ReadRouting readRouting;
 	
 	@PostMapping("/addToCart")
-	public ResponseEntity<Cart> addToCart(@RequestBody ModifyCartRequest request) {
-		User user = userRepository.findByUsername(request.getUsername());
-		if(user == null) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-		}
-		Optional<Item> item = itemRepository.findById(request.getItemId());
-		if(!item.isPresent()) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-		}
-		Cart cart = user.getCart();
-		IntStream.range(0, request.getQuantity())
-			.forEach(i -> cart.addItem(item.get()));
-		cartRepository.save(cart);
-		return ResponseEntity.ok(cart);
+	public CompletableFuture<ResponseEntity<CartResponse>> addToCart(@RequestBody ModifyCartRequest request) {
+		return jdbcExecutor.supply(() -> {
+			if(request.getQuantity() > Cart.MAX_LINE_QUANTITY) {
+				return ResponseEntity.badRequest().build();
+			}
+			Long cartId = findCartId(request.getUsername());
+			if(cartId == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			Optional<Item> item = itemRepository.findById(request.getItemId());
+			if(!item.isPresent()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			return modifyCart(request.getUsername(), cartId, cart -> cart.addItem(item.get(), request.getQuantity()));
+		});
 	}
 	
 	@PostMapping("/removeFromCart")
-	public ResponseEntity<Cart> removeFromCart(@RequestBody ModifyCartRequest request) {
-		User user = userRepository.findByUsername(request.getUsername());
-		if(user == null) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+	public CompletableFuture<ResponseEntity<CartResponse>> removeFromCart(@RequestBody ModifyCartRequest request) {
+		return jdbcExecutor.supply(() -> {
+			if(request.getQuantity() > Cart.MAX_LINE_QUANTITY) {
+				return ResponseEntity.badRequest().build();
+			}
+			Long cartId = findCartId(request.getUsername());
+			if(cartId == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			Optional<Item> item = itemRepository.findById(request.getItemId());
+			if(!item.isPresent()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			return modifyCart(request.getUsername(), cartId, cart -> cart.removeItem(item.get(), request.getQuantity()));
+		});
+	}
+
+	/**
+	 * Applies a list of line changes to the user's cart at once: the items are read with one query and the cart is
+	 * changed and saved once, in order of the changes. Nothing is changed when any item is unknown or any line would
+	 * end up with more than {@value Cart#MAX_LINE_QUANTITY} units.
+	 */
+	@PostMapping("/modify")
+	public CompletableFuture<ResponseEntity<CartResponse>> modify(@RequestBody BulkModifyCartRequest request) {
+		return jdbcExecutor.supply(() -> {
+			List<CartLineChange> changes = request.getChanges();
+			if(changes == null || changes.isEmpty() || changes.size() > MAX_BULK_CHANGES
+					|| changes.stream().anyMatch(change -> change == null || change.getDelta() < -Cart.MAX_LINE_QUANTITY
+							|| change.getDelta() > Cart.MAX_LINE_QUANTITY)) {
+				return ResponseEntity.badRequest().build();
+			}
+			Long cartId = findCartId(request.getUsername());
+			if(cartId == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			Set<Long> itemIds = changes.stream().map(CartLineChange::getItemId).collect(Collectors.toSet());
+			Map<Long, Item> items = new HashMap<>();
+			itemRepository.findAllById(itemIds).forEach(item -> items.put(item.getId(), item));
+			if(items.size() < itemIds.size()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			return modifyCart(request.getUsername(), cartId, cart -> {
+				checkLineQuantities(cart, changes, items);
+				changes.forEach(change -> {
+					Item item = items.get(change.getItemId());
+					if(change.getDelta() > 0) {
+						cart.addItem(item, change.getDelta());
+					} else {
+						cart.removeItem(item, -change.getDelta());
+					}
+				});
+			});
+		});
+	}
+
+	/**
+	 * Applies the change to the user's cart through the {@link CartStore}, so concurrent changes are not lost.
+	 */
+	private ResponseEntity<CartResponse> modifyCart(String username, Long cartId, Consumer<Cart> change) {
+		Cart cart;
+		try {
+			cart = cartStore.update(cartId, change);
+			if(cart == null) {
+				// the cached identity pointed at a cart that no longer exists, look the user up again
+				userIdentityCache.invalidate(username);
+				Long currentCartId = findCartId(username);
+				cart = currentCartId == null ? null : cartStore.update(currentCartId, change);
+			}
+		} catch (IllegalArgumentException ex) {
+			// thrown before the cart was changed, so there is nothing to undo
+			logger.warn("Cart of user <" + username + "> not changed: " + ex.getMessage());
+			return ResponseEntity.badRequest().build();
+		}
+		if(cart != null && !cartStore.isEnabled()) {
+			// written behind, the store records the write once its flush has committed
+			readRouting.wrote(username);
+		}
+		return cart == null ? ResponseEntity.status(HttpStatus.NOT_FOUND).build() : ResponseEntity.ok(CartResponse.of(cart));
+	}
+
+	/**
+	 * Replays the changes on the affected line quantities alone, so a change that would overfill a line is refused
+	 * before any of them is applied to the cart.
+	 */
+	private static void checkLineQuantities(Cart cart, List<CartLineChange> changes, Map<Long, Item> items) {
+		Map<Item, Long> lines = new HashMap<>();
+		for(CartLineChange change : changes) {
+			Item item = items.get(change.getItemId());
+			long quantity = Math.max(0, lines.getOrDefault(item, (long) cart.getQuantity(item)) + change.getDelta());
+			Cart.checkLineQuantity(item, quantity);
+			lines.put(item, quantity);
+		}
+	}
+
+	/**
+	 * The id of the user's cart, from the user's cached identity when there is one and through the user otherwise. The
+	 * cart itself is read by the {@link CartStore} once it holds the cart's lock.
+	 */
+	private Long findCartId(String username) {
+		UserIdentity identity = userIdentityCache.get(username);
+		if(identity != null && identity.getCartId() != null) {
+			return identity.getCartId();
 		}
-		Optional<Item> item = itemRepository.findById(request.getItemId());
-		if(!item.isPresent()) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		User user = readRouting.forUser(username, () -> userRepository.findByUsername(username));
+		if(user == null || user.getCart() == null) {
+			return null;
 		}
-		Cart cart = user.getCart();
-		IntStream.range(0, request.getQuantity())
-			.forEach(i -> cart.removeItem(item.get()));
-		cartRepository.save(cart);
-		return ResponseEntity.ok(cart);
+		return userIdentityCache.put(user).getCartId();
 	}
 		
 }
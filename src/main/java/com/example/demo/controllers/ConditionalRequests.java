@@ -0,0 +1,61 @@
+package com.example.demo.controllers;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * {@code If-None-Match} handling for controllers that can tell the current ETag of a response without building it, so
+ * an unchanged poll is answered before any repository is touched.
+ */
+final class ConditionalRequests {
+
+	// clients may keep responses, but have to ask whether they are still current before using them
+	static final CacheControl REVALIDATE = CacheControl.noCache();
+
+	private ConditionalRequests() {
+	}
+
+	/**
+	 * Weak comparison as required for {@code If-None-Match}: {@code W/} prefixes are ignored and {@code *} matches
+	 * anything.
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+		return matches(ifNoneMatch, etag, true);
+	}
+
+	/**
+	 * Like {@link #matches(String, String)}, but {@code *} matches nothing. For resources whose ETag is shared with
+	 * others, where answering {@code *} without a lookup would claim that a missing resource exists.
+	 */
+	static boolean matchesTag(String ifNoneMatch, String etag) {
+		return matches(ifNoneMatch, etag, false);
+	}
+
+	private static boolean matches(String ifNoneMatch, String etag, boolean wildcard) {
+		if(ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+			return false;
+		}
+		final String opaque = opaque(etag);
+		for(String candidate : ifNoneMatch.split(",")) {
+			final String tag = candidate.trim();
+			if(tag.equals("*") ? wildcard : opaque(tag).equals(opaque)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static <T> CompletableFuture<ResponseEntity<T>> notModified(String etag) {
+		return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+				.eTag(etag)
+				.cacheControl(REVALIDATE)
+				.build());
+	}
+
+	private static String opaque(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
+}
@@ -1,40 +1,135 @@
 package com.example.demo.controllers;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.catalog.CatalogVersion;
+import com.example.demo.catalog.ItemSearchIndex;
+import com.example.demo.catalog.ItemStreamWriter;
+import com.example.demo.jdbc.JdbcExecutor;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.responses.ItemResponse;
 
 @RestController
 @RequestMapping("/api/item")
 public class ItemController {
 
+	public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	static final int DEFAULT_PAGE_SIZE = 100;
+	static final int MAX_PAGE_SIZE = 1000;
+	static final int DEFAULT_SEARCH_LIMIT = 20;
+	static final int MAX_SEARCH_LIMIT = 100;
+
 	@Autowired
 	private ItemRepository itemRepository;
+
+	@Autowired
+	private ItemStreamWriter itemStreamWriter;
+
+	@Autowired
+	private ItemSearchIndex itemSearchIndex;
+
+	@Autowired
+	private JdbcExecutor jdbcExecutor;
 	
+	@Autowired
+	private CatalogVersion catalogVersion;
+	
+	/**
+	 * The whole catalog, tagged with the {@link CatalogVersion}; a matching {@code If-None-Match} is answered with 304
+	 * without reading it.
+	 */
 	@GetMapping
-	public ResponseEntity<List<Item>> getItems() {
-		return ResponseEntity.ok(itemRepository.findAll());
+	public CompletableFuture<ResponseEntity<List<ItemResponse>>> getItems(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		final String etag = catalogVersion.etag();
+		if(ConditionalRequests.matches(ifNoneMatch, etag)) {
+			return ConditionalRequests.notModified(etag);
+		}
+		return jdbcExecutor.supply(() -> ResponseEntity.ok()
+				.eTag(etag)
+				.cacheControl(ConditionalRequests.REVALIDATE)
+				.body(itemRepository.findAllResponses()));
+	}
+
+	/**
+	 * Keyset pagination over the catalog ordered by id. Pass the {@value #NEXT_CURSOR_HEADER} header of a response as
+	 * {@code after} to fetch the following page; the header is absent on the last page.
+	 */
+	@GetMapping("/page")
+	public CompletableFuture<ResponseEntity<List<ItemResponse>>> getItemsPage(@RequestParam(defaultValue = "0") long after,
+			@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+		return jdbcExecutor.supply(() -> {
+			final int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+			final List<ItemResponse> items = itemRepository.findResponsesAfter(after, PageRequest.of(0, pageSize));
+			if(items.size() < pageSize) {
+				return ResponseEntity.ok(items);
+			}
+			return ResponseEntity.ok()
+					.header(NEXT_CURSOR_HEADER, String.valueOf(items.get(items.size() - 1).getId()))
+					.body(items);
+		});
+	}
+
+	/**
+	 * Same body as {@link #getItems(String)}, written incrementally from a database cursor instead of a list held in memory.
+	 */
+	@GetMapping("/stream")
+	public ResponseEntity<StreamingResponseBody> streamItems() {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON_UTF8)
+				.body(itemStreamWriter::writeAll);
+	}
+	
+	/**
+	 * Ranked prefix, substring and multi word search over item names and descriptions, served from memory.
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<List<ItemResponse>> searchItems(@RequestParam("q") String query,
+			@RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit) {
+		List<Item> items = itemSearchIndex.search(query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)));
+		return items.isEmpty() ? ResponseEntity.notFound().build()
+				: ResponseEntity.ok(items.stream().map(ItemResponse::of).collect(Collectors.toList()));
 	}
 	
+	/**
+	 * One item, conditional on the {@link CatalogVersion} like {@link #getItems(String)}. {@code If-None-Match: *} is
+	 * not honoured, so it cannot turn the 404 of an unknown id into a 304.
+	 */
 	@GetMapping("/{id}")
-	public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-		return ResponseEntity.of(itemRepository.findById(id));
+	public CompletableFuture<ResponseEntity<ItemResponse>> getItemById(@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		final String etag = catalogVersion.etag();
+		if(ConditionalRequests.matchesTag(ifNoneMatch, etag)) {
+			return ConditionalRequests.notModified(etag);
+		}
+		return jdbcExecutor.supply(() -> itemRepository.findResponseById(id)
+				.map(item -> ResponseEntity.ok().eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).body(item))
+				.orElseGet(() -> ResponseEntity.notFound().build()));
 	}
 	
 	@GetMapping("/name/{name}")
-	public ResponseEntity<List<Item>> getItemsByName(@PathVariable String name) {
-		List<Item> items = itemRepository.findByName(name);
-		return items == null || items.isEmpty() ? ResponseEntity.notFound().build()
-				: ResponseEntity.ok(items);
-			
+	public CompletableFuture<ResponseEntity<List<ItemResponse>>> getItemsByName(@PathVariable String name) {
+		return jdbcExecutor.supply(() -> {
+			List<ItemResponse> items = itemRepository.findResponsesByName(name);
+			return items == null || items.isEmpty() ? ResponseEntity.notFound().build()
+					: ResponseEntity.ok(items);
+		});
 	}
 	
 }
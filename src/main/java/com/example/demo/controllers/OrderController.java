@@ -1,56 +1,230 @@
 package com.example.demo.controllers;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.cart.CartStore;
+import com.example.demo.identity.UserIdentity;
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.jdbc.JdbcExecutor;
+import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository.OrderLine;
+import com.example.demo.model.persistence.repositories.OrderRepository.OrderSummary;
 import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.ItemResponse;
+import com.example.demo.model.responses.LineItemResponse;
+import com.example.demo.model.responses.OrderResponse;
+import com.example.demo.model.responses.UserResponse;
+import com.example.demo.order.OrderHistoryVersions;
+import com.example.demo.order.OrderStatus;
+import com.example.demo.order.OrderWriter;
+import com.example.demo.replica.ReadRouting;
 
 @RestController
 @RequestMapping("/api/order")
 public class OrderController {
     public static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+	static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+	static final int MAX_HISTORY_PAGE_SIZE = 500;
 	
 	@Autowired
 	private UserRepository userRepository;
 	
 	@Autowired
 	private OrderRepository orderRepository;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private OrderWriter orderWriter;
+
+	@Autowired
+	private CartStore cartStore;
+
+	@Autowired
+	private JdbcExecutor jdbcExecutor;
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private OrderHistoryVersions orderHistoryVersions;
+
+	@Autowired
+	private ReadRouting readRouting;
 	
 	
+	/**
+	 * Places an order for the contents of the user's cart. With write-behind enabled the order is queued and answered
+	 * with 202 Accepted and a {@code Location} to poll, or 503 when the queue is full. The cart is read from the primary
+	 * database, as the order must be placed for its current contents.
+	 */
 	@PostMapping("/submit/{username}")
-	public ResponseEntity<UserOrder> submit(@PathVariable String username) {
-		User user = userRepository.findByUsername(username);
-		if(user == null) {
-            logger.error("Order could not be processed as user <" + username + "> was not found.");
-			return ResponseEntity.notFound().build();
-		}
-		UserOrder order = UserOrder.createFromCart(user.getCart());
-		orderRepository.save(order);
+	public CompletableFuture<ResponseEntity<OrderResponse>> submit(@PathVariable String username) {
+		return jdbcExecutor.supply(() -> readRouting.primary(() -> {
+			Cart cart = findCart(username);
+			if(cart == null) {
+	            logger.error("Order could not be processed as user <" + username + "> was not found.");
+				return ResponseEntity.notFound().build();
+			}
+			UserOrder order = UserOrder.createFromCart(cart);
+			if(orderWriter.isEnabled()) {
+				if(!orderWriter.accept(order)) {
+	                logger.warn("Order could not be queued for the user <" + username + ">, the queue is full.");
+					return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+				}
+	            logger.info("Order <" + order.getReference() + "> was queued for the user <" + username + ">.");
+				return ResponseEntity.accepted().location(URI.create("/api/order/status/" + order.getReference())).body(OrderResponse.of(order));
+			}
+			orderRepository.save(order);
+			readRouting.wrote(username);
 
-        logger.info("Order was processed with success for the user <" + username + ">.");
-		return ResponseEntity.ok(order);
+	        logger.info("Order was processed with success for the user <" + username + ">.");
+			return ResponseEntity.ok(OrderResponse.of(order));
+		}));
 	}
 	
+	@GetMapping("/status/{reference}")
+	public CompletableFuture<ResponseEntity<OrderStatus>> getOrderStatus(@PathVariable String reference) {
+		return jdbcExecutor.supply(() -> {
+			OrderStatus status = orderWriter.status(reference);
+			if(status == null) {
+	            logger.error("Order <" + reference + "> was not found.");
+				return ResponseEntity.notFound().build();
+			}
+			return ResponseEntity.ok(status);
+		});
+	}
+
+	/**
+	 * One page of the user's orders, newest first, read as projections in two statements whatever the page size.
+	 * Pass the {@value ItemController#NEXT_CURSOR_HEADER} header of a response as {@code before} to fetch the
+	 * following page; the header is absent on the last page.
+	 *
+	 * <p>Pages are tagged with the user's {@link OrderHistoryVersions version}. When the user's identity is cached a
+	 * matching {@code If-None-Match} is answered with 304 without touching the database.</p>
+	 */
 	@GetMapping("/history/{username}")
-	public ResponseEntity<List<UserOrder>> getOrdersForUser(@PathVariable String username) {
+	public CompletableFuture<ResponseEntity<List<OrderResponse>>> getOrdersForUser(@PathVariable String username,
+			@RequestParam(defaultValue = "" + Long.MAX_VALUE) long before,
+			@RequestParam(defaultValue = "" + DEFAULT_HISTORY_PAGE_SIZE) int size,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		UserIdentity identity = userIdentityCache.get(username);
+		if(identity != null) {
+			String etag = orderHistoryVersions.etag(identity.getUserId());
+			if(ConditionalRequests.matches(ifNoneMatch, etag)) {
+				return ConditionalRequests.notModified(etag);
+			}
+		}
+		return jdbcExecutor.supply(() -> readRouting.forUser(username, () -> {
+			Long userId = findUserId(username);
+			if(userId == null) {
+	            logger.error("Order history could not be retrieved as user <" + username + "> was not found.");
+				return ResponseEntity.notFound().build();
+			}
+			final String etag = orderHistoryVersions.etag(userId);
+			if(ConditionalRequests.matches(ifNoneMatch, etag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+			}
+			final int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+			final List<OrderSummary> summaries = orderRepository.findSummariesByUserIdBefore(userId, before, PageRequest.of(0, pageSize));
+			final List<OrderResponse> orders = toResponses(summaries, new UserResponse(userId, username));
+
+	        logger.info("Order history was retrieved for the user " + username + ".");
+			ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(ConditionalRequests.REVALIDATE);
+			if(orders.size() < pageSize) {
+				return response.body(orders);
+			}
+			return response
+					.header(ItemController.NEXT_CURSOR_HEADER, String.valueOf(orders.get(orders.size() - 1).getId()))
+					.body(orders);
+		}));
+	}
+
+	/**
+	 * Completes the history entries with their lines, read in one statement for the whole page.
+	 */
+	private List<OrderResponse> toResponses(List<OrderSummary> summaries, UserResponse user) {
+		if(summaries.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<Long> ids = summaries.stream().map(OrderSummary::getId).collect(Collectors.toList());
+		Map<Long, List<LineItemResponse>> lines = new HashMap<>();
+		Map<Long, ItemResponse> items = new HashMap<>();
+		for(OrderLine line : orderRepository.findLinesByOrderIdIn(ids)) {
+			ItemResponse item = items.computeIfAbsent(line.getItemId(),
+					id -> new ItemResponse(id, line.getName(), line.getPrice(), line.getDescription()));
+			lines.computeIfAbsent(line.getOrderId(), id -> new ArrayList<>()).add(new LineItemResponse(item, line.getQuantity()));
+		}
+		return summaries.stream()
+				.map(summary -> new OrderResponse(summary.getId(), summary.getReference(), user,
+						lines.getOrDefault(summary.getId(), Collections.emptyList()), summary.getTotal()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * The user's cart, loaded by id when the user's identity is cached and through the user otherwise. Changes the
+	 * {@link CartStore} holds in memory are written first, so the order is placed for what the user last saw.
+	 */
+	private Cart findCart(String username) {
+		UserIdentity identity = userIdentityCache.get(username);
+		if(identity != null && identity.getCartId() != null) {
+			cartStore.flush(identity.getCartId());
+			Optional<Cart> cart = cartRepository.findById(identity.getCartId());
+			if(cart.isPresent()) {
+				return cart.get();
+			}
+			userIdentityCache.invalidate(username);
+		}
+		User user = userRepository.findByUsername(username);
+		if(user == null) {
+			return null;
+		}
+		userIdentityCache.put(user);
+		if(user.getCart() == null || !cartStore.isEnabled()) {
+			return user.getCart();
+		}
+		// the user's cart was read along with the user, read it again once its changes are written
+		cartStore.flush(user.getCart().getId());
+		return cartRepository.findById(user.getCart().getId()).orElse(null);
+	}
+
+	private Long findUserId(String username) {
+		UserIdentity identity = userIdentityCache.get(username);
+		if(identity != null) {
+			return identity.getUserId();
+		}
 		User user = userRepository.findByUsername(username);
 		if(user == null) {
-            logger.error("Order history could not be retrieved as user <" + username + "> was not found.");
-			return ResponseEntity.notFound().build();
+			return null;
 		}
-        logger.info("Order history was retrieved for the user " + username + ".");
-		return ResponseEntity.ok(orderRepository.findByUser(user));
+		return userIdentityCache.put(user).getUserId();
 	}
 }
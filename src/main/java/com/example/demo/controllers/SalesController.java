@@ -0,0 +1,109 @@
+package com.example.demo.controllers;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.identity.UserIdentity;
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.jdbc.JdbcExecutor;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.DaySalesResponse;
+import com.example.demo.model.responses.ItemSalesResponse;
+import com.example.demo.model.responses.UserSalesResponse;
+import com.example.demo.order.SalesAggregates;
+
+/**
+ * Sales dashboards for admins, answered from the {@link SalesAggregates} in memory without reading the orders.
+ */
+@RestController
+@RequestMapping("/api/admin/sales")
+public class SalesController {
+    public static final Logger logger = LoggerFactory.getLogger(SalesController.class);
+	static final int DEFAULT_DAYS = 30;
+	static final int MAX_DAYS = 366;
+	static final int DEFAULT_TOP_ITEMS = 10;
+	static final int MAX_TOP_ITEMS = 100;
+
+	@Autowired
+	private SalesAggregates salesAggregates;
+
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcExecutor jdbcExecutor;
+
+	/**
+	 * Orders and revenue of every day in {@code [from, to)}, UTC dates, the last {@value #DEFAULT_DAYS} days by
+	 * default and at most {@value #MAX_DAYS} at once.
+	 */
+	@GetMapping("/days")
+	public ResponseEntity<List<DaySalesResponse>> getDays(@RequestParam(required = false) String from,
+			@RequestParam(required = false) String to) {
+		final LocalDate toDate;
+		final LocalDate fromDate;
+		try {
+			toDate = to == null ? LocalDate.now(ZoneOffset.UTC).plusDays(1) : LocalDate.parse(to);
+			fromDate = from == null ? toDate.minusDays(DEFAULT_DAYS) : LocalDate.parse(from);
+		} catch (DateTimeParseException ex) {
+			logger.warn("Sales per day refused, cannot read " + ex.getParsedString() + " as a date.");
+			return ResponseEntity.badRequest().build();
+		}
+		final long days = ChronoUnit.DAYS.between(fromDate, toDate);
+		if(days < 0 || days > MAX_DAYS) {
+			logger.warn("Sales per day refused for " + days + " days from " + fromDate + ".");
+			return ResponseEntity.badRequest().build();
+		}
+		final List<DaySalesResponse> sales = new ArrayList<>((int) days);
+		for(LocalDate day = fromDate; day.isBefore(toDate); day = day.plusDays(1)) {
+			sales.add(salesAggregates.day(day));
+		}
+		return ResponseEntity.ok(sales);
+	}
+
+	/**
+	 * The items with the most units sold, most first.
+	 */
+	@GetMapping("/items/top")
+	public ResponseEntity<List<ItemSalesResponse>> getTopItems(@RequestParam(defaultValue = "" + DEFAULT_TOP_ITEMS) int limit) {
+		return ResponseEntity.ok(salesAggregates.topItems(Math.max(1, Math.min(limit, MAX_TOP_ITEMS))));
+	}
+
+	/**
+	 * Orders placed and spend of a user. Only looking up a user whose identity is not cached reads the database.
+	 */
+	@GetMapping("/users/{username}")
+	public CompletableFuture<ResponseEntity<UserSalesResponse>> getUser(@PathVariable String username) {
+		UserIdentity identity = userIdentityCache.get(username);
+		if(identity != null) {
+			return CompletableFuture.completedFuture(ResponseEntity.ok(salesAggregates.user(identity.getUserId(), username)));
+		}
+		return jdbcExecutor.supply(() -> {
+			User user = userRepository.findByUsername(username);
+			if(user == null) {
+	            logger.error("Sales could not be retrieved as user <" + username + "> was not found.");
+				return ResponseEntity.notFound().build();
+			}
+			return ResponseEntity.ok(salesAggregates.user(userIdentityCache.put(user).getUserId(), username));
+		});
+	}
+}
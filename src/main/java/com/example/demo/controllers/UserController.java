@@ -1,8 +1,12 @@
 package com.example.demo.controllers;
 
+import java.util.Optional;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,11 +16,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.identity.UserIdentity;
+import com.example.demo.identity.UserIdentityCache;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.CreateUserRequest;
+import com.example.demo.replica.ReadRouting;
+import com.example.demo.security.PasswordHashingRejectedException;
 
 @RestController
 @RequestMapping("/api/user")
@@ -33,6 +41,12 @@ public class UserController {
 	@Autowired
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+	@Autowired
+	private UserIdentityCache userIdentityCache;
+
+	@Autowired
+	private ReadRouting readRouting;
+
 	@GetMapping("/id/{id}")
 	public ResponseEntity<User> findById(@PathVariable Long id) {
 		return ResponseEntity.of(userRepository.findById(id));
@@ -40,8 +54,22 @@ public class UserController {
 	
 	@GetMapping("/{username}")
 	public ResponseEntity<User> findByUserName(@PathVariable String username) {
-		User user = userRepository.findByUsername(username);
-		return user == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(user);
+		return readRouting.forUser(username, () -> {
+			UserIdentity identity = userIdentityCache.get(username);
+			if(identity != null) {
+				Optional<User> user = userRepository.findById(identity.getUserId());
+				if(user.isPresent()) {
+					return ResponseEntity.ok(user.get());
+				}
+				userIdentityCache.invalidate(username);
+			}
+			User user = userRepository.findByUsername(username);
+			if(user == null) {
+				return ResponseEntity.notFound().build();
+			}
+			userIdentityCache.put(user);
+			return ResponseEntity.ok(user);
+		});
 	}
 	
 	@PostMapping("/create")
@@ -62,9 +90,15 @@ public class UserController {
 		    return ResponseEntity.badRequest().build();
         }
 
-		user.setPassword(bCryptPasswordEncoder.encode(password));
+		try {
+			user.setPassword(bCryptPasswordEncoder.encode(password));
+		} catch (PasswordHashingRejectedException ex) {
+			logger.warn("User <" + createUserRequest.getUsername() + "> was not created. Password hashing is saturated.");
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+		}
         user.setMirrorPassword(user.getPassword());
 		userRepository.save(user);
+		readRouting.wrote(user.getUsername());
 		logger.info("User <" + createUserRequest.getUsername() + "> was created successfully.");
 		return ResponseEntity.ok(user);
 	}
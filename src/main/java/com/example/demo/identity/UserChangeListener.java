@@ -0,0 +1,32 @@
+package com.example.demo.identity;
+
+import com.example.demo.model.persistence.User;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener turning user lifecycle callbacks into {@link UserChangedEvent}s.
+ */
+public class UserChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCreate(final User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user, UserChangedEvent.Type.CREATED));
+    }
+
+    @PostUpdate
+    public void onUpdate(final User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user, UserChangedEvent.Type.UPDATED));
+    }
+
+    @PostRemove
+    public void onRemove(final User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user, UserChangedEvent.Type.DELETED));
+    }
+}
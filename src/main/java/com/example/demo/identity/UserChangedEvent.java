@@ -0,0 +1,27 @@
+package com.example.demo.identity;
+
+import com.example.demo.model.persistence.User;
+
+/**
+ * Published whenever a user is inserted, updated or deleted.
+ */
+public class UserChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final User user;
+    private final Type type;
+
+    public UserChangedEvent(final User user, final Type type) {
+        this.user = user;
+        this.type = type;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
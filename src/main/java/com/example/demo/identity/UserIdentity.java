@@ -0,0 +1,26 @@
+package com.example.demo.identity;
+
+/**
+ * The keys needed to act on behalf of a user without loading the user itself.
+ */
+public final class UserIdentity {
+
+    private final long userId;
+    private final Long cartId;
+
+    public UserIdentity(final long userId, final Long cartId) {
+        this.userId = userId;
+        this.cartId = cartId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the id of the user's cart, or {@code null} when the user has none
+     */
+    public Long getCartId() {
+        return cartId;
+    }
+}
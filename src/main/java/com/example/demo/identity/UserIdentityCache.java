@@ -0,0 +1,73 @@
+package com.example.demo.identity;
+
+import com.example.demo.cache.ExpiringCache;
+import com.example.demo.model.persistence.User;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded username to {@link UserIdentity} cache, so request handling can go straight to the user's cart or orders by
+ * key instead of looking the user up by name first.
+ *
+ * <p>Only ids are cached, never the entity graph, so a hit never hands out stale cart contents or credentials.
+ * Entries are dropped once a change to the user commits, and expire after {@code ecommerce.cache.users.ttl-seconds} to
+ * bound the damage of a lookup racing with that change. Missing users are not cached.</p>
+ */
+@Component
+public class UserIdentityCache {
+
+    private final ExpiringCache<String, UserIdentity> identities;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public UserIdentityCache(@Value("${ecommerce.cache.users.max-entries:10000}") final int maxEntries,
+                             @Value("${ecommerce.cache.users.ttl-seconds:600}") final long ttlSeconds) {
+        this(new ExpiringCache<>(maxEntries), TimeUnit.SECONDS.toMillis(ttlSeconds), System::currentTimeMillis);
+    }
+
+    UserIdentityCache(final ExpiringCache<String, UserIdentity> identities, final long ttlMillis,
+                      final LongSupplier clock) {
+        this.identities = identities;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached identity of the user, or {@code null} when the caller has to look the user up
+     */
+    public UserIdentity get(final String username) {
+        return identities.get(username);
+    }
+
+    /**
+     * Remembers the identity of a user just loaded by the caller.
+     */
+    public UserIdentity put(final User user) {
+        final UserIdentity identity = new UserIdentity(user.getId(), user.getCart() == null ? null : user.getCart().getId());
+        identities.put(user.getUsername(), identity, clock.getAsLong() + ttlMillis);
+        return identity;
+    }
+
+    public void invalidate(final String username) {
+        identities.invalidate(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(final UserChangedEvent event) {
+        final User user = event.getUser();
+        identities.invalidate(user.getUsername());
+        if (event.getType() != UserChangedEvent.Type.CREATED) {
+            // the user may have been cached under a name it no longer has
+            identities.invalidateIf(identity -> identity.getUserId() == user.getId());
+        }
+    }
+
+    public ExpiringCache<String, UserIdentity> getCache() {
+        return identities;
+    }
+}
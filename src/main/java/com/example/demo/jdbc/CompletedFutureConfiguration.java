@@ -0,0 +1,34 @@
+package com.example.demo.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Puts the {@link CompletedFutureReturnValueHandler} ahead of Spring MVC's own return value handlers, which would
+ * otherwise take every {@link java.util.concurrent.CompletableFuture} first, and hands it those handlers to delegate to.
+ */
+@Configuration
+public class CompletedFutureConfiguration {
+
+    @Bean
+    public static BeanPostProcessor completedFutureReturnValueHandlerRegistrar() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter) {
+                    final RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+                    final List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>();
+                    handlers.add(new CompletedFutureReturnValueHandler(adapter.getReturnValueHandlers()));
+                    handlers.addAll(adapter.getReturnValueHandlers());
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.jdbc;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Writes a {@link CompletableFuture} returned by a controller on the calling thread when it is already complete, as it
+ * always is with the {@link JdbcExecutor} disabled and for answers given before any database work, such as a 304.
+ * Spring MVC would otherwise start an asynchronous request for it and dispatch back to the container just to write the
+ * result. Pending futures are left to the asynchronous handling.
+ */
+final class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final HandlerMethodReturnValueHandlerComposite delegates = new HandlerMethodReturnValueHandlerComposite();
+
+    CompletedFutureReturnValueHandler(final List<HandlerMethodReturnValueHandler> delegates) {
+        this.delegates.addHandlers(delegates);
+    }
+
+    @Override
+    public boolean supportsReturnType(final MethodParameter returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(final Object returnValue, final MethodParameter returnType,
+                                  final ModelAndViewContainer mavContainer, final NativeWebRequest webRequest) throws Exception {
+        if (returnValue instanceof CompletableFuture && ((CompletableFuture<?>) returnValue).isDone()) {
+            delegates.handleReturnValue(result((CompletableFuture<?>) returnValue), new ResultParameter(returnType),
+                                        mavContainer, webRequest);
+        } else {
+            delegates.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+        }
+    }
+
+    // rethrows what the work threw, like the asynchronous dispatch, so the same exception handlers apply
+    private static Object result(final CompletableFuture<?> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * The controller method's return type with the future unwrapped, e.g. {@code ResponseEntity<ItemResponse>} for
+     * {@code CompletableFuture<ResponseEntity<ItemResponse>>}.
+     */
+    private static final class ResultParameter extends MethodParameter {
+
+        private final ResolvableType resultType;
+
+        ResultParameter(final MethodParameter returnType) {
+            super(returnType);
+            this.resultType = ResolvableType.forMethodParameter(returnType).getGeneric();
+        }
+
+        private ResultParameter(final ResultParameter original) {
+            super(original);
+            this.resultType = original.resultType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return resultType.resolve(Object.class);
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return resultType.getType();
+        }
+
+        @Override
+        public ResultParameter clone() {
+            return new ResultParameter(this);
+        }
+    }
+}
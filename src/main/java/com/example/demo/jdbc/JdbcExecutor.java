@@ -0,0 +1,159 @@
+package com.example.demo.jdbc;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs the blocking database work of a request, enabled with {@code ecommerce.async.enabled}.
+ *
+ * <p>When enabled, controllers hand their repository calls to a pool of {@code threads} threads, sized to the
+ * connection pool, and return the pending result to Spring MVC, which frees the servlet thread until the result is
+ * ready. A slow database then fills this pool and its queue of {@code queue-capacity} instead of the connector's
+ * threads, so requests that do not touch the database, health checks among them, keep being served. Work is refused
+ * with {@link JdbcExecutorRejectedException} when the queue is full, and dropped the same way when it waited longer than
+ * {@code queue-timeout-ms}, by which time the client has most likely given up on it.</p>
+ *
+ * <p>Each piece of work runs with its own {@link EntityManager} bound to the thread, as open-in-view does for request
+ * threads, so repository calls made by one request share a persistence context on either kind of thread. When
+ * disabled, work runs on the calling thread and the returned future is already complete, so the
+ * {@link CompletedFutureReturnValueHandler} writes its result right away and requests are served without an
+ * asynchronous dispatch, as by blocking controllers.</p>
+ */
+@Component
+public class JdbcExecutor implements MeterBinder {
+    public static final Logger logger = LoggerFactory.getLogger(JdbcExecutor.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+    private final long queueTimeoutNanos;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public JdbcExecutor(final EntityManagerFactory entityManagerFactory,
+                        @Value("${ecommerce.async.enabled:false}") final boolean enabled,
+                        @Value("${ecommerce.async.jdbc.threads:10}") final int threads,
+                        @Value("${ecommerce.async.jdbc.queue-capacity:200}") final int queueCapacity,
+                        @Value("${ecommerce.async.jdbc.queue-timeout-ms:5000}") final long queueTimeoutMs) {
+        if (threads <= 0 || queueCapacity <= 0 || queueTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Threads, queue capacity and queue timeout must be positive");
+        }
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        this.executor = enabled ? newExecutor(threads, queueCapacity) : null;
+        if (enabled) {
+            logger.info("Asynchronous controllers enabled, " + threads + " JDBC threads with a queue of " + queueCapacity + ".");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the result of {@code work}, or a future failed with what it threw or with
+     *         {@link JdbcExecutorRejectedException} when it was refused
+     */
+    public <T> CompletableFuture<T> supply(final Supplier<T> work) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        if (!enabled) {
+            complete(result, work);
+            return result;
+        }
+        final long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                if (System.nanoTime() - queuedAt > queueTimeoutNanos) {
+                    expirations.increment();
+                    result.completeExceptionally(new JdbcExecutorRejectedException("Request waited too long for a database thread."));
+                    return;
+                }
+                complete(result, () -> withEntityManager(work));
+            });
+        } catch (RejectedExecutionException ex) {
+            rejections.increment();
+            result.completeExceptionally(new JdbcExecutorRejectedException("Too many requests are waiting for the database."));
+        }
+        return result;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        if (executor == null) {
+            return;
+        }
+        Gauge.builder("jdbc.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+             .description("Requests running their database work right now")
+             .register(registry);
+        Gauge.builder("jdbc.executor.queued", executor, e -> e.getQueue().size())
+             .description("Requests waiting for a database thread")
+             .register(registry);
+        FunctionCounter.builder("jdbc.executor.rejected", rejections, LongAdder::sum)
+                       .description("Requests refused because the database queue was full")
+                       .register(registry);
+        FunctionCounter.builder("jdbc.executor.expired", expirations, LongAdder::sum)
+                       .description("Requests dropped after waiting longer than the queue timeout")
+                       .register(registry);
+    }
+
+    private static <T> void complete(final CompletableFuture<T> result, final Supplier<T> work) {
+        try {
+            result.complete(work.get());
+        } catch (RuntimeException | Error ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private <T> T withEntityManager(final Supplier<T> work) {
+        if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+            return work.get();
+        }
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            return work.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(entityManager);
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(final int threads, final int queueCapacity) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                                          final Thread thread = new Thread(runnable, "jdbc-" + count.incrementAndGet());
+                                          thread.setDaemon(true);
+                                          return thread;
+                                      }, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
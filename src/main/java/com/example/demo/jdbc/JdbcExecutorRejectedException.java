@@ -0,0 +1,15 @@
+package com.example.demo.jdbc;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the database work of a request is turned away because too much is already waiting for the database.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class JdbcExecutorRejectedException extends RuntimeException {
+
+    public JdbcExecutorRejectedException(final String message) {
+        super(message);
+    }
+}
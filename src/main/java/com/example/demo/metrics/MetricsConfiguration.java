@@ -0,0 +1,58 @@
+package com.example.demo.metrics;
+
+import com.example.demo.cache.ExpiringCacheMetrics;
+import com.example.demo.cart.CartStore;
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.order.OrderWriter;
+import com.example.demo.security.JWTTokenVerifier;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters for the application's own caches and queues. Request timers, Hibernate statistics and the Hikari pool are
+ * bound by Spring Boot, password hashing by {@link com.example.demo.security.BoundedBCryptPasswordEncoder} itself.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder userIdentityCacheMetrics(final UserIdentityCache userIdentityCache) {
+        return new ExpiringCacheMetrics(userIdentityCache.getCache(), "users");
+    }
+
+    @Bean
+    public MeterBinder verifiedTokenCacheMetrics(final JWTTokenVerifier tokenVerifier) {
+        return new ExpiringCacheMetrics(tokenVerifier.getCache(), "verified-tokens");
+    }
+
+    @Bean
+    public MeterBinder orderWriterMetrics(final OrderWriter orderWriter) {
+        return registry -> {
+            Gauge.builder("orders.writer.queued", orderWriter, OrderWriter::getQueueSize)
+                 .description("Accepted orders waiting for the writer thread")
+                 .register(registry);
+            Gauge.builder("orders.writer.pending", orderWriter, OrderWriter::getPendingCount)
+                 .description("Accepted orders not yet written, including the batch in progress")
+                 .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder cartStoreMetrics(final CartStore cartStore) {
+        return registry -> {
+            Gauge.builder("carts.store.cached", cartStore, CartStore::getCachedCount)
+                 .description("Carts held in memory by the write-behind cart store")
+                 .register(registry);
+            Gauge.builder("carts.store.dirty", cartStore, CartStore::getDirtyCount)
+                 .description("Carts changed in memory and not yet written")
+                 .register(registry);
+            TimeGauge.builder("carts.store.flush.lag", cartStore, TimeUnit.MILLISECONDS, CartStore::getFlushLagMillis)
+                     .description("Age of the oldest cart change not yet written")
+                     .register(registry);
+        };
+    }
+}
@@ -1,52 +1,86 @@
 package com.example.demo.model.persistence;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.ManyToMany;
-import javax.persistence.OneToMany;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapKeyJoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
 @Table(name = "cart")
 public class Cart {
+
+	/**
+	 * Most units of one item a cart line can hold.
+	 */
+	public static final int MAX_LINE_QUANTITY = 10_000;
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_seq")
+	@SequenceGenerator(name = "cart_seq", sequenceName = "cart_seq", allocationSize = 50)
 	@JsonProperty
 	@Column
 	private Long id;
 	
-	@ManyToMany
-	@JsonProperty
-	@Column
-    private List<Item> items;
+	// one row per distinct item, so adding n units of an item never grows the table by n
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "cart_item", joinColumns = @JoinColumn(name = "cart_id"))
+	@MapKeyJoinColumn(name = "item_id")
+	@Column(name = "quantity", nullable = false)
+	@JsonIgnore
+	private Map<Item, Integer> quantities;
 	
 	@OneToOne(mappedBy = "cart")
 	@JsonProperty
     private User user;
 	
-	@Column
-	@JsonProperty
-	private BigDecimal total;
+	@Column(precision = 19, scale = 2)
+	@Convert(converter = MinorUnitsConverter.class)
+	private long total;
+
+	// bumped on every change, lines included, so a write based on an outdated copy of the cart fails
+	@Version
+	@Column(nullable = false)
+	@JsonIgnore
+	private long version;
 	
+	@JsonProperty
 	public BigDecimal getTotal() {
-		return total;
+		return Money.toBigDecimal(total);
 	}
 
+	@JsonProperty
 	public void setTotal(BigDecimal total) {
-		this.total = total;
+		this.total = Money.toMinorUnits(total);
+	}
+
+	@JsonIgnore
+	public long getTotalInMinorUnits() {
+		return total;
+	}
+
+	public long getVersion() {
+		return version;
 	}
 
 	public User getUser() {
@@ -65,33 +99,110 @@ public class Cart {
 		this.id = id;
 	}
 
+	/**
+	 * Expanded view of the cart with one entry per unit, kept for clients of the original list based contract. Left out
+	 * for carts of more than {@value LineItem#MAX_EXPANDED_ITEMS} units, which only have their lines.
+	 */
+	@JsonProperty
+	@JsonInclude(JsonInclude.Include.NON_NULL)
 	public List<Item> getItems() {
-		return items;
+		return LineItem.expand(getQuantities());
 	}
 
 	public void setItems(List<Item> items) {
-		this.items = items;
+		quantities = new LinkedHashMap<>();
+		total = 0;
+		if(items != null) {
+			items.forEach(this::addItem);
+		}
+	}
+
+	@JsonProperty
+	public List<LineItem> getLines() {
+		return LineItem.of(getQuantities());
+	}
+
+	public Map<Item, Integer> getQuantities() {
+		return quantities == null ? Collections.emptyMap() : quantities;
+	}
+
+	public void setQuantities(Map<Item, Integer> quantities) {
+		this.quantities = quantities;
+		recalculateTotal();
+	}
+
+	/**
+	 * Makes the lines equal to {@code lines} by changing the current map in place, so a loaded cart only writes the
+	 * rows that differ instead of deleting and inserting all of them.
+	 */
+	public void replaceQuantities(Map<Item, Integer> lines) {
+		if(quantities == null) {
+			quantities = new LinkedHashMap<>();
+		}
+		quantities.keySet().retainAll(lines.keySet());
+		quantities.putAll(lines);
+		recalculateTotal();
+	}
+
+	/**
+	 * Derives the total from the lines and the current item prices, for when either changed behind the cart's back.
+	 */
+	public void recalculateTotal() {
+		total = Money.totalOf(getQuantities());
+	}
+
+	public int getQuantity(Item item) {
+		return getQuantities().getOrDefault(item, 0);
 	}
 	
 	public void addItem(Item item) {
-		if(items == null) {
-			items = new ArrayList<>();
+		addItem(item, 1);
+	}
+
+	/**
+	 * Adds {@code quantity} units of the item, or nothing when it is not positive.
+	 *
+	 * @throws IllegalArgumentException when the line would hold more than {@value #MAX_LINE_QUANTITY} units, in which
+	 *         case the cart is left as it was
+	 */
+	public void addItem(Item item, int quantity) {
+		if(quantity <= 0) {
+			return;
 		}
-		items.add(item);
-		if(total == null) {
-			total = new BigDecimal(0);
+		checkLineQuantity(item, (long) getQuantity(item) + quantity);
+		final long updatedTotal = Math.addExact(total, Money.times(item.getPriceInMinorUnits(), quantity));
+		if(quantities == null) {
+			quantities = new LinkedHashMap<>();
+		}
+		quantities.merge(item, quantity, Math::addExact);
+		total = updatedTotal;
+	}
+
+	/**
+	 * @throws IllegalArgumentException when {@code quantity} is more than a line can hold
+	 */
+	public static void checkLineQuantity(Item item, long quantity) {
+		if(quantity > MAX_LINE_QUANTITY) {
+			throw new IllegalArgumentException("A cart line holds at most " + MAX_LINE_QUANTITY + " units, item <"
+					+ item.getId() + "> would have " + quantity);
 		}
-		total = total.add(item.getPrice());
 	}
 	
 	public void removeItem(Item item) {
-		if(items == null) {
-			items = new ArrayList<>();
+		removeItem(item, 1);
+	}
+
+	public void removeItem(Item item, int quantity) {
+		if(quantities == null) {
+			quantities = new LinkedHashMap<>();
 		}
-		items.remove(item);
-		if(total == null) {
-			total = new BigDecimal(0);
+		final int current = quantities.getOrDefault(item, 0);
+		final int removed = Math.min(current, Math.max(quantity, 0));
+		if(removed == current) {
+			quantities.remove(item);
+		} else {
+			quantities.put(item, current - removed);
 		}
-		total = total.subtract(item.getPrice());
+		total = Math.subtractExact(total, Money.times(item.getPriceInMinorUnits(), removed));
 	}
 }
@@ -2,24 +2,36 @@ package com.example.demo.model.persistence;
 
 import java.math.BigDecimal;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.example.demo.catalog.ItemChangeListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
 @Table(name = "item")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(ItemChangeListener.class)
 public class Item {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+	@SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
 	@JsonProperty
 	private Long id;
 	
@@ -27,9 +39,9 @@ public class Item {
 	@JsonProperty
 	private String name;
 	
-	@Column(nullable = false)
-	@JsonProperty
-	private BigDecimal price;
+	@Column(nullable = false, precision = 19, scale = 2)
+	@Convert(converter = MinorUnitsConverter.class)
+	private long price;
 	
 	@Column(nullable = false)
 	@JsonProperty
@@ -76,11 +88,22 @@ public class Item {
 		this.name = name;
 	}
 
+	@JsonProperty
 	public BigDecimal getPrice() {
-		return price;
+		return Money.toBigDecimal(price);
 	}
 
+	@JsonProperty
 	public void setPrice(BigDecimal price) {
+		this.price = Money.toMinorUnits(price);
+	}
+
+	@JsonIgnore
+	public long getPriceInMinorUnits() {
+		return price;
+	}
+
+	public void setPriceInMinorUnits(long price) {
 		this.price = price;
 	}
 
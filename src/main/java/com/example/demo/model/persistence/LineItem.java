@@ -0,0 +1,64 @@
+package com.example.demo.model.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Read-only view of one cart or order line: an item and how many units of it were added.
+ */
+public class LineItem {
+
+	/**
+	 * Most units a cart or order is expanded to one entry per unit for, beyond which the expanded view is left out.
+	 */
+	public static final int MAX_EXPANDED_ITEMS = 1000;
+
+	@JsonProperty
+	private final Item item;
+
+	@JsonProperty
+	private final int quantity;
+
+	public LineItem(Item item, int quantity) {
+		this.item = item;
+		this.quantity = quantity;
+	}
+
+	public Item getItem() {
+		return item;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	static List<LineItem> of(Map<Item, Integer> quantities) {
+		final List<LineItem> lines = new ArrayList<>(quantities.size());
+		quantities.forEach((item, quantity) -> lines.add(new LineItem(item, quantity)));
+		return lines;
+	}
+
+	/**
+	 * @return one entry per unit, or {@code null} when there are more than {@value #MAX_EXPANDED_ITEMS} units
+	 */
+	static List<Item> expand(Map<Item, Integer> quantities) {
+		if(quantities.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final long units = quantities.values().stream().mapToLong(Integer::longValue).sum();
+		if(units > MAX_EXPANDED_ITEMS) {
+			return null;
+		}
+		final List<Item> items = new ArrayList<>((int) units);
+		quantities.forEach((item, quantity) -> {
+			for(int i = 0; i < quantity; i++) {
+				items.add(item);
+			}
+		});
+		return items;
+	}
+}
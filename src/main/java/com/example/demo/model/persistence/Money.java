@@ -0,0 +1,49 @@
+package com.example.demo.model.persistence;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+
+/**
+ * Amounts of money as a {@code long} count of minor units (cents) of the shop's single {@link #CURRENCY}.
+ *
+ * <p>Cart and order arithmetic stays on primitives, so adding a unit to a cart allocates nothing. {@link BigDecimal}
+ * is only created where an amount leaves or enters the application, in JSON and in the database. Conversions and
+ * arithmetic are exact: an amount finer than the currency's minor unit, or a total that would overflow, throws an
+ * {@link ArithmeticException} rather than being rounded or wrapped.</p>
+ */
+public final class Money {
+
+	public static final Currency CURRENCY = Currency.getInstance("USD");
+
+	public static final int SCALE = CURRENCY.getDefaultFractionDigits();
+
+	private Money() {
+	}
+
+	/**
+	 * @throws ArithmeticException when the amount has a fraction of a minor unit or does not fit a {@code long}
+	 */
+	public static long toMinorUnits(BigDecimal amount) {
+		return amount.movePointRight(SCALE).longValueExact();
+	}
+
+	public static BigDecimal toBigDecimal(long minorUnits) {
+		return BigDecimal.valueOf(minorUnits, SCALE);
+	}
+
+	public static long times(long minorUnits, int quantity) {
+		return Math.multiplyExact(minorUnits, quantity);
+	}
+
+	/**
+	 * @return the sum of price times quantity over every line
+	 */
+	public static long totalOf(Map<Item, Integer> quantities) {
+		long total = 0;
+		for (Map.Entry<Item, Integer> line : quantities.entrySet()) {
+			total = Math.addExact(total, times(line.getKey().getPriceInMinorUnits(), line.getValue()));
+		}
+		return total;
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.demo.model.persistence;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Embeddable;
+
+/**
+ * How many units of an item an order line holds and the unit price they were ordered at, which later catalog price
+ * changes leave as it was.
+ */
+@Embeddable
+public class PricedQuantity {
+
+	@Column(name = "quantity", nullable = false)
+	private int quantity;
+
+	@Column(name = "price", nullable = false, precision = 19, scale = 2)
+	@Convert(converter = MinorUnitsConverter.class)
+	private long price;
+
+	protected PricedQuantity() {
+	}
+
+	public PricedQuantity(int quantity, long price) {
+		this.quantity = quantity;
+		this.price = price;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public BigDecimal getPrice() {
+		return Money.toBigDecimal(price);
+	}
+
+	public long getPriceInMinorUnits() {
+		return price;
+	}
+
+	/**
+	 * @return the price of the whole line in minor units
+	 */
+	public long getAmountInMinorUnits() {
+		return Money.times(price, quantity);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if(this == other) {
+			return true;
+		}
+		if(!(other instanceof PricedQuantity)) {
+			return false;
+		}
+		PricedQuantity that = (PricedQuantity) other;
+		return quantity == that.quantity && price == that.price;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * quantity + Long.hashCode(price);
+	}
+}
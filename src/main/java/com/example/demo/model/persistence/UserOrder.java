@@ -1,46 +1,73 @@
 package com.example.demo.model.persistence;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.UUID;
 
-import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
-import javax.persistence.JoinTable;
-import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyJoinColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import com.example.demo.order.OrderChangeListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
 @Table(name = "user_order")
+@EntityListeners(OrderChangeListener.class)
 public class UserOrder {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_order_seq")
+	@SequenceGenerator(name = "user_order_seq", sequenceName = "user_order_seq", allocationSize = 50)
 	@JsonProperty
 	@Column
 	private Long id;
-	
-	@ManyToMany(cascade = CascadeType.ALL)
+
+	/**
+	 * Client facing identifier assigned when the order is created, before it has a database id.
+	 */
 	@JsonProperty
-	@Column
-    private List<Item> items;
+	@Column(nullable = false, unique = true, updatable = false, length = 36)
+	private String reference;
+	
+	// the price of every line is kept with it, so the order keeps adding up to its total when item prices change
+	@ElementCollection(fetch = FetchType.EAGER)
+	@CollectionTable(name = "user_order_item", joinColumns = @JoinColumn(name = "user_order_id"))
+	@MapKeyJoinColumn(name = "item_id")
+	@JsonIgnore
+	private Map<Item, PricedQuantity> pricedQuantities;
 	
 	@ManyToOne
 	@JoinColumn(name="user_id", nullable = false, referencedColumnName = "id")
 	@JsonProperty
     private User user;
 	
-	@JsonProperty
-	@Column
-	private BigDecimal total;
+	@Column(precision = 19, scale = 2)
+	@Convert(converter = MinorUnitsConverter.class)
+	private long total;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private Instant createdAt;
 
 	public Long getId() {
 		return id;
@@ -50,12 +77,58 @@ public class UserOrder {
 		this.id = id;
 	}
 
+	public String getReference() {
+		return reference;
+	}
+
+	public void setReference(String reference) {
+		this.reference = reference;
+	}
+
+	/**
+	 * Expanded view of the order with one entry per unit, kept for clients of the original list based contract. Left
+	 * out for orders of more than {@value LineItem#MAX_EXPANDED_ITEMS} units, which only have their lines.
+	 */
+	@JsonProperty
+	@JsonInclude(JsonInclude.Include.NON_NULL)
 	public List<Item> getItems() {
-		return items;
+		return LineItem.expand(getQuantities());
 	}
 
+	/**
+	 * Replaces the lines with one unit per entry, priced at the items' current prices.
+	 */
 	public void setItems(List<Item> items) {
-		this.items = items;
+		final Map<Item, Integer> quantities = new LinkedHashMap<>();
+		if(items != null) {
+			items.forEach(item -> quantities.merge(item, 1, Math::addExact));
+		}
+		pricedQuantities = priced(quantities);
+	}
+
+	@JsonProperty
+	public List<LineItem> getLines() {
+		return LineItem.of(getQuantities());
+	}
+
+	/**
+	 * @return the units of every line, without their prices
+	 */
+	public Map<Item, Integer> getQuantities() {
+		final Map<Item, Integer> quantities = new LinkedHashMap<>();
+		getPricedQuantities().forEach((item, line) -> quantities.put(item, line.getQuantity()));
+		return quantities;
+	}
+
+	/**
+	 * @return the units of every line with the unit price they were ordered at
+	 */
+	public Map<Item, PricedQuantity> getPricedQuantities() {
+		return pricedQuantities == null ? Collections.emptyMap() : pricedQuantities;
+	}
+
+	public void setPricedQuantities(Map<Item, PricedQuantity> pricedQuantities) {
+		this.pricedQuantities = pricedQuantities;
 	}
 
 	public User getUser() {
@@ -66,20 +139,64 @@ public class UserOrder {
 		this.user = user;
 	}
 	
+	@JsonProperty
 	public BigDecimal getTotal() {
-		return total;
+		return Money.toBigDecimal(total);
 	}
 
+	@JsonProperty
 	public void setTotal(BigDecimal total) {
-		this.total = total;
+		this.total = Money.toMinorUnits(total);
+	}
+
+	@JsonIgnore
+	public long getTotalInMinorUnits() {
+		return total;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@PrePersist
+	void onPersist() {
+		if(createdAt == null) {
+			createdAt = now();
+		}
+	}
+
+	/**
+	 * The current time to the millisecond, which the column keeps, so the order holds the time it is read back with.
+	 */
+	private static Instant now() {
+		return Instant.now().truncatedTo(ChronoUnit.MILLIS);
 	}
 
 	public static UserOrder createFromCart(Cart cart) {
 		UserOrder order = new UserOrder();
-		order.setItems(cart.getItems().stream().collect(Collectors.toList()));
-		order.setTotal(cart.getTotal());
+		order.setReference(UUID.randomUUID().toString());
+		// placed now, even when write-behind only persists it later
+		order.createdAt = now();
+		order.setPricedQuantities(priced(cart.getQuantities()));
+		// priced from the lines rather than copied, so the order cannot inherit a stale cart total
+		order.total = order.getPricedQuantities().values().stream()
+				.mapToLong(PricedQuantity::getAmountInMinorUnits)
+				.reduce(0, Math::addExact);
 		order.setUser(cart.getUser());
 		return order;
 	}
+
+	/**
+	 * The lines with the current price of their items, which from then on stays with the order.
+	 */
+	private static Map<Item, PricedQuantity> priced(Map<Item, Integer> quantities) {
+		final Map<Item, PricedQuantity> lines = new LinkedHashMap<>();
+		quantities.forEach((item, quantity) -> lines.put(item, new PricedQuantity(quantity, item.getPriceInMinorUnits())));
+		return lines;
+	}
 	
 }
@@ -1,10 +1,19 @@
 package com.example.demo.model.persistence.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
 
+@Transactional(readOnly = true)
 public interface CartRepository extends JpaRepository<Cart, Long> {
-	Cart findByUser(User user);
+	/**
+	 * Reached from the user, whose row holds the key of the cart. The derived query went the other way, through an outer
+	 * join from every cart, and scanned the whole table.
+	 */
+	@Query("select c from User u join u.cart c where u = :user")
+	Cart findByUser(@Param("user") User user);
 }
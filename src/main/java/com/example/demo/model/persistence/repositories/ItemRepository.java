@@ -1,12 +1,73 @@
 package com.example.demo.model.persistence.repositories;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.persistence.Item;
+import com.example.demo.model.responses.ItemResponse;
 
+@Transactional(readOnly = true)
 public interface ItemRepository extends JpaRepository<Item, Long> {
+
+	int STREAM_FETCH_SIZE = 500;
+
+	String SELECT_RESPONSE = "select new com.example.demo.model.responses.ItemResponse(i.id, i.name, i.price, i.description) from Item i";
+
+	// cacheable hints only take effect when the catalog cache is enabled, see CatalogCacheConfiguration
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
 	public List<Item> findByName(String name);
 
+	@Override
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+	public List<Item> findAll();
+
+	@Query(SELECT_RESPONSE + " order by i.id")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+	public List<ItemResponse> findAllResponses();
+
+	@Query(SELECT_RESPONSE + " where i.id = :id")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+	public Optional<ItemResponse> findResponseById(@Param("id") Long id);
+
+	@Query(SELECT_RESPONSE + " where i.name = :name")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+	public List<ItemResponse> findResponsesByName(@Param("name") String name);
+
+	/**
+	 * Keyset page: the next {@code pageable.getPageSize()} items with an id strictly greater than {@code afterId}.
+	 * Only the page size of {@code pageable} is used, the offset must stay 0.
+	 */
+	@Query(SELECT_RESPONSE + " where i.id > :afterId order by i.id")
+	public List<ItemResponse> findResponsesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+	/**
+	 * Forward-only stream over the whole catalog. Must be consumed, and closed, inside a transaction. Entities are
+	 * loaded read-only and bypass the second-level cache so a full scan does not flush it.
+	 */
+	@Query("select i from Item i order by i.id")
+	@QueryHints({
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE")
+	})
+	public Stream<Item> streamAll();
+
+	/**
+	 * Forward-only stream over the whole catalog as responses, which the persistence context never holds. Must be
+	 * consumed, and closed, inside a transaction.
+	 */
+	@Query(SELECT_RESPONSE + " order by i.id")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+	public Stream<ItemResponse> streamAllResponses();
+
 }
@@ -1,12 +1,117 @@
 package com.example.demo.model.persistence.repositories;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
 
+@Transactional(readOnly = true)
 public interface OrderRepository extends JpaRepository<UserOrder, Long> {
+	int EXPORT_FETCH_SIZE = 1000;
+
 	List<UserOrder> findByUser(User user);
+
+	/**
+	 * One page of the user's history, newest first, without the lines. Paging over the order rows alone keeps the
+	 * limit in the database, which a join on the lines would not allow.
+	 */
+	@Query("select o.id as id, o.reference as reference, o.total as total from UserOrder o"
+			+ " where o.user.id = :userId and o.id < :before order by o.id desc")
+	List<OrderSummary> findSummariesByUserIdBefore(@Param("userId") long userId, @Param("before") long before, Pageable pageable);
+
+	/**
+	 * The lines of the given orders with the columns of their items and the price they were ordered at, in a single
+	 * statement.
+	 */
+	@Query("select o.id as orderId, key(q).id as itemId, key(q).name as name, q.price as price,"
+			+ " key(q).description as description, q.quantity as quantity from UserOrder o join o.pricedQuantities q"
+			+ " where o.id in :ids")
+	List<OrderLine> findLinesByOrderIdIn(@Param("ids") List<Long> ids);
+
+	@Query("select o.id from UserOrder o where o.reference = :reference")
+	Long findIdByReference(@Param("reference") String reference);
+
+	/**
+	 * Forward-only stream over the orders with ids in {@code [fromId, toId)} placed in {@code [from, to)}, one row per
+	 * line in order id order, with the user, the item of the line and the price it was ordered at. An order without lines comes as a single row
+	 * with no item. Rows are projections the persistence context never holds. Must be consumed, and closed, inside a
+	 * transaction.
+	 */
+	@Query(nativeQuery = true, value = "select o.id as \"orderId\", o.reference as \"reference\","
+			+ " o.created_at as \"createdAt\", u.id as \"userId\", u.username as \"username\", o.total as \"total\","
+			+ " i.id as \"itemId\", i.name as \"itemName\", l.price as \"itemPrice\", l.quantity as \"quantity\""
+			+ " from user_order o join user u on u.id = o.user_id"
+			+ " left join user_order_item l on l.user_order_id = o.id left join item i on i.id = l.item_id"
+			+ " where o.id >= :fromId and o.id < :toId and o.created_at >= :from and o.created_at < :to"
+			+ " order by o.id, i.id")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+	Stream<OrderExportRow> streamExportRows(@Param("fromId") long fromId, @Param("toId") long toId,
+			@Param("from") Instant from, @Param("to") Instant to);
+
+	/**
+	 * Columns of an order needed to answer with its history entry.
+	 */
+	interface OrderSummary {
+		Long getId();
+
+		String getReference();
+
+		long getTotal();
+	}
+
+	/**
+	 * One line of an order with the columns of its item, priced as it was ordered.
+	 */
+	interface OrderLine {
+		Long getOrderId();
+
+		Long getItemId();
+
+		String getName();
+
+		long getPrice();
+
+		String getDescription();
+
+		int getQuantity();
+	}
+
+	/**
+	 * One line of an exported order, with the order repeated on every line. The item columns are null for an order
+	 * without lines.
+	 */
+	interface OrderExportRow {
+		Long getOrderId();
+
+		String getReference();
+
+		Date getCreatedAt();
+
+		Long getUserId();
+
+		String getUsername();
+
+		BigDecimal getTotal();
+
+		Long getItemId();
+
+		String getItemName();
+
+		BigDecimal getItemPrice();
+
+		Integer getQuantity();
+	}
 }
@@ -1,9 +1,11 @@
 package com.example.demo.model.persistence.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.persistence.User;
 
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 	User findByUsername(String username);
 }
@@ -0,0 +1,41 @@
+package com.example.demo.model.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One operation of a {@link BulkModifyCartRequest}: {@code delta} units of the item are added when positive and
+ * removed when negative.
+ */
+public class CartLineChange {
+
+	@JsonProperty
+	private long itemId;
+
+	@JsonProperty
+	private int delta;
+
+	public CartLineChange() {
+	}
+
+	public CartLineChange(long itemId, int delta) {
+		this.itemId = itemId;
+		this.delta = delta;
+	}
+
+	public long getItemId() {
+		return itemId;
+	}
+
+	public void setItemId(long itemId) {
+		this.itemId = itemId;
+	}
+
+	public int getDelta() {
+		return delta;
+	}
+
+	public void setDelta(int delta) {
+		this.delta = delta;
+	}
+
+}
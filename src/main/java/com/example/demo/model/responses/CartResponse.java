@@ -0,0 +1,75 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.LineItem;
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A cart as the API returns it, with the same fields the entity used to be serialized with.
+ */
+public class CartResponse {
+
+	@JsonProperty
+	private final Long id;
+
+	@JsonProperty
+	private final UserResponse user;
+
+	@JsonProperty
+	private final List<LineItemResponse> lines;
+
+	private final long total;
+
+	public CartResponse(Long id, UserResponse user, List<LineItemResponse> lines, long total) {
+		this.id = id;
+		this.user = user;
+		this.lines = lines;
+		this.total = total;
+	}
+
+	/**
+	 * Copies a cart already in memory, such as the one a change was just applied to.
+	 */
+	public static CartResponse of(Cart cart) {
+		return new CartResponse(cart.getId(), UserResponse.of(cart.getUser()), LineItemResponse.of(cart.getQuantities()),
+				cart.getTotalInMinorUnits());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public UserResponse getUser() {
+		return user;
+	}
+
+	public List<LineItemResponse> getLines() {
+		return lines;
+	}
+
+	/**
+	 * Expanded view of the cart with one entry per unit, kept for clients of the original list based contract. Left out
+	 * for carts of more than {@value LineItem#MAX_EXPANDED_ITEMS} units, which only have their lines.
+	 */
+	@JsonProperty
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public List<ItemResponse> getItems() {
+		return LineItemResponse.expand(lines);
+	}
+
+	@JsonProperty
+	public BigDecimal getTotal() {
+		return Money.toBigDecimal(total);
+	}
+
+	@JsonIgnore
+	public long getTotalInMinorUnits() {
+		return total;
+	}
+}
@@ -0,0 +1,46 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Orders placed on a day, in UTC, and what they came to.
+ */
+public class DaySalesResponse {
+
+	@JsonProperty
+	private final LocalDate date;
+
+	@JsonProperty
+	private final long orders;
+
+	private final long revenue;
+
+	public DaySalesResponse(LocalDate date, long orders, long revenue) {
+		this.date = date;
+		this.orders = orders;
+		this.revenue = revenue;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public long getOrders() {
+		return orders;
+	}
+
+	@JsonProperty
+	public BigDecimal getRevenue() {
+		return Money.toBigDecimal(revenue);
+	}
+
+	@JsonIgnore
+	public long getRevenueInMinorUnits() {
+		return revenue;
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * An item as the API returns it. Filled by constructor projections in
+ * {@link com.example.demo.model.persistence.repositories.ItemRepository}, so reading it selects these columns only
+ * and never puts an entity in the persistence context.
+ */
+public class ItemResponse {
+
+	@JsonProperty
+	private final Long id;
+
+	@JsonProperty
+	private final String name;
+
+	private final long price;
+
+	@JsonProperty
+	private final String description;
+
+	public ItemResponse(Long id, String name, Long price, String description) {
+		this.id = id;
+		this.name = name;
+		this.price = price == null ? 0 : price;
+		this.description = description;
+	}
+
+	public static ItemResponse of(Item item) {
+		return new ItemResponse(item.getId(), item.getName(), item.getPriceInMinorUnits(), item.getDescription());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@JsonProperty
+	public BigDecimal getPrice() {
+		return Money.toBigDecimal(price);
+	}
+
+	@JsonIgnore
+	public long getPriceInMinorUnits() {
+		return price;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+}
@@ -0,0 +1,53 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Units of an item sold so far and what they came to, at the item's price when each order was counted.
+ */
+public class ItemSalesResponse {
+
+	@JsonProperty
+	private final long itemId;
+
+	@JsonProperty
+	private final String name;
+
+	@JsonProperty
+	private final long quantity;
+
+	private final long revenue;
+
+	public ItemSalesResponse(long itemId, String name, long quantity, long revenue) {
+		this.itemId = itemId;
+		this.name = name;
+		this.quantity = quantity;
+		this.revenue = revenue;
+	}
+
+	public long getItemId() {
+		return itemId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getQuantity() {
+		return quantity;
+	}
+
+	@JsonProperty
+	public BigDecimal getRevenue() {
+		return Money.toBigDecimal(revenue);
+	}
+
+	@JsonIgnore
+	public long getRevenueInMinorUnits() {
+		return revenue;
+	}
+}
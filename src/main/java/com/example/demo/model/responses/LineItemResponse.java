@@ -0,0 +1,74 @@
+package com.example.demo.model.responses;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.LineItem;
+import com.example.demo.model.persistence.PricedQuantity;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One cart or order line as the API returns it: an item and how many units of it were added.
+ */
+public class LineItemResponse {
+
+	@JsonProperty
+	private final ItemResponse item;
+
+	@JsonProperty
+	private final int quantity;
+
+	public LineItemResponse(ItemResponse item, int quantity) {
+		this.item = item;
+		this.quantity = quantity;
+	}
+
+	public ItemResponse getItem() {
+		return item;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	static List<LineItemResponse> of(Map<Item, Integer> quantities) {
+		final List<LineItemResponse> lines = new ArrayList<>(quantities.size());
+		quantities.forEach((item, quantity) -> lines.add(new LineItemResponse(ItemResponse.of(item), quantity)));
+		return lines;
+	}
+
+	/**
+	 * Order lines, each with the unit price it was ordered at in place of the item's current one.
+	 */
+	static List<LineItemResponse> ofPriced(Map<Item, PricedQuantity> lines) {
+		final List<LineItemResponse> responses = new ArrayList<>(lines.size());
+		lines.forEach((item, line) -> responses.add(new LineItemResponse(
+				new ItemResponse(item.getId(), item.getName(), line.getPriceInMinorUnits(), item.getDescription()),
+				line.getQuantity())));
+		return responses;
+	}
+
+	/**
+	 * One entry per unit, for the list based contract of the original entities, or {@code null} when there are more
+	 * than {@value LineItem#MAX_EXPANDED_ITEMS} units.
+	 */
+	static List<ItemResponse> expand(List<LineItemResponse> lines) {
+		if(lines.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final long units = lines.stream().mapToLong(line -> line.quantity).sum();
+		if(units > LineItem.MAX_EXPANDED_ITEMS) {
+			return null;
+		}
+		final List<ItemResponse> items = new ArrayList<>((int) units);
+		lines.forEach(line -> {
+			for(int i = 0; i < line.quantity; i++) {
+				items.add(line.item);
+			}
+		});
+		return items;
+	}
+}
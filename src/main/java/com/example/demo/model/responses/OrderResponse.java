@@ -0,0 +1,83 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.example.demo.model.persistence.LineItem;
+import com.example.demo.model.persistence.Money;
+import com.example.demo.model.persistence.UserOrder;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * An order as the API returns it, with the same fields the entity used to be serialized with.
+ */
+public class OrderResponse {
+
+	@JsonProperty
+	private final Long id;
+
+	@JsonProperty
+	private final String reference;
+
+	@JsonProperty
+	private final UserResponse user;
+
+	@JsonProperty
+	private final List<LineItemResponse> lines;
+
+	private final long total;
+
+	public OrderResponse(Long id, String reference, UserResponse user, List<LineItemResponse> lines, long total) {
+		this.id = id;
+		this.reference = reference;
+		this.user = user;
+		this.lines = lines;
+		this.total = total;
+	}
+
+	/**
+	 * Copies an order already in memory, such as one just placed, with the prices its lines were ordered at.
+	 */
+	public static OrderResponse of(UserOrder order) {
+		return new OrderResponse(order.getId(), order.getReference(), UserResponse.of(order.getUser()),
+				LineItemResponse.ofPriced(order.getPricedQuantities()), order.getTotalInMinorUnits());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getReference() {
+		return reference;
+	}
+
+	public UserResponse getUser() {
+		return user;
+	}
+
+	public List<LineItemResponse> getLines() {
+		return lines;
+	}
+
+	/**
+	 * Expanded view of the order with one entry per unit, kept for clients of the original list based contract. Left out
+	 * for orders of more than {@value LineItem#MAX_EXPANDED_ITEMS} units, which only have their lines.
+	 */
+	@JsonProperty
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public List<ItemResponse> getItems() {
+		return LineItemResponse.expand(lines);
+	}
+
+	@JsonProperty
+	public BigDecimal getTotal() {
+		return Money.toBigDecimal(total);
+	}
+
+	@JsonIgnore
+	public long getTotalInMinorUnits() {
+		return total;
+	}
+}
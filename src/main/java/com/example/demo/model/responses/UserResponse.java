@@ -0,0 +1,33 @@
+package com.example.demo.model.responses;
+
+import com.example.demo.model.persistence.User;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The owner of a cart or order as the API returns it, without anything the user entity would drag along.
+ */
+public class UserResponse {
+
+	@JsonProperty
+	private final long id;
+
+	@JsonProperty
+	private final String username;
+
+	public UserResponse(long id, String username) {
+		this.id = id;
+		this.username = username;
+	}
+
+	public static UserResponse of(User user) {
+		return user == null ? null : new UserResponse(user.getId(), user.getUsername());
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.demo.model.responses;
+
+import java.math.BigDecimal;
+
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Number of orders a user placed so far and what they spent on them.
+ */
+public class UserSalesResponse {
+
+	@JsonProperty
+	private final UserResponse user;
+
+	@JsonProperty
+	private final long orders;
+
+	private final long spend;
+
+	public UserSalesResponse(UserResponse user, long orders, long spend) {
+		this.user = user;
+		this.orders = orders;
+		this.spend = spend;
+	}
+
+	public UserResponse getUser() {
+		return user;
+	}
+
+	public long getOrders() {
+		return orders;
+	}
+
+	@JsonProperty
+	public BigDecimal getSpend() {
+		return Money.toBigDecimal(spend);
+	}
+
+	@JsonIgnore
+	public long getSpendInMinorUnits() {
+		return spend;
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.UserOrder;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener turning order lifecycle callbacks into {@link OrderChangedEvent}s.
+ */
+public class OrderChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCreate(final UserOrder order) {
+        eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Type.CREATED));
+    }
+
+    @PostUpdate
+    public void onUpdate(final UserOrder order) {
+        eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Type.UPDATED));
+    }
+
+    @PostRemove
+    public void onDelete(final UserOrder order) {
+        eventPublisher.publishEvent(new OrderChangedEvent(order, OrderChangedEvent.Type.DELETED));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.UserOrder;
+
+/**
+ * Published whenever an order is inserted, updated or deleted. Listeners that keep derived order state should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)} so they only observe committed changes.
+ */
+public class OrderChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final UserOrder order;
+    private final Type type;
+
+    public OrderChangedEvent(final UserOrder order, final Type type) {
+        this.order = order;
+        this.type = type;
+    }
+
+    public UserOrder getOrder() {
+        return order;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
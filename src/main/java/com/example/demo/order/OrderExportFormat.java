@@ -0,0 +1,35 @@
+package com.example.demo.order;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import org.springframework.http.MediaType;
+
+/**
+ * File formats {@link OrderExporter} writes: one JSON object per order on a line of its own, or CSV with one row per order line.
+ */
+public enum OrderExportFormat {
+
+    NDJSON("application/x-ndjson", ".ndjson"),
+    CSV("text/csv", ".csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    OrderExportFormat(final String mediaType, final String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static Optional<OrderExportFormat> of(final String name) {
+        return Arrays.stream(values()).filter(format -> format.name().equals(name.toUpperCase(Locale.ROOT))).findFirst();
+    }
+}
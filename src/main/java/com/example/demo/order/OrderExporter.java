@@ -0,0 +1,181 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository.OrderExportRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes every order with its lines for analytics, straight from a database cursor.
+ *
+ * <p>Orders are read as {@link OrderExportRow} projections, one per line, which the persistence context never holds,
+ * so memory use does not grow with the number of orders exported and there is nothing to clear on the way. The read
+ * runs in a read-only transaction, on the read replica when there is one.</p>
+ */
+@Component
+public class OrderExporter {
+
+    /**
+     * Bounds of the creation time when the export is not limited to a period.
+     */
+    public static final Instant FIRST_CREATED_AT = Instant.EPOCH;
+    public static final Instant LAST_CREATED_AT = Instant.parse("9999-01-01T00:00:00Z");
+
+    static final String CSV_HEADER = "order_id,reference,created_at,user_id,username,total,item_id,item_name,item_price,quantity";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes the orders with ids in {@code [fromId, toId)} placed in {@code [from, to)}, in id order.
+     *
+     * @return the number of orders written
+     */
+    public long export(final OutputStream out, final OrderExportFormat format, final long fromId, final long toId,
+                       final Instant from, final Instant to) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(fromId, toId, from, to)) {
+                return format == OrderExportFormat.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * One object per order, with its lines in an array.
+     */
+    private long writeNdjson(final Iterator<OrderExportRow> rows, final OutputStream out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Long order = null;
+            while (rows.hasNext()) {
+                final OrderExportRow row = rows.next();
+                if (!row.getOrderId().equals(order)) {
+                    if (order != null) {
+                        endOrder(generator);
+                        if (++written % OrderRepository.EXPORT_FETCH_SIZE == 0) {
+                            generator.flush();
+                        }
+                    }
+                    order = row.getOrderId();
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", order);
+                    generator.writeStringField("reference", row.getReference());
+                    generator.writeStringField("createdAt", row.getCreatedAt().toInstant().toString());
+                    generator.writeNumberField("userId", row.getUserId());
+                    generator.writeStringField("username", row.getUsername());
+                    generator.writeNumberField("total", row.getTotal());
+                    generator.writeArrayFieldStart("lines");
+                }
+                if (row.getItemId() != null) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("itemId", row.getItemId());
+                    generator.writeStringField("name", row.getItemName());
+                    generator.writeNumberField("price", row.getItemPrice());
+                    generator.writeNumberField("quantity", row.getQuantity());
+                    generator.writeEndObject();
+                }
+            }
+            if (order != null) {
+                endOrder(generator);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private static void endOrder(final JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * One row per line with the columns of {@link #CSV_HEADER}; an order without lines has a row with no item.
+     */
+    private long writeCsv(final Iterator<OrderExportRow> rows, final OutputStream out) throws IOException {
+        long written = 0;
+        long lines = 0;
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        Long order = null;
+        while (rows.hasNext()) {
+            final OrderExportRow row = rows.next();
+            if (!row.getOrderId().equals(order)) {
+                order = row.getOrderId();
+                written++;
+            }
+            writer.write(order.toString());
+            writer.write(',');
+            writer.write(quote(row.getReference()));
+            writer.write(',');
+            writer.write(row.getCreatedAt().toInstant().toString());
+            writer.write(',');
+            writer.write(row.getUserId().toString());
+            writer.write(',');
+            writer.write(quote(row.getUsername()));
+            writer.write(',');
+            writer.write(plain(row.getTotal()));
+            writer.write(',');
+            if (row.getItemId() != null) {
+                writer.write(row.getItemId().toString());
+                writer.write(',');
+                writer.write(quote(row.getItemName()));
+                writer.write(',');
+                writer.write(plain(row.getItemPrice()));
+                writer.write(',');
+                writer.write(row.getQuantity().toString());
+            } else {
+                writer.write(",,,");
+            }
+            writer.write("\r\n");
+            if (++lines % OrderRepository.EXPORT_FETCH_SIZE == 0) {
+                writer.flush();
+            }
+        }
+        // flushed but not closed, the caller owns the stream
+        writer.flush();
+        return written;
+    }
+
+    private static String plain(final BigDecimal amount) {
+        return amount == null ? "" : amount.toPlainString();
+    }
+
+    /**
+     * @return the value as an RFC 4180 field, in double quotes when it holds a comma, a quote or a line break
+     */
+    static String quote(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
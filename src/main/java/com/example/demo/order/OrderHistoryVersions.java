@@ -0,0 +1,51 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.User;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Per user counters that move every time a change to one of the user's orders commits, the basis of the strong ETags
+ * of order history responses.
+ *
+ * <p>Users share a fixed number of counters by id, so memory stays the same however many users there are; a user whose
+ * counter also moves for someone else's order only gets a full response where a 304 would have done. As with
+ * {@link com.example.demo.catalog.CatalogVersion}, tags carry an epoch drawn at startup and must be read before the
+ * orders are.</p>
+ */
+@Component
+public class OrderHistoryVersions {
+
+    private static final int STRIPE_BITS = 12;
+    static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    public long get(final long userId) {
+        return versions.get(stripe(userId));
+    }
+
+    public String etag(final long userId) {
+        return "\"o" + epoch + "-" + userId + "-" + get(userId) + "\"";
+    }
+
+    public void increment(final long userId) {
+        versions.incrementAndGet(stripe(userId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(final OrderChangedEvent event) {
+        final User user = event.getOrder().getUser();
+        if (user != null) {
+            increment(user.getId());
+        }
+    }
+
+    private static int stripe(final long userId) {
+        // top bits of the scrambled id, so consecutive ids land on different counters
+        return (int) (userId * 0x9E3779B97F4A7C15L >>> (Long.SIZE - STRIPE_BITS));
+    }
+}
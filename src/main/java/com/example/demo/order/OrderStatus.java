@@ -0,0 +1,40 @@
+package com.example.demo.order;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Where an order accepted by {@link OrderWriter} is on its way to the database.
+ */
+public class OrderStatus {
+
+    public enum State {
+        QUEUED, PERSISTED, FAILED
+    }
+
+    @JsonProperty
+    private final String reference;
+
+    @JsonProperty
+    private final State state;
+
+    @JsonProperty
+    private final Long orderId;
+
+    public OrderStatus(final String reference, final State state, final Long orderId) {
+        this.reference = reference;
+        this.state = state;
+        this.orderId = orderId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.demo.order;
+
+import com.example.demo.cache.ExpiringCache;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.replica.ReadRouting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind pipeline for submitted orders, enabled with {@code ecommerce.orders.write-behind.enabled}.
+ *
+ * <p>Accepted orders wait in a bounded queue and a single background thread persists them in batches, one transaction
+ * per batch. When the queue is full new orders are refused rather than buffered without limit. A batch that fails is
+ * retried one order at a time so a single bad order does not take the others down with it.</p>
+ *
+ * <p>On shutdown no further orders are accepted and everything already accepted is written before the context
+ * closes.</p>
+ */
+@Component
+public class OrderWriter {
+    public static final Logger logger = LoggerFactory.getLogger(OrderWriter.class);
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int FAILED_ORDERS_KEPT = 10_000;
+    private static final long FAILED_ORDERS_TTL_MS = TimeUnit.HOURS.toMillis(1);
+
+    @Value("${ecommerce.orders.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ecommerce.orders.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${ecommerce.orders.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    private final Map<String, UserOrder> pending = new ConcurrentHashMap<>();
+    private final ExpiringCache<String, Boolean> failed = new ExpiringCache<>(FAILED_ORDERS_KEPT);
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private BlockingQueue<UserOrder> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean accepting;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        accepting = true;
+        writer = new Thread(this::run, "order-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Order write-behind started with a queue of " + queueCapacity + " and batches of " + batchSize + ".");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        writer.join(SHUTDOWN_TIMEOUT_MS);
+        if (writer.isAlive()) {
+            logger.error(queue.size() + " accepted orders were not written before shutdown.");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return {@code false} when the order was refused because the queue is full or the writer is stopping
+     */
+    public boolean accept(final UserOrder order) {
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                return false;
+            }
+            pending.put(order.getReference(), order);
+            if (!queue.offer(order)) {
+                pending.remove(order.getReference());
+                return false;
+            }
+            return true;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the status of the order with the given reference, or {@code null} when no such order is known
+     */
+    public OrderStatus status(final String reference) {
+        if (pending.containsKey(reference)) {
+            return new OrderStatus(reference, OrderStatus.State.QUEUED, null);
+        }
+        // orders leave the pending map only once committed, so a miss above is either in the database or failed; the
+        // replica may not have it yet
+        final Long id = readRouting.primary(() -> orderRepository.findIdByReference(reference));
+        if (id != null) {
+            return new OrderStatus(reference, OrderStatus.State.PERSISTED, id);
+        }
+        if (failed.get(reference) != null) {
+            return new OrderStatus(reference, OrderStatus.State.FAILED, null);
+        }
+        return null;
+    }
+
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * @return orders accepted but not yet written, those in the queue as well as the batch being written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void run() {
+        final List<UserOrder> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                final UserOrder first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                logger.warn("Order writer interrupted, writing the " + queue.size() + " queued orders now.");
+                while (queue.drainTo(batch, batchSize) > 0) {
+                    write(batch);
+                    batch.clear();
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(final List<UserOrder> batch) {
+        try {
+            transactionTemplate.execute(status -> orderRepository.saveAll(batch));
+        } catch (RuntimeException ex) {
+            logger.warn("Batch of " + batch.size() + " orders could not be written, retrying one by one.", ex);
+            batch.forEach(this::writeOne);
+            return;
+        }
+        batch.forEach(this::written);
+    }
+
+    private void writeOne(final UserOrder order) {
+        try {
+            // ids handed out by the rolled back batch no longer exist
+            order.setId(null);
+            transactionTemplate.execute(status -> orderRepository.save(order));
+            readRouting.wrote(order.getUser().getUsername());
+        } catch (RuntimeException ex) {
+            logger.error("Order <" + order.getReference() + "> could not be written.", ex);
+            failed.put(order.getReference(), Boolean.TRUE, System.currentTimeMillis() + FAILED_ORDERS_TTL_MS);
+        } finally {
+            pending.remove(order.getReference());
+        }
+    }
+
+    private void written(final UserOrder order) {
+        readRouting.wrote(order.getUser().getUsername());
+        pending.remove(order.getReference());
+    }
+}
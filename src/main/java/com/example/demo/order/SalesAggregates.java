@@ -0,0 +1,390 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.Money;
+import com.example.demo.model.persistence.PricedQuantity;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository.OrderExportRow;
+import com.example.demo.model.responses.DaySalesResponse;
+import com.example.demo.model.responses.ItemSalesResponse;
+import com.example.demo.model.responses.UserResponse;
+import com.example.demo.model.responses.UserSalesResponse;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Revenue per day, units sold per item and orders and spend per user, kept up to date in memory as orders commit so
+ * the sales endpoints never aggregate the order tables.
+ *
+ * <p>Amounts are added to {@link LongAdder}s, so concurrent orders do not contend on the same counter. Items are also
+ * ranked by units sold in a skip list, so the top {@code k} are read in {@code O(k)}; an item's entry is replaced under
+ * the item's lock whenever its count moves. Deleted orders are subtracted again, updates change nothing counted.</p>
+ *
+ * <p>Every {@code checkpoint-interval-ms}, and on shutdown, the totals that changed since the last checkpoint are
+ * written to the {@code sales_*} tables along with the highest order id they include. On startup the checkpoint is
+ * loaded and the orders above that id are added from the order tables, so the first start aggregates every order
+ * once. An order committed after one with a higher id that was already checkpointed is missed if the application
+ * stops without its final checkpoint. The counts are those of one application instance, which must be the only one
+ * placing orders.</p>
+ */
+@Component
+public class SalesAggregates implements SmartInitializingSingleton {
+    public static final Logger logger = LoggerFactory.getLogger(SalesAggregates.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int CHECKPOINT_ID = 1;
+
+    @Value("${ecommerce.sales.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ecommerce.sales.checkpoint-interval-ms:60000}")
+    private long checkpointIntervalMs;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<LocalDate, Totals> days = new ConcurrentHashMap<>();
+    private final Map<Long, Totals> users = new ConcurrentHashMap<>();
+    private final Map<Long, ItemTotals> items = new ConcurrentHashMap<>();
+    private final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>();
+    private final Set<LocalDate> changedDays = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedUsers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedItems = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lastOrderId = new AtomicLong();
+    // orders are added under the read lock, a checkpoint copies the totals under the write lock so they match its order id
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * Runs once the database has been migrated, which happens while the singletons are created, and before requests
+     * are served.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // not read-only, so the orders are read from the primary when there is a replica
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        final long started = System.currentTimeMillis();
+        final long checkpointed = load();
+        final long added = catchUp(checkpointed);
+        logger.info("Sales aggregates loaded from the checkpoint of order " + checkpointed + " and " + added
+                    + " later orders in " + (System.currentTimeMillis() - started) + " ms.");
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "sales-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointSafely, checkpointIntervalMs, checkpointIntervalMs,
+                                            TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (checkpointer == null) {
+            return;
+        }
+        checkpointer.shutdown();
+        if (!checkpointer.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            logger.error("Sales checkpointer did not stop in time.");
+        }
+        checkpointSafely();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(final OrderChangedEvent event) {
+        if (!enabled || event.getType() == OrderChangedEvent.Type.UPDATED) {
+            return;
+        }
+        final UserOrder order = event.getOrder();
+        final int sign = event.getType() == OrderChangedEvent.Type.CREATED ? 1 : -1;
+        checkpointLock.readLock().lock();
+        try {
+            addOrder(order.getCreatedAt(), order.getUser() == null ? null : order.getUser().getId(),
+                     sign * order.getTotalInMinorUnits(), sign);
+            for (Map.Entry<Item, PricedQuantity> line : order.getPricedQuantities().entrySet()) {
+                final Item item = line.getKey();
+                addItem(item.getId(), item.getName(), sign * line.getValue().getQuantity(),
+                        sign * line.getValue().getAmountInMinorUnits());
+            }
+            if (sign > 0) {
+                lastOrderId.accumulateAndGet(order.getId(), Math::max);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    public DaySalesResponse day(final LocalDate date) {
+        final Totals totals = days.get(date);
+        return totals == null ? new DaySalesResponse(date, 0, 0)
+                : new DaySalesResponse(date, totals.orders.sum(), totals.amount.sum());
+    }
+
+    /**
+     * @return the items with the most units sold, most first
+     */
+    public List<ItemSalesResponse> topItems(final int limit) {
+        final List<ItemSalesResponse> top = new ArrayList<>(limit);
+        final Iterator<Rank> ranks = ranking.iterator();
+        while (top.size() < limit && ranks.hasNext()) {
+            final Rank rank = ranks.next();
+            if (rank.quantity <= 0) {
+                // every order of the remaining items was deleted again
+                break;
+            }
+            final ItemTotals totals = items.get(rank.itemId);
+            top.add(new ItemSalesResponse(rank.itemId, totals.name, rank.quantity, totals.revenue.sum()));
+        }
+        return top;
+    }
+
+    public UserSalesResponse user(final long userId, final String username) {
+        final Totals totals = users.get(userId);
+        final UserResponse user = new UserResponse(userId, username);
+        return totals == null ? new UserSalesResponse(user, 0, 0)
+                : new UserSalesResponse(user, totals.orders.sum(), totals.amount.sum());
+    }
+
+    /**
+     * Writes the totals that changed since the last checkpoint, and the highest order id they include, in one
+     * transaction.
+     */
+    public synchronized void checkpoint() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        final long orderId;
+        final Map<LocalDate, long[]> dayValues = new HashMap<>();
+        final Map<Long, long[]> userValues = new HashMap<>();
+        final Map<Long, long[]> itemValues = new HashMap<>();
+        checkpointLock.writeLock().lock();
+        try {
+            orderId = lastOrderId.get();
+            changedDays.forEach(day -> dayValues.put(day, days.get(day).values()));
+            changedUsers.forEach(user -> userValues.put(user, users.get(user).values()));
+            changedItems.forEach(item -> itemValues.put(item, items.get(item).values()));
+            changedDays.clear();
+            changedUsers.clear();
+            changedItems.clear();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (dayValues.isEmpty() && userValues.isEmpty() && itemValues.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate("merge into sales_day (sales_date, orders, revenue) key (sales_date) values (?, ?, ?)",
+                                         rows(dayValues, Date::valueOf));
+                jdbcTemplate.batchUpdate("merge into sales_user (user_id, orders, spend) key (user_id) values (?, ?, ?)",
+                                         rows(userValues, user -> user));
+                jdbcTemplate.batchUpdate("merge into sales_item (item_id, quantity, revenue) key (item_id) values (?, ?, ?)",
+                                         rows(itemValues, item -> item));
+                jdbcTemplate.update("merge into sales_checkpoint (id, last_order_id, checkpointed_at) key (id) values (?, ?, ?)",
+                                    CHECKPOINT_ID, orderId, Timestamp.from(Instant.now()));
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            // written again with the next checkpoint, with whatever they have come to by then
+            changedDays.addAll(dayValues.keySet());
+            changedUsers.addAll(userValues.keySet());
+            changedItems.addAll(itemValues.keySet());
+            throw ex;
+        }
+        logger.debug("Sales checkpoint of order " + orderId + " wrote " + dayValues.size() + " days, " + userValues.size()
+                     + " users and " + itemValues.size() + " items.");
+    }
+
+    private void checkpointSafely() {
+        try {
+            checkpoint();
+        } catch (Exception ex) {
+            logger.error("Writing the sales checkpoint failed, retrying on the next run.", ex);
+        }
+    }
+
+    /**
+     * @return the highest order id the checkpoint includes, 0 when there is none
+     */
+    private long load() {
+        final List<Long> checkpointed = jdbcTemplate.queryForList(
+                "select last_order_id from sales_checkpoint where id = ?", Long.class, CHECKPOINT_ID);
+        jdbcTemplate.query("select sales_date, orders, revenue from sales_day", row -> {
+            days.computeIfAbsent(row.getDate(1).toLocalDate(), day -> new Totals())
+                .add(row.getLong(2), Money.toMinorUnits(row.getBigDecimal(3)));
+        });
+        jdbcTemplate.query("select user_id, orders, spend from sales_user", row -> {
+            users.computeIfAbsent(row.getLong(1), user -> new Totals())
+                 .add(row.getLong(2), Money.toMinorUnits(row.getBigDecimal(3)));
+        });
+        jdbcTemplate.query("select s.item_id, i.name, s.quantity, s.revenue from sales_item s left join item i on i.id = s.item_id", row -> {
+            addItem(row.getLong(1), row.getString(2), row.getLong(3), Money.toMinorUnits(row.getBigDecimal(4)));
+        });
+        // loaded as they were written, there is nothing to checkpoint yet
+        changedItems.clear();
+        final long orderId = checkpointed.isEmpty() ? 0 : checkpointed.get(0);
+        lastOrderId.set(orderId);
+        return orderId;
+    }
+
+    /**
+     * Adds the orders above the checkpoint, read in one pass over the order tables.
+     *
+     * @return the number of orders added
+     */
+    private long catchUp(final long checkpointed) {
+        return transactionTemplate.execute(status -> {
+            long added = 0;
+            try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(checkpointed + 1, Long.MAX_VALUE,
+                                                                                 OrderExporter.FIRST_CREATED_AT,
+                                                                                 OrderExporter.LAST_CREATED_AT)) {
+                Long order = null;
+                for (Iterator<OrderExportRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                    final OrderExportRow row = iterator.next();
+                    if (!row.getOrderId().equals(order)) {
+                        order = row.getOrderId();
+                        addOrder(row.getCreatedAt().toInstant(), row.getUserId(), minorUnits(row.getTotal()), 1);
+                        lastOrderId.accumulateAndGet(order, Math::max);
+                        added++;
+                    }
+                    if (row.getItemId() != null) {
+                        addItem(row.getItemId(), row.getItemName(), row.getQuantity(),
+                                Money.times(minorUnits(row.getItemPrice()), row.getQuantity()));
+                    }
+                }
+            }
+            return added;
+        });
+    }
+
+    private void addOrder(final Instant createdAt, final Long userId, final long amount, final int orders) {
+        final LocalDate day = createdAt.atOffset(ZoneOffset.UTC).toLocalDate();
+        days.computeIfAbsent(day, key -> new Totals()).add(orders, amount);
+        changedDays.add(day);
+        if (userId != null) {
+            users.computeIfAbsent(userId, key -> new Totals()).add(orders, amount);
+            changedUsers.add(userId);
+        }
+    }
+
+    private void addItem(final long itemId, final String name, final long quantity, final long revenue) {
+        final ItemTotals totals = items.computeIfAbsent(itemId, key -> new ItemTotals());
+        totals.revenue.add(revenue);
+        if (name != null) {
+            totals.name = name;
+        }
+        synchronized (totals) {
+            if (totals.rank != null) {
+                ranking.remove(totals.rank);
+            }
+            totals.rank = new Rank(totals.rank == null ? quantity : totals.rank.quantity + quantity, itemId);
+            ranking.add(totals.rank);
+        }
+        changedItems.add(itemId);
+    }
+
+    private static long minorUnits(final BigDecimal amount) {
+        return amount == null ? 0 : Money.toMinorUnits(amount);
+    }
+
+    private static <K> List<Object[]> rows(final Map<K, long[]> values, final Function<K, Object> key) {
+        final List<Object[]> rows = new ArrayList<>(values.size());
+        values.forEach((k, counts) -> rows.add(new Object[] { key.apply(k), counts[0], Money.toBigDecimal(counts[1]) }));
+        return rows;
+    }
+
+    /**
+     * Number of orders and the amount they came to in minor units.
+     */
+    private static class Totals {
+        final LongAdder orders = new LongAdder();
+        final LongAdder amount = new LongAdder();
+
+        void add(final long count, final long minorUnits) {
+            orders.add(count);
+            amount.add(minorUnits);
+        }
+
+        long[] values() {
+            return new long[] { orders.sum(), amount.sum() };
+        }
+    }
+
+    private static final class ItemTotals {
+        final LongAdder revenue = new LongAdder();
+        volatile String name;
+        // replaced under the lock of the totals, the count is only ever read from it
+        Rank rank;
+
+        synchronized long[] values() {
+            return new long[] { rank.quantity, revenue.sum() };
+        }
+    }
+
+    /**
+     * Position of an item in the ranking: most units sold first, then by id.
+     */
+    private static final class Rank implements Comparable<Rank> {
+        final long quantity;
+        final long itemId;
+
+        Rank(final long quantity, final long itemId) {
+            this.quantity = quantity;
+            this.itemId = itemId;
+        }
+
+        @Override
+        public int compareTo(final Rank other) {
+            final int byQuantity = Long.compare(other.quantity, quantity);
+            return byQuantity != 0 ? byQuantity : Long.compare(itemId, other.itemId);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.replica;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import org.h2.api.Trigger;
+
+/**
+ * H2 row trigger that appends the key of every inserted, updated or deleted row to the {@code change_feed} table, in
+ * the transaction that changed the row, so the feed only ever holds committed changes. Installed on the primary by
+ * the {@link ReplicaCopier}.
+ */
+public class ChangeFeedTrigger implements Trigger {
+
+    static final String INSERT = "insert into change_feed (table_name, row_key) values (?, ?)";
+
+    private String table;
+    private int[] keyColumns;
+
+    @Override
+    public void init(final Connection connection, final String schema, final String trigger, final String table,
+                     final boolean before, final int type) throws SQLException {
+        this.table = table;
+        final List<String> columns = ReplicaCopier.columns(connection, table);
+        // recorded in their position in the key, the order ReplicaCopier binds them in
+        keyColumns = ReplicaCopier.keyColumns(connection, schema, table).stream().mapToInt(columns::indexOf).toArray();
+    }
+
+    @Override
+    public void fire(final Connection connection, final Object[] oldRow, final Object[] newRow) throws SQLException {
+        final String newKey = newRow == null ? null : key(newRow);
+        final String oldKey = oldRow == null ? null : key(oldRow);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            insert.setString(1, table);
+            if (newKey != null) {
+                insert.setString(2, newKey);
+                insert.addBatch();
+            }
+            if (oldKey != null && !oldKey.equals(newKey)) {
+                // the key itself changed, the row under the old key is gone
+                insert.setString(2, oldKey);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+
+    private String key(final Object[] row) {
+        final StringBuilder key = new StringBuilder();
+        for (int column : keyColumns) {
+            if (key.length() > 0) {
+                key.append(ReplicaCopier.KEY_SEPARATOR);
+            }
+            key.append(row[column]);
+        }
+        return key.toString();
+    }
+}
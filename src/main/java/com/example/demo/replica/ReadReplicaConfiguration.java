@@ -0,0 +1,110 @@
+package com.example.demo.replica;
+
+import com.example.demo.catalog.CatalogVersion;
+import com.example.demo.order.OrderHistoryVersions;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Opt-in read replica, enabled with {@code ecommerce.datasource.replica.enabled=true}.
+ *
+ * <p>Replaces the single connection pool with two: {@code primary}, configured by {@code spring.datasource.*} as
+ * before, and {@code replica}, configured by {@code ecommerce.datasource.replica.*}. The data source the application
+ * uses routes read-only transactions, which repository finders run in unless they join a surrounding transaction, to the
+ * replica and everything else to the primary. Locally the replica is a second H2 database kept up to date by the
+ * {@link ReplicaCopier}.</p>
+ *
+ * <p>Hibernate gives back its connection at the end of every transaction instead of holding it until the entity
+ * manager closes, so a write following a replica read in the same request, or the same open session in view, gets a
+ * primary connection.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "ecommerce.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    @Value("${ecommerce.datasource.replica.url:jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1}")
+    private String url;
+
+    @Value("${ecommerce.datasource.replica.username:sa}")
+    private String username;
+
+    @Value("${ecommerce.datasource.replica.password:}")
+    private String password;
+
+    @Value("${ecommerce.datasource.replica.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    @Value("${ecommerce.datasource.replica.copy-interval-ms:100}")
+    private long copyIntervalMs;
+
+    @Value("${ecommerce.datasource.replica.copy-batch-size:500}")
+    private int copyBatchSize;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource() {
+        final HikariDataSource dataSource = DataSourceBuilder.create()
+                                                             .type(HikariDataSource.class)
+                                                             .url(url)
+                                                             .username(username)
+                                                             .password(password)
+                                                             .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Lazy @Qualifier("primaryDataSource") final DataSource primaryDataSource,
+                                 @Lazy @Qualifier("replicaDataSource") final DataSource replicaDataSource) {
+        // the pools are looked up on first use: Boot initializes every data source bean with the primary one, so
+        // creating them here would have this bean wait on itself
+        final ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource);
+        routing.afterPropertiesSet();
+        final LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy();
+        lazy.setTargetDataSource(routing);
+        // the pools' defaults, given so the proxy does not open a connection to find them out while the pools are created
+        lazy.setDefaultAutoCommit(true);
+        lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazy.afterPropertiesSet();
+        return lazy;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer replicaHibernateProperties() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                                            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public ReplicaCopier replicaCopier(@Qualifier("primaryDataSource") final DataSource primaryDataSource,
+                                       @Qualifier("replicaDataSource") final DataSource replicaDataSource,
+                                       final ReadRouting readRouting, final CatalogVersion catalogVersion,
+                                       final OrderHistoryVersions orderHistoryVersions) {
+        return new ReplicaCopier(primaryDataSource, replicaDataSource, readRouting, catalogVersion, orderHistoryVersions,
+                                 copyIntervalMs, copyBatchSize);
+    }
+}
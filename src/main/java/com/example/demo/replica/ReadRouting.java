@@ -0,0 +1,117 @@
+package com.example.demo.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which reads must not go to the read replica, enabled with {@code ecommerce.datasource.replica.enabled}.
+ *
+ * <p>With the replica enabled, read-only transactions are served by the replica, which the {@link ReplicaCopier} keeps
+ * a little behind the primary. Work whose reads feed a write, such as placing an order for the cart, runs in
+ * {@link #primary(Supplier)} so it never acts on a stale copy. With {@code read-your-writes}, a user's reads made
+ * through {@link #forUser(String, Supplier)} also go to the primary from the moment one of the user's writes is
+ * reported with {@link #wrote(String)} until the copier has caught up with it, so a user always sees their own changes.
+ * Other users may still see the previous state for as long as the replica lags.</p>
+ *
+ * <p>The choice is held by the calling thread and made when a transaction first uses its connection, so call these
+ * from the thread that does the reads, inside {@link com.example.demo.jdbc.JdbcExecutor#supply} where there is one.
+ * When disabled, every method just runs the reads.</p>
+ */
+@Component
+public class ReadRouting implements MeterBinder {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final boolean readYourWrites;
+    // username to System.nanoTime() of the user's last write, taken once it committed
+    private final Map<String, Long> writes = new ConcurrentHashMap<>();
+    private volatile long replicatedUpTo = System.nanoTime();
+
+    public ReadRouting(@Value("${ecommerce.datasource.replica.enabled:false}") final boolean enabled,
+                       @Value("${ecommerce.datasource.replica.read-your-writes:true}") final boolean readYourWrites) {
+        this.enabled = enabled;
+        this.readYourWrites = readYourWrites;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs {@code reads} against the primary, whatever their transactions' read-only flag.
+     */
+    public <T> T primary(final Supplier<T> reads) {
+        if (!enabled || isPrimaryRequired()) {
+            return reads.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    /**
+     * Runs reads made on behalf of {@code username} against the primary while the replica may not hold one of the
+     * user's writes yet, and wherever the routing sends them otherwise.
+     */
+    public <T> T forUser(final String username, final Supplier<T> reads) {
+        return isPinned(username) ? primary(reads) : reads.get();
+    }
+
+    /**
+     * Records that a write of the user has committed. Call it after the commit, never before.
+     */
+    public void wrote(final String username) {
+        if (enabled && readYourWrites && username != null) {
+            writes.put(username, System.nanoTime());
+        }
+    }
+
+    /**
+     * Called by the copier: every write committed before {@code nanoTime} is on the replica.
+     */
+    void replicated(final long nanoTime) {
+        replicatedUpTo = nanoTime;
+        writes.values().removeIf(writtenAt -> writtenAt - nanoTime < 0);
+    }
+
+    long getReplicatedUpTo() {
+        return replicatedUpTo;
+    }
+
+    boolean isPinned(final String username) {
+        if (!enabled || username == null) {
+            return false;
+        }
+        final Long writtenAt = writes.get(username);
+        // a write in the same instant as the copier's last catch-up may have missed it, so ties stay pinned
+        return writtenAt != null && writtenAt - replicatedUpTo >= 0;
+    }
+
+    public int getPinnedCount() {
+        return writes.size();
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY.get() != null;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("datasource.replica.pinned.users", this, ReadRouting::getPinnedCount)
+             .description("Users whose reads go to the primary until the replica has their last write")
+             .register(registry);
+    }
+}
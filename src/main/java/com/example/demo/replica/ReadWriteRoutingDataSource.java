@@ -0,0 +1,38 @@
+package com.example.demo.replica;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else: writes, reads
+ * outside a transaction, and reads {@link ReadRouting} keeps on the primary.
+ *
+ * <p>The transaction's read-only flag is only set once its connection was requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which defers the choice to the first
+ * statement.</p>
+ */
+class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    ReadWriteRoutingDataSource(final DataSource primary, final DataSource replica) {
+        final Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadRouting.isPrimaryRequired()
+                ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.demo.replica;
+
+import com.example.demo.catalog.CatalogVersion;
+import com.example.demo.order.OrderHistoryVersions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+/**
+ * Stands in for database replication between two H2 instances, which H2 does not do: copies the rows the primary's
+ * change feed names to the replica every {@code copy-interval-ms}.
+ *
+ * <p>On startup the replica is migrated like the primary, a {@link ChangeFeedTrigger} is installed on every
+ * replicated table of the primary and the replica is then filled with a copy of those tables; changes made while it is
+ * copied are in the feed. Each run reads the feed in batches of {@code copy-batch-size} until a batch comes back short,
+ * copies the current primary row of each key named, or deletes the row when the primary no longer has it, and commits
+ * the replica once, so a run never shows half of a primary transaction. Only then are the feed entries it applied
+ * deleted, and entries of transactions that were still open are left for the next run. The replica does not check
+ * foreign keys, as rows of different tables can arrive in any order.</p>
+ *
+ * <p>Once a run committed, everything committed on the primary before its last, short, batch was read is on the
+ * replica, which is what {@link ReadRouting} releases pinned users by. The catalog and order history versions move
+ * again when item or order rows reach the replica, so a tag handed out while the replica lagged is not used to answer
+ * 304 for the stale content read with it.</p>
+ */
+public class ReplicaCopier implements SmartInitializingSingleton, MeterBinder {
+    public static final Logger logger = LoggerFactory.getLogger(ReplicaCopier.class);
+
+    static final String KEY_SEPARATOR = ",";
+    static final List<String> TABLES = Collections.unmodifiableList(Arrays.asList(
+            "item", "cart", "cart_item", "user", "user_order", "user_order_item"));
+
+    private static final String CREATE_FEED = "create table if not exists change_feed ("
+            + "seq bigint auto_increment primary key, table_name varchar(64) not null, row_key varchar(255) not null)";
+    private static final String READ_FEED = "select seq, table_name, row_key from change_feed order by seq limit ?";
+    private static final String CONSUME_FEED = "delete from change_feed where seq = ?";
+    private static final long SHUTDOWN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadRouting readRouting;
+    private final CatalogVersion catalogVersion;
+    private final OrderHistoryVersions orderHistoryVersions;
+    private final long copyIntervalMs;
+    private final int batchSize;
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+    private final LongAdder copied = new LongAdder();
+
+    private ScheduledExecutorService copier;
+
+    public ReplicaCopier(final DataSource primary, final DataSource replica, final ReadRouting readRouting,
+                         final CatalogVersion catalogVersion, final OrderHistoryVersions orderHistoryVersions,
+                         final long copyIntervalMs, final int batchSize) {
+        if (copyIntervalMs <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Copy interval and batch size must be positive");
+        }
+        this.primary = primary;
+        this.replica = replica;
+        this.readRouting = readRouting;
+        this.catalogVersion = catalogVersion;
+        this.orderHistoryVersions = orderHistoryVersions;
+        this.copyIntervalMs = copyIntervalMs;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs once the primary has been migrated, which happens while the singletons are created.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Flyway.configure().dataSource(replica).load().migrate();
+        try {
+            try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("set referential_integrity false");
+            }
+            try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+                for (String name : TABLES) {
+                    final Table table = new Table(connection, name.toUpperCase(Locale.ROOT));
+                    tables.put(table.name, table);
+                }
+                statement.execute(CREATE_FEED);
+                for (Table table : tables.values()) {
+                    statement.execute("create trigger if not exists " + quote(table.name + "_CHANGE_FEED")
+                                      + " after insert, update, delete on " + quote(table.name)
+                                      + " for each row call \"" + ChangeFeedTrigger.class.getName() + "\"");
+                }
+            }
+            snapshot();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not set up the read replica.", ex);
+        }
+        copier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "replica-copier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        copier.scheduleWithFixedDelay(this::copySafely, copyIntervalMs, copyIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Read replica started, copying changes every " + copyIntervalMs + " ms.");
+    }
+
+    /**
+     * Stops copying and removes the triggers and the feed, so the primary does not keep recording changes nobody reads.
+     */
+    public void stop() throws InterruptedException, SQLException {
+        if (copier == null) {
+            return;
+        }
+        copier.shutdown();
+        if (!copier.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            logger.error("Replica copier did not stop in time.");
+        }
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            for (Table table : tables.values()) {
+                statement.execute("drop trigger if exists " + quote(table.name + "_CHANGE_FEED"));
+            }
+            statement.execute("drop table if exists change_feed");
+        }
+    }
+
+    /**
+     * Copies every change committed so far. Runs on the copier's schedule, and can be called to catch up at once.
+     *
+     * @return the number of rows copied or deleted
+     */
+    public synchronized int copy() throws SQLException {
+        int applied = 0;
+        long caughtUpAt;
+        boolean catalogChanged = false;
+        final Set<Long> orderUsers = new HashSet<>();
+        final List<Long> consumed = new ArrayList<>();
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection()) {
+            target.setAutoCommit(false);
+            try {
+                int read;
+                do {
+                    caughtUpAt = System.nanoTime();
+                    final Set<List<String>> changed = new LinkedHashSet<>();
+                    read = 0;
+                    try (PreparedStatement statement = source.prepareStatement(READ_FEED)) {
+                        statement.setInt(1, batchSize);
+                        try (ResultSet rows = statement.executeQuery()) {
+                            while (rows.next()) {
+                                read++;
+                                consumed.add(rows.getLong(1));
+                                changed.add(Arrays.asList(rows.getString(2), rows.getString(3)));
+                            }
+                        }
+                    }
+                    for (List<String> change : changed) {
+                        final Table table = tables.get(change.get(0));
+                        final Long userId = table.copy(source, target, change.get(1).split(KEY_SEPARATOR));
+                        catalogChanged |= table.name.equals("ITEM");
+                        if (userId != null) {
+                            orderUsers.add(userId);
+                        }
+                        applied++;
+                    }
+                } while (read == batchSize);
+                target.commit();
+            } catch (SQLException | RuntimeException ex) {
+                target.rollback();
+                throw ex;
+            }
+            consume(source, consumed);
+        }
+        if (catalogChanged) {
+            catalogVersion.increment();
+        }
+        orderUsers.forEach(orderHistoryVersions::increment);
+        readRouting.replicated(caughtUpAt);
+        copied.add(applied);
+        return applied;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("datasource.replica.lag", readRouting,
+                      routing -> (System.nanoTime() - routing.getReplicatedUpTo()) / 1e9)
+             .description("Seconds since the last instant up to which every committed change is known to be on the replica")
+             .baseUnit("seconds")
+             .register(registry);
+        FunctionCounter.builder("datasource.replica.copied", copied, LongAdder::sum)
+                       .description("Rows copied to or deleted from the replica")
+                       .register(registry);
+    }
+
+    private void copySafely() {
+        try {
+            copy();
+        } catch (Exception ex) {
+            logger.error("Copying changes to the read replica failed, retrying on the next run.", ex);
+        }
+    }
+
+    /**
+     * Replaces the content of every replicated table of the replica by the primary's.
+     */
+    private synchronized void snapshot() throws SQLException {
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection()) {
+            target.setAutoCommit(false);
+            try {
+                for (Table table : tables.values()) {
+                    table.snapshot(source, target);
+                }
+                target.commit();
+            } catch (SQLException | RuntimeException ex) {
+                target.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    private void consume(final Connection source, final List<Long> consumed) throws SQLException {
+        if (consumed.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = source.prepareStatement(CONSUME_FEED)) {
+            for (Long seq : consumed) {
+                statement.setLong(1, seq);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * @return the columns of {@code table} in their order in the table, as the primary's metadata names them
+     */
+    static List<String> columns(final Connection connection, final String table) throws SQLException {
+        final List<String> columns = new ArrayList<>();
+        try (ResultSet rows = connection.getMetaData().getColumns(null, null, table, null)) {
+            while (rows.next()) {
+                columns.add(rows.getString("COLUMN_NAME"));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * @return the primary key columns of {@code table} in their position in the key. The metadata returns them ordered
+     *         by name, which for a composite key is not that order.
+     */
+    static List<String> keyColumns(final Connection connection, final String schema, final String table) throws SQLException {
+        final Map<Short, String> keys = new TreeMap<>();
+        try (ResultSet rows = connection.getMetaData().getPrimaryKeys(null, schema, table)) {
+            while (rows.next()) {
+                keys.put(rows.getShort("KEY_SEQ"), rows.getString("COLUMN_NAME"));
+            }
+        }
+        return new ArrayList<>(keys.values());
+    }
+
+    private static String quote(final String identifier) {
+        return "\"" + identifier + "\"";
+    }
+
+    /**
+     * Statements copying the rows of one table by primary key.
+     */
+    private static final class Table {
+        private final String name;
+        private final List<String> columns;
+        private final String select;
+        private final String merge;
+        private final String delete;
+        private final String selectUser;
+
+        Table(final Connection connection, final String name) throws SQLException {
+            this.name = name;
+            this.columns = columns(connection, name);
+            // in the order the trigger records them in, so the parts of a recorded key bind to the right columns
+            final List<String> keys = keyColumns(connection, null, name);
+            final String byKey = keys.stream().map(key -> quote(key) + " = ?").collect(Collectors.joining(" and "));
+            final String columnList = columns.stream().map(ReplicaCopier::quote).collect(Collectors.joining(", "));
+            this.select = "select " + columnList + " from " + quote(name) + " where " + byKey;
+            this.merge = "merge into " + quote(name) + " (" + columnList + ") key ("
+                         + keys.stream().map(ReplicaCopier::quote).collect(Collectors.joining(", ")) + ") values ("
+                         + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+            this.delete = "delete from " + quote(name) + " where " + byKey;
+            this.selectUser = name.equals("USER_ORDER") ? "select \"USER_ID\" from " + quote(name) + " where " + byKey : null;
+        }
+
+        /**
+         * Makes the replica's row with this key what the primary's is, or deletes it.
+         *
+         * @return the user of the order when this is an order row, {@code null} otherwise
+         */
+        Long copy(final Connection source, final Connection target, final String[] key) throws SQLException {
+            try (PreparedStatement read = source.prepareStatement(select)) {
+                bind(read, key);
+                try (ResultSet row = read.executeQuery()) {
+                    if (row.next()) {
+                        try (PreparedStatement write = target.prepareStatement(merge)) {
+                            for (int i = 1; i <= columns.size(); i++) {
+                                write.setObject(i, row.getObject(i));
+                            }
+                            write.executeUpdate();
+                        }
+                        return selectUser == null ? null : row.getLong(columns.indexOf("USER_ID") + 1);
+                    }
+                }
+            }
+            Long userId = null;
+            if (selectUser != null) {
+                try (PreparedStatement read = target.prepareStatement(selectUser)) {
+                    bind(read, key);
+                    try (ResultSet row = read.executeQuery()) {
+                        userId = row.next() ? row.getLong(1) : null;
+                    }
+                }
+            }
+            try (PreparedStatement write = target.prepareStatement(delete)) {
+                bind(write, key);
+                write.executeUpdate();
+            }
+            return userId;
+        }
+
+        void snapshot(final Connection source, final Connection target) throws SQLException {
+            try (Statement delete = target.createStatement()) {
+                delete.executeUpdate("delete from " + quote(name));
+            }
+            try (Statement select = source.createStatement();
+                 ResultSet rows = select.executeQuery("select " + columns.stream().map(ReplicaCopier::quote)
+                                                      .collect(Collectors.joining(", ")) + " from " + quote(name));
+                 PreparedStatement write = target.prepareStatement(merge)) {
+                while (rows.next()) {
+                    for (int i = 1; i <= columns.size(); i++) {
+                        write.setObject(i, rows.getObject(i));
+                    }
+                    write.addBatch();
+                }
+                write.executeBatch();
+            }
+        }
+
+        private static void bind(final PreparedStatement statement, final String[] key) throws SQLException {
+            // keys are recorded as text, which H2 converts back to the type of the key columns
+            for (int i = 0; i < key.length; i++) {
+                statement.setString(i + 1, key[i]);
+            }
+        }
+    }
+}
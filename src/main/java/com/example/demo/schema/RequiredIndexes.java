@@ -0,0 +1,119 @@
+package com.example.demo.schema;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refuses to start the application when the database lacks an index one of the repositories' hot lookups relies on.
+ *
+ * <p>The migrations in {@code db/migration} create these indexes, but a database migrated by hand or restored from
+ * elsewhere may not have them, and nothing else would notice until those lookups scan whole tables under load. The check
+ * runs once every singleton, the migrations and the entity manager factory among them, has been created, and before the
+ * web server takes requests. An index qualifies when its leading columns are the required ones, whatever its name.</p>
+ */
+@Component
+public class RequiredIndexes implements SmartInitializingSingleton {
+    public static final Logger logger = LoggerFactory.getLogger(RequiredIndexes.class);
+
+    static final List<Index> REQUIRED = Arrays.asList(
+            new Index("item", "name"),                                // ItemRepository.findByName, findResponsesByName
+            new Index("user", "username"),                            // UserRepository.findByUsername
+            new Index("user", "cart_id"),                             // the user of a cart
+            new Index("user_order", "user_id"),                       // OrderRepository.findByUser, history pages
+            new Index("user_order", "reference"),                     // OrderRepository.findIdByReference
+            new Index("user_order", "created_at"),                    // order exports by date
+            new Index("cart_item", "cart_id", "item_id"),             // the lines of a cart
+            new Index("cart_item", "item_id"),                        // deleting an item
+            new Index("user_order_item", "user_order_id", "item_id"), // OrderRepository.findLinesByOrderIdIn
+            new Index("user_order_item", "item_id"));                 // deleting an item
+
+    private final DataSource dataSource;
+
+    public RequiredIndexes(final DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        final List<Index> missing;
+        try {
+            missing = missing();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not read the indexes of the database.", ex);
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("The database lacks required indexes on " + missing
+                                            + ", apply the migrations in db/migration.");
+        }
+        logger.info("All " + REQUIRED.size() + " required indexes are present.");
+    }
+
+    /**
+     * @return the required indexes no index of the database starts with, in the order they are required
+     */
+    List<Index> missing() throws SQLException {
+        final List<Index> missing = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            for (Index index : REQUIRED) {
+                if (indexedColumns(metaData, index.table).stream().noneMatch(index::isPrefixOf)) {
+                    missing.add(index);
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return the columns of every index of {@code table}, in index order and in lower case
+     */
+    private static Collection<List<String>> indexedColumns(final DatabaseMetaData metaData, final String table)
+            throws SQLException {
+        final String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        final Map<String, List<String>> columns = new TreeMap<>();
+        try (ResultSet rows = metaData.getIndexInfo(null, null, name, false, false)) {
+            while (rows.next()) {
+                final String index = rows.getString("INDEX_NAME");
+                final String column = rows.getString("COLUMN_NAME");
+                if (index != null && column != null) {
+                    // rows come ordered by index name and then by ordinal position
+                    columns.computeIfAbsent(index, i -> new ArrayList<>()).add(column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return columns.values();
+    }
+
+    static final class Index {
+        private final String table;
+        private final List<String> columns;
+
+        Index(final String table, final String... columns) {
+            this.table = table;
+            this.columns = Arrays.asList(columns);
+        }
+
+        boolean isPrefixOf(final List<String> indexed) {
+            return indexed.size() >= columns.size() && indexed.subList(0, columns.size()).equals(columns);
+        }
+
+        @Override
+        public String toString() {
+            return table + columns;
+        }
+    }
+}
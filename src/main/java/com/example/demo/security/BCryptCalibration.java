@@ -0,0 +1,55 @@
+package com.example.demo.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs how long a single BCrypt hash takes at each cost factor on this machine, to help pick
+ * {@code ecommerce.security.bcrypt.strength}. Enabled with {@code ecommerce.security.bcrypt.calibrate=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "ecommerce.security.bcrypt.calibrate", havingValue = "true")
+public class BCryptCalibration {
+    public static final Logger logger = LoggerFactory.getLogger(BCryptCalibration.class);
+
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 16;
+    private static final long SLOWEST_REPORTED_MS = 2000;
+    private static final int REPEATS = 3;
+    private static final long REPEAT_BELOW_MS = 500;
+    private static final String PASSWORD = "calibration-password";
+
+    @Value("${ecommerce.security.bcrypt.strength:10}")
+    private int strength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrate() {
+        // warm up so the first cost measured is not paying for class loading and JIT
+        BCrypt.hashpw(PASSWORD, BCrypt.gensalt(MIN_STRENGTH));
+        for (int cost = MIN_STRENGTH; cost <= MAX_STRENGTH; cost++) {
+            long elapsedMs = time(cost);
+            // cheap costs are repeated and the best run kept, as a single short run is mostly noise
+            for (int run = 1; run < REPEATS && elapsedMs < REPEAT_BELOW_MS; run++) {
+                elapsedMs = Math.min(elapsedMs, time(cost));
+            }
+            logger.info("BCrypt cost " + cost + " takes " + elapsedMs + " ms per hash"
+                        + (cost == strength ? " (configured)." : "."));
+            if (elapsedMs > SLOWEST_REPORTED_MS) {
+                break;
+            }
+        }
+    }
+
+    private static long time(final int cost) {
+        final String salt = BCrypt.gensalt(cost);
+        final long start = System.nanoTime();
+        BCrypt.hashpw(PASSWORD, salt);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * {@link BCryptPasswordEncoder} that hashes on its own bounded pool instead of the calling request thread.
+ *
+ * <p>At most one hash per pool thread runs at a time, so a burst of sign ups or logins cannot take more CPU than the
+ * pool is sized for, and at most {@code queueCapacity} more wait. Anything beyond that fails straight away with
+ * {@link PasswordHashingRejectedException} rather than queueing, so callers can answer 429 instead of holding a
+ * request thread for the whole backlog.</p>
+ *
+ * <p>Once bound to a {@link MeterRegistry} the time spent hashing is recorded as {@code security.bcrypt}, tagged with
+ * the operation, next to gauges for busy threads and queued hashes and a counter of rejections.</p>
+ */
+public class BoundedBCryptPasswordEncoder extends BCryptPasswordEncoder implements MeterBinder {
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejections = new LongAdder();
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+
+    /**
+     * @param threads hashing threads, or {@code 0} for one per available processor
+     */
+    public BoundedBCryptPasswordEncoder(final int strength, final int threads, final int queueCapacity) {
+        this(strength, newExecutor(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity));
+    }
+
+    BoundedBCryptPasswordEncoder(final int strength, final ThreadPoolExecutor executor) {
+        super(strength);
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(final CharSequence rawPassword) {
+        return run(() -> super.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+        return run(() -> super.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        encodeTimer = hashingTimer("encode", registry);
+        matchesTimer = hashingTimer("matches", registry);
+        Gauge.builder("security.bcrypt.active", this, BoundedBCryptPasswordEncoder::getActiveCount)
+             .description("Passwords being hashed right now")
+             .register(registry);
+        Gauge.builder("security.bcrypt.queued", this, BoundedBCryptPasswordEncoder::getQueueSize)
+             .description("Passwords waiting for a hashing thread")
+             .register(registry);
+        FunctionCounter.builder("security.bcrypt.rejected", this, BoundedBCryptPasswordEncoder::getRejectionCount)
+                       .description("Hashes refused because the pool and its queue were full")
+                       .register(registry);
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(final Callable<T> hashing, final Timer timer) {
+        final Future<T> result;
+        try {
+            result = executor.submit(timer == null ? hashing : () -> timer.recordCallable(hashing));
+        } catch (RejectedExecutionException ex) {
+            rejections.increment();
+            throw new PasswordHashingRejectedException(ex);
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return result.get();
+                } catch (InterruptedException ex) {
+                    // the hash is already being paid for, finish it and restore the interrupt for the caller
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Timer hashingTimer(final String operation, final MeterRegistry registry) {
+        return Timer.builder("security.bcrypt")
+                    .tag("operation", operation)
+                    .description("Time spent hashing a password, excluding the wait for a hashing thread")
+                    .register(registry);
+    }
+
+    private static ThreadPoolExecutor newExecutor(final int threads, final int queueCapacity) {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "bcrypt-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory,
+                                      new ThreadPoolExecutor.AbortPolicy());
+    }
+}
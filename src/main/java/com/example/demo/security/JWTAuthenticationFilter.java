@@ -1,10 +1,11 @@
 package com.example.demo.security;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.example.demo.controllers.UserController;
 import com.example.demo.model.persistence.User;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +17,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -26,22 +29,38 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     public static final Logger logger = LoggerFactory.getLogger(JWTAuthenticationFilter.class);
 
     private AuthenticationManager authenticationManager;
+    private MeterRegistry meterRegistry;
 
-    public JWTAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public JWTAuthenticationFilter(AuthenticationManager authenticationManager, MeterRegistry meterRegistry) {
         this.authenticationManager = authenticationManager;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public Authentication attemptAuthentication(final HttpServletRequest request, final HttpServletResponse response) throws AuthenticationException {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
         try {
             User credentials = new ObjectMapper().readValue(request.getInputStream(), User.class);
 
-            return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(credentials.getUsername(),
-                                                                                              credentials.getPassword(),
-                                                                                              Collections.emptyList()));
+            final Authentication authentication =
+                    authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(credentials.getUsername(),
+                                                                                               credentials.getPassword(),
+                                                                                               Collections.emptyList()));
+            outcome = "success";
+            return authentication;
+        } catch (PasswordHashingRejectedException ex) {
+            outcome = "rejected";
+            logger.warn("Login rejected, password hashing is saturated.");
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            // null tells the parent filter the response is complete and the chain must not continue
+            return null;
         } catch (IOException ex) {
             logger.error("Error while authenticating user. ", ex);
             throw new RuntimeException(ex);
+        } finally {
+            sample.stop(meterRegistry.timer(SecurityConstants.LOGIN_TIMER, "outcome", outcome));
         }
     }
 
@@ -53,7 +72,7 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         final String token = JWT.create()
                                 .withSubject(((org.springframework.security.core.userdetails.User) authResult.getPrincipal()).getUsername())
                                 .withExpiresAt(new Date(System.currentTimeMillis() + SecurityConstants.EXPIRATION_TIME))
-                                .sign(Algorithm.HMAC512(SecurityConstants.SECRET.getBytes()));
+                                .sign(SecurityConstants.ALGORITHM);
         response.addHeader(SecurityConstants.HEADER_STRING, SecurityConstants.TOKEN_PREFIX + token);
     }
 }
@@ -1,22 +1,36 @@
 package com.example.demo.security;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilter {
 
-    public JWTAuthenticationVerificationFilter(AuthenticationManager authenticationManager) {
+    private final JWTTokenVerifier tokenVerifier;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> admins;
+
+    public JWTAuthenticationVerificationFilter(AuthenticationManager authenticationManager,
+                                               JWTTokenVerifier tokenVerifier,
+                                               MeterRegistry meterRegistry,
+                                               Set<String> admins) {
         super(authenticationManager);
+        this.tokenVerifier = tokenVerifier;
+        this.meterRegistry = meterRegistry;
+        this.admins = admins;
     }
 
     @Override
@@ -30,7 +44,17 @@ public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilt
             return;
         }
 
-        final UsernamePasswordAuthenticationToken authToken = getAuthenticationToken(request);
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+        final UsernamePasswordAuthenticationToken authToken;
+        try {
+            authToken = getAuthenticationToken(request);
+            if (authToken != null) {
+                outcome = "valid";
+            }
+        } finally {
+            sample.stop(meterRegistry.timer(SecurityConstants.JWT_VERIFICATION_TIMER, "outcome", outcome));
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authToken);
         chain.doFilter(request, response);
@@ -39,12 +63,12 @@ public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilt
     private UsernamePasswordAuthenticationToken getAuthenticationToken(HttpServletRequest request) {
         String authToken = request.getHeader(SecurityConstants.HEADER_STRING);
         if (authToken != null) {
-            final String user = JWT.require(Algorithm.HMAC512(SecurityConstants.SECRET.getBytes()))
-                                   .build()
-                                   .verify(authToken.replace(SecurityConstants.TOKEN_PREFIX, ""))
-                                   .getSubject();
+            final String user = tokenVerifier.verify(authToken.replace(SecurityConstants.TOKEN_PREFIX, ""));
             if (user != null) {
-                return new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList());
+                final Collection<GrantedAuthority> authorities = admins.contains(user)
+                        ? Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + SecurityConstants.ADMIN_ROLE))
+                        : Collections.emptyList();
+                return new UsernamePasswordAuthenticationToken(user, null, authorities);
             }
             return null;
         }
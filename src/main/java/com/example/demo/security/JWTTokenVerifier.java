@@ -0,0 +1,57 @@
+package com.example.demo.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.demo.cache.ExpiringCache;
+import java.util.Date;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves bearer tokens to their subject, remembering tokens that already passed signature verification.
+ *
+ * <p>A cached entry lives for at most {@link SecurityConstants#VERIFIED_TOKEN_CACHE_TTL} and never past the expiry
+ * claim of the token itself, so an expired token is always re-verified (and rejected) by the {@link JWTVerifier}.</p>
+ */
+@Component
+public class JWTTokenVerifier {
+
+    private final JWTVerifier verifier;
+    private final ExpiringCache<String, String> verifiedTokens;
+
+    public JWTTokenVerifier() {
+        this(new ExpiringCache<>(SecurityConstants.VERIFIED_TOKEN_CACHE_SIZE));
+    }
+
+    JWTTokenVerifier(final ExpiringCache<String, String> verifiedTokens) {
+        this.verifier = JWT.require(SecurityConstants.ALGORITHM).build();
+        this.verifiedTokens = verifiedTokens;
+    }
+
+    /**
+     * @return the subject of the token, or {@code null} when the token carries none
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException when the token is invalid or expired
+     */
+    public String verify(final String token) {
+        final String cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        final DecodedJWT decoded = verifier.verify(token);
+        final String subject = decoded.getSubject();
+        if (subject != null) {
+            verifiedTokens.put(token, subject, cacheExpiry(decoded.getExpiresAt()));
+        }
+        return subject;
+    }
+
+    public ExpiringCache<String, String> getCache() {
+        return verifiedTokens;
+    }
+
+    private static long cacheExpiry(final Date tokenExpiry) {
+        final long ttlExpiry = System.currentTimeMillis() + SecurityConstants.VERIFIED_TOKEN_CACHE_TTL;
+        return tokenExpiry == null ? ttlExpiry : Math.min(tokenExpiry.getTime(), ttlExpiry);
+    }
+}
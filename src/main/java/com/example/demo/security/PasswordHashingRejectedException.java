@@ -0,0 +1,15 @@
+package com.example.demo.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when password hashing is saturated and the request is turned away instead of queued.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(final Throwable cause) {
+        super("Password hashing is saturated, try again later.", cause);
+    }
+}
@@ -1,9 +1,22 @@
 package com.example.demo.security;
 
+import com.auth0.jwt.algorithms.Algorithm;
+
 public class SecurityConstants {
     static final long EXPIRATION_TIME = 1000 * 60 * 24 * 10; // last value is number of days, so 10 days
     static final String SECRET = "haveToTellYouOne";
     static final String TOKEN_PREFIX = "Bearer ";
     static final String HEADER_STRING = "Authorization";
     static final String SIGN_UP_URL = "/api/user/create";
+    static final String HEALTH_URL = "/actuator/health";
+    static final String ADMIN_URLS = "/api/admin/**";
+    static final String ADMIN_ROLE = "ADMIN"; // granted to the users named in ecommerce.security.admins
+    static final String PROMETHEUS_URL = "/actuator/prometheus"; // admins, or the ecommerce.metrics.allowed-addresses without a token
+    // answered with ETags and no-cache by the controllers, the default no-store would keep clients from revalidating
+    static final String REVALIDATED_GET_URLS = "/api/(item(/\\d+)?|order/history/[^/?]+)(\\?.*)?";
+    static final Algorithm ALGORITHM = Algorithm.HMAC512(SECRET.getBytes()); // thread safe, shared by signing and verification
+    static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+    static final String JWT_VERIFICATION_TIMER = "security.jwt.verification";
+    static final String LOGIN_TIMER = "security.login";
+    static final long VERIFIED_TOKEN_CACHE_TTL = 1000 * 60 * 5; // 5 minutes, a token is never cached past its own expiry
 }
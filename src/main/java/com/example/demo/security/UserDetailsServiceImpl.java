@@ -2,6 +2,7 @@ package com.example.demo.security;
 
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.replica.ReadRouting;
 import java.util.Collections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,9 +18,14 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private ReadRouting readRouting;
+
     @Override
     public UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
-        final User user = userRepository.findByUsername(username);
+        // a user logging in right after signing up must be found, whether the replica has the user yet or not
+        final User user = readRouting.forUser(username, () -> userRepository.findByUsername(username));
 
         if (user == null) {
             logger.error("Cannot find user while loading by username " + username);
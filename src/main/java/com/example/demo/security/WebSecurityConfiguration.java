@@ -1,5 +1,10 @@
 package com.example.demo.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,15 +14,36 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.RegexRequestMatcher;
 
 @EnableWebSecurity
 public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
     private UserDetailsServiceImpl userDetailsService;
     private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private JWTTokenVerifier tokenVerifier;
+    private MeterRegistry meterRegistry;
+    private Set<String> admins;
+    private String metricsAccess;
 
-    public WebSecurityConfiguration(UserDetailsServiceImpl userDetailsService, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public WebSecurityConfiguration(UserDetailsServiceImpl userDetailsService,
+                                    BCryptPasswordEncoder bCryptPasswordEncoder,
+                                    JWTTokenVerifier tokenVerifier,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${ecommerce.security.admins:}") String admins,
+                                    @Value("${ecommerce.metrics.allowed-addresses:127.0.0.1,::1}") String metricsAddresses) {
         this.userDetailsService = userDetailsService;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.tokenVerifier = tokenVerifier;
+        this.meterRegistry = meterRegistry;
+        this.admins = Arrays.stream(admins.split(","))
+                            .map(String::trim)
+                            .filter(admin -> !admin.isEmpty())
+                            .collect(Collectors.toSet());
+        this.metricsAccess = metricsAccess(metricsAddresses);
     }
 
     @Override
@@ -28,12 +54,36 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
             .disable()
             .authorizeRequests()
             .antMatchers(HttpMethod.POST, SecurityConstants.SIGN_UP_URL).permitAll()
+            .antMatchers(HttpMethod.GET, SecurityConstants.HEALTH_URL).permitAll()
+            .antMatchers(HttpMethod.GET, SecurityConstants.PROMETHEUS_URL).access(metricsAccess)
+            .antMatchers(SecurityConstants.ADMIN_URLS).hasRole(SecurityConstants.ADMIN_ROLE)
             .anyRequest().authenticated()
             .and()
-            .addFilter(new JWTAuthenticationFilter(authenticationManager()))
-            .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager()))
+            .addFilter(new JWTAuthenticationFilter(authenticationManager(), meterRegistry))
+            .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager(), tokenVerifier, meterRegistry, admins))
             .sessionManagement()
-            .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+            .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+            .headers()
+            .cacheControl().disable()
+            .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                    new NegatedRequestMatcher(new RegexRequestMatcher(SecurityConstants.REVALIDATED_GET_URLS, HttpMethod.GET.name())),
+                    new CacheControlHeadersWriter()));
+    }
+
+    /**
+     * Admins, and without a token the listed addresses or CIDR ranges, checked here so a bad entry fails the start.
+     */
+    static String metricsAccess(String addresses) {
+        final StringBuilder access = new StringBuilder("hasRole('" + SecurityConstants.ADMIN_ROLE + "')");
+        Arrays.stream(addresses.split(","))
+              .map(String::trim)
+              .filter(address -> !address.isEmpty())
+              .forEach(address -> {
+                  new IpAddressMatcher(address);
+                  access.append(" or hasIpAddress('").append(address).append("')");
+              });
+        return access.toString();
     }
 
     @Bean
@@ -0,0 +1,80 @@
+-- Schema the entities map to. Ids come from sequences handed out 50 at a time, see the allocation sizes.
+
+create sequence item_seq start with 1 increment by 50;
+create sequence cart_seq start with 1 increment by 50;
+create sequence user_seq start with 1 increment by 50;
+create sequence user_order_seq start with 1 increment by 50;
+
+create table item (
+    id bigint not null,
+    name varchar(255) not null,
+    price decimal(19,2) not null,
+    description varchar(255) not null,
+    constraint item_pk primary key (id)
+);
+
+create table cart (
+    id bigint not null,
+    total decimal(19,2),
+    version bigint not null,
+    constraint cart_pk primary key (id)
+);
+
+-- one row per line, keyed by the cart and the item, so a cart holds an item at most once
+create table cart_item (
+    cart_id bigint not null,
+    item_id bigint not null,
+    quantity integer not null,
+    constraint cart_item_pk primary key (cart_id, item_id)
+);
+
+create table user (
+    id bigint not null,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    mirror_password varchar(255) not null,
+    cart_id bigint,
+    constraint user_pk primary key (id),
+    constraint user_username_uk unique (username)
+);
+
+create table user_order (
+    id bigint not null,
+    reference varchar(36) not null,
+    total decimal(19,2),
+    user_id bigint not null,
+    constraint user_order_pk primary key (id),
+    constraint user_order_reference_uk unique (reference)
+);
+
+create table user_order_item (
+    user_order_id bigint not null,
+    item_id bigint not null,
+    quantity integer not null,
+    constraint user_order_item_pk primary key (user_order_id, item_id)
+);
+
+-- ItemRepository.findByName and findResponsesByName
+create index item_name_idx on item (name);
+
+-- Every foreign key column has an index of its own, named here. H2 only backs a foreign key with an index on exactly
+-- its columns, and would otherwise add an unnamed one, even where a composite key starts with the column.
+
+-- loading the user of a cart
+create index user_cart_id_idx on user (cart_id);
+-- OrderRepository.findByUser and history pages; entries of a key are kept in id order, so pages walked newest first by
+-- id within the user read the index backwards without sorting
+create index user_order_user_id_idx on user_order (user_id);
+create index cart_item_cart_id_idx on cart_item (cart_id);
+create index user_order_item_user_order_id_idx on user_order_item (user_order_id);
+-- deleting an item checks the lines that refer to it
+create index cart_item_item_id_idx on cart_item (item_id);
+create index user_order_item_item_id_idx on user_order_item (item_id);
+
+-- foreign keys come last, so they are backed by the indexes above
+alter table cart_item add constraint cart_item_cart_fk foreign key (cart_id) references cart (id);
+alter table cart_item add constraint cart_item_item_fk foreign key (item_id) references item (id);
+alter table user add constraint user_cart_fk foreign key (cart_id) references cart (id);
+alter table user_order add constraint user_order_user_fk foreign key (user_id) references user (id);
+alter table user_order_item add constraint user_order_item_order_fk foreign key (user_order_id) references user_order (id);
+alter table user_order_item add constraint user_order_item_item_fk foreign key (item_id) references item (id);
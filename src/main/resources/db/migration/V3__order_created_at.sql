@@ -0,0 +1,4 @@
+-- When an order was placed, for exports by date. Orders placed before this migration get the time it ran.
+alter table user_order add column created_at timestamp default current_timestamp not null;
+
+create index user_order_created_at_idx on user_order (created_at);
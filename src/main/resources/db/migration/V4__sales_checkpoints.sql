@@ -0,0 +1,31 @@
+-- Checkpoints of the sales aggregates SalesAggregates keeps in memory, amounts in major units like the order totals.
+-- No foreign keys: the sales of an item or a user outlive it.
+
+create table sales_day (
+    sales_date date not null,
+    orders bigint not null,
+    revenue decimal(19,2) not null,
+    constraint sales_day_pk primary key (sales_date)
+);
+
+create table sales_item (
+    item_id bigint not null,
+    quantity bigint not null,
+    revenue decimal(19,2) not null,
+    constraint sales_item_pk primary key (item_id)
+);
+
+create table sales_user (
+    user_id bigint not null,
+    orders bigint not null,
+    spend decimal(19,2) not null,
+    constraint sales_user_pk primary key (user_id)
+);
+
+-- a single row: the highest order id the checkpointed totals include, later orders are added again on startup
+create table sales_checkpoint (
+    id integer not null,
+    last_order_id bigint not null,
+    checkpointed_at timestamp not null,
+    constraint sales_checkpoint_pk primary key (id)
+);
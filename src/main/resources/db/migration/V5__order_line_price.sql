@@ -0,0 +1,7 @@
+-- The unit price each order line was placed at, so orders keep adding up to their totals when item prices change.
+-- Lines placed before this migration get the price their item had when it ran.
+alter table user_order_item add column price decimal(19,2);
+
+update user_order_item l set price = (select i.price from item i where i.id = l.item_id);
+
+alter table user_order_item alter column price set not null;
@@ -0,0 +1,99 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.responses.ItemResponse;
+import java.math.BigDecimal;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "ecommerce.cache.catalog.enabled=true")
+public class CatalogCacheTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void shouldServeRepeatedFindByNameFromQueryCache() {
+        // when
+        itemRepository.findByName("Round Widget");
+        itemRepository.findByName("Round Widget");
+
+        // then
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    public void shouldServeFindByIdFromEntityCache() {
+        // given
+        final Long id = itemRepository.findByName("Square Widget").get(0).getId();
+        statistics.clear();
+
+        // when
+        itemRepository.findById(id);
+
+        // then
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void shouldServeRepeatedResponseProjectionsFromQueryCache() {
+        // given
+        final Long id = itemRepository.findResponsesByName("Square Widget").get(0).getId();
+        statistics.clear();
+
+        // when
+        itemRepository.findResponseById(id);
+        final ItemResponse item = itemRepository.findResponseById(id).get();
+
+        // then
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals("Square Widget", item.getName());
+        assertTrue(item.getPrice().signum() > 0);
+    }
+
+    @Test
+    public void shouldInvalidateCachedQueriesWhenItemIsSaved() {
+        // given
+        assertEquals(0, itemRepository.findByName("Cached Widget").size());
+        assertEquals(0, itemRepository.findResponsesByName("Cached Widget").size());
+
+        final Item item = new Item();
+        item.setName("Cached Widget");
+        item.setPrice(new BigDecimal("4.99"));
+        item.setDescription("A widget that is cached");
+
+        // when
+        itemRepository.save(item);
+
+        // then
+        assertEquals(1, itemRepository.findByName("Cached Widget").size());
+        assertEquals(1, itemRepository.findResponsesByName("Cached Widget").size());
+        itemRepository.delete(item);
+        assertEquals(0, itemRepository.findByName("Cached Widget").size());
+        assertEquals(0, itemRepository.findResponsesByName("Cached Widget").size());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.cart;
+
+import com.example.demo.controllers.CartController;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.CartResponse;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Many threads changing one cart at once, through the controller on one node and through two updaters standing in for
+ * two nodes, must leave the cart with exactly the sum of the changes that were reported as successful.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CartConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int CHANGES_PER_THREAD = 25;
+
+    @Autowired
+    private CartController cartController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+
+    private User user;
+
+    private Item item;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        item = itemRepository.findAll().get(0);
+        user = new User();
+        user.setUsername("concurrent-cart");
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        userRepository.save(user);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        // by id, the cart version held here is long out of date
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentAddsThroughController() throws Exception {
+        // when every thread adds one unit at a time, half of them removing one again after every second add
+        final List<Future<Integer>> results = run(thread -> () -> {
+            int units = 0;
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                final boolean remove = thread % 2 == 1 && i % 2 == 1;
+                final ModifyCartRequest request = request(1);
+                final ResponseEntity<CartResponse> response =
+                        remove ? cartController.removeFromCart(request).join() : cartController.addToCart(request).join();
+                assertEquals(200, response.getStatusCodeValue());
+                units += remove ? -1 : 1;
+            }
+            return units;
+        });
+
+        // then
+        assertCartHolds(sum(results));
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentAddsFromTwoNodes() throws Exception {
+        // given two updaters with their own locks, so only the version check stands between them
+        final CartUpdater[] nodes = {
+                new CartUpdater(cartRepository, transactionManager, 16, 50),
+                new CartUpdater(cartRepository, transactionManager, 16, 50)
+        };
+        final long cartId = user.getCart().getId();
+        final AtomicInteger conflicts = new AtomicInteger();
+
+        // when
+        final List<Future<Integer>> results = run(thread -> () -> {
+            int units = 0;
+            for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                try {
+                    nodes[thread % 2].update(cartId, cart -> cart.addItem(item, 1));
+                    units++;
+                } catch (CartUpdateConflictException ex) {
+                    conflicts.incrementAndGet();
+                }
+            }
+            return units;
+        });
+
+        // then
+        final int added = sum(results);
+        assertEquals(THREADS * CHANGES_PER_THREAD, added + conflicts.get());
+        assertTrue("Expected most adds to get through, " + conflicts + " gave up", added > THREADS * CHANGES_PER_THREAD / 2);
+        assertCartHolds(added);
+    }
+
+    private List<Future<Integer>> run(final Worker worker) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Integer>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            final Callable<Integer> work = worker.forThread(thread);
+            results.add(executor.submit(() -> {
+                start.await();
+                return work.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        return results;
+    }
+
+    private void assertCartHolds(final int units) {
+        final Cart cart = cartRepository.findById(user.getCart().getId()).get();
+        assertEquals(units, cart.getQuantity(item));
+        assertEquals(item.getPrice().multiply(BigDecimal.valueOf(units)), cart.getTotal());
+    }
+
+    private ModifyCartRequest request(final int quantity) {
+        final ModifyCartRequest request = new ModifyCartRequest();
+        request.setUsername(user.getUsername());
+        request.setItemId(item.getId());
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private static int sum(final List<Future<Integer>> results) throws Exception {
+        int sum = 0;
+        for (Future<Integer> result : results) {
+            sum += result.get();
+        }
+        return sum;
+    }
+
+    private interface Worker {
+        Callable<Integer> forThread(int thread);
+    }
+}
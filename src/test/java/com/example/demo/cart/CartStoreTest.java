@@ -0,0 +1,231 @@
+package com.example.demo.cart;
+
+import com.example.demo.controllers.CartController;
+import com.example.demo.controllers.OrderController;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.OrderResponse;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Write-behind carts against the real database. The flusher is scheduled an hour out, so only the flushes the tests
+ * ask for, and the one when the context closes, ever happen.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestPropertySource(properties = {
+        "ecommerce.cart.write-behind.enabled=true",
+        "ecommerce.cart.write-behind.flush-interval-ms=3600000",
+        "ecommerce.cart.write-behind.idle-seconds=0"
+})
+public class CartStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int CHANGES_PER_THREAD = 25;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartController cartController;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private User user;
+
+    private Item item;
+
+    private long cartId;
+
+    private final List<Long> orders = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        item = itemRepository.findAll().get(0);
+        user = new User();
+        user.setUsername("write-behind-cart");
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        userRepository.save(user);
+        cartId = user.getCart().getId();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        // written and idle, so nothing of this user's cart is left in memory for the next test
+        Thread.sleep(5);
+        cartStore.flushAll();
+        orders.forEach(orderRepository::deleteById);
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    public void shouldKeepChangesInMemoryUntilFlushed() {
+        // when
+        cartStore.update(cartId, cart -> cart.addItem(item, 2));
+        final Cart changed = cartStore.update(cartId, cart -> cart.addItem(item, 1));
+
+        // then
+        assertEquals(3, changed.getQuantity(item));
+        assertEquals(0, cartRepository.findById(cartId).get().getQuantity(item));
+        assertEquals(1, cartStore.getDirtyCount());
+
+        // when
+        cartStore.flush(cartId);
+
+        // then
+        assertCartHolds(3);
+        assertEquals(0, cartStore.getDirtyCount());
+        assertEquals(0, cartStore.getFlushLagMillis());
+    }
+
+    @Test
+    public void shouldWriteTotalAtPricesOfTheFlush() {
+        // given
+        cartStore.update(cartId, cart -> cart.addItem(item, 2));
+        final BigDecimal price = item.getPrice();
+        final Item repriced = itemRepository.findById(item.getId()).get();
+        repriced.setPrice(price.add(BigDecimal.ONE));
+        itemRepository.save(repriced);
+
+        try {
+            // when
+            cartStore.flush(cartId);
+
+            // then
+            assertEquals(price.add(BigDecimal.ONE).multiply(BigDecimal.valueOf(2)), cartRepository.findById(cartId).get().getTotal());
+        } finally {
+            repriced.setPrice(price);
+            itemRepository.save(repriced);
+        }
+    }
+
+    @Test
+    public void shouldReadCartBackAfterItWasDropped() throws InterruptedException {
+        // given
+        cartStore.update(cartId, cart -> cart.addItem(item, 2));
+        Thread.sleep(5);
+        cartStore.flushAll();
+        assertEquals(0, cartStore.getCachedCount());
+
+        // when
+        final Cart changed = cartStore.update(cartId, cart -> cart.removeItem(item, 1));
+
+        // then
+        assertEquals(1, changed.getQuantity(item));
+        cartStore.flush(cartId);
+        assertCartHolds(1);
+    }
+
+    @Test
+    public void shouldReturnNullForUnknownCart() {
+        // when
+        final Cart cart = cartStore.update(-1L, c -> c.addItem(item, 1));
+
+        // then
+        assertNull(cart);
+    }
+
+    @Test
+    public void shouldFlushCartWhenOrderIsSubmitted() {
+        // given
+        final ModifyCartRequest request = new ModifyCartRequest();
+        request.setUsername(user.getUsername());
+        request.setItemId(item.getId());
+        request.setQuantity(2);
+        assertEquals(200, cartController.addToCart(request).join().getStatusCodeValue());
+        assertEquals(1, cartStore.getDirtyCount());
+
+        // when
+        final ResponseEntity<OrderResponse> response = orderController.submit(user.getUsername()).join();
+        orders.add(response.getBody().getId());
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, response.getBody().getItems().size());
+        assertEquals(item.getPrice().multiply(BigDecimal.valueOf(2)), response.getBody().getTotal());
+        assertEquals(0, cartStore.getDirtyCount());
+        assertCartHolds(2);
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentChanges() throws Exception {
+        // given
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> results = new ArrayList<>();
+
+        // when every thread adds one unit at a time while the cart is flushed in between
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                        cartStore.update(cartId, cart -> cart.addItem(item, 1));
+                        if (i % 10 == 0) {
+                            cartStore.flush(cartId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        cartStore.flushAll();
+
+        // then
+        assertEquals(0, cartStore.getDirtyCount());
+        assertCartHolds(THREADS * CHANGES_PER_THREAD);
+    }
+
+    private void assertCartHolds(final int units) {
+        final Cart cart = cartRepository.findById(cartId).get();
+        assertEquals(units, cart.getQuantity(item));
+        assertEquals(item.getPrice().multiply(BigDecimal.valueOf(units)), cart.getTotal());
+    }
+}
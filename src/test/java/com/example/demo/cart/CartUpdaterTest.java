@@ -0,0 +1,83 @@
+package com.example.demo.cart;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import java.math.BigDecimal;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CartUpdaterTest {
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+
+    private CartUpdater cartUpdater;
+
+    private Item item;
+
+    @Before
+    public void setUp() {
+        cartUpdater = new CartUpdater(cartRepository, mock(PlatformTransactionManager.class), 4, 3);
+        item = new Item();
+        item.setId(1L);
+        item.setPrice(new BigDecimal("2.50"));
+    }
+
+    @Test
+    public void shouldReapplyChangeToFreshCartAfterConcurrentWrite() {
+        // given the first save loses against another writer
+        final Cart stale = new Cart();
+        final Cart fresh = new Cart();
+        fresh.addItem(item, 2);
+        when(cartRepository.findById(7L)).thenReturn(Optional.of(stale)).thenReturn(Optional.of(fresh));
+        when(cartRepository.saveAndFlush(stale)).thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 7L));
+        when(cartRepository.saveAndFlush(fresh)).thenReturn(fresh);
+
+        // when
+        final Cart saved = cartUpdater.update(7L, cart -> cart.addItem(item, 1));
+
+        // then
+        assertEquals(3, saved.getQuantity(item));
+        assertEquals(new BigDecimal("7.50"), saved.getTotal());
+        verify(cartRepository, times(2)).findById(7L);
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() {
+        // given
+        when(cartRepository.findById(7L)).thenAnswer(invocation -> Optional.of(new Cart()));
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 7L));
+
+        // when
+        try {
+            cartUpdater.update(7L, cart -> cart.addItem(item, 1));
+            fail("expected the update to be given up");
+        } catch (CartUpdateConflictException ex) {
+            // then
+            verify(cartRepository, times(3)).saveAndFlush(any(Cart.class));
+        }
+    }
+
+    @Test
+    public void shouldReturnNullForMissingCart() {
+        // given
+        when(cartRepository.findById(7L)).thenReturn(Optional.empty());
+
+        // when
+        final Cart cart = cartUpdater.update(7L, c -> c.addItem(item, 1));
+
+        // then
+        assertNull(cart);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import java.math.BigDecimal;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemChangeListenerTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Test
+    public void shouldKeepSearchIndexInSyncWithRepositoryWrites() {
+        // given
+        assertEquals(2, itemSearchIndex.search("widget", 10).size());
+        final Item item = new Item();
+        item.setName("Triangular Widget");
+        item.setPrice(new BigDecimal("3.99"));
+        item.setDescription("A widget that is triangular");
+
+        // when
+        itemRepository.save(item);
+
+        // then
+        assertEquals(1, itemSearchIndex.search("triang", 10).size());
+
+        // when
+        item.setName("Pointy Widget");
+        itemRepository.save(item);
+
+        // then
+        assertEquals(1, itemSearchIndex.search("pointy", 10).size());
+
+        // when
+        itemRepository.delete(item);
+
+        // then
+        assertTrue(itemSearchIndex.search("pointy", 10).isEmpty());
+    }
+}
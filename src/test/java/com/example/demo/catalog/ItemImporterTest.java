@@ -0,0 +1,170 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.responses.ItemResponse;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "ecommerce.catalog.import.batch-size=100")
+public class ItemImporterTest {
+
+    @Autowired
+    private ItemImporter itemImporter;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @After
+    public void tearDown() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.queryForList("select id from item where name like 'Imported%'", Long.class)
+                    .forEach(itemSearchIndex::remove);
+        jdbcTemplate.update("delete from item where name like 'Imported%'");
+    }
+
+    @Test
+    public void shouldImportCsvAndReportRejectedRows() throws Exception {
+        // given
+        final long version = catalogVersion.get();
+        final String csv = "name,price,description\r\n"
+                           + "Imported Gadget,4.50,\"A gadget, imported\"\r\n"
+                           + "\r\n"
+                           + "\"Imported \"\"Quoted\"\" Gadget\",1,\"Spans\ntwo lines\"\r\n"
+                           + "Imported Cheap Gadget,0.001,Too cheap\r\n"
+                           + ",1.00,No name\r\n"
+                           + "Imported Odd Gadget,one,Not a price\r\n"
+                           + "Imported Plain Gadget,2\r\n";
+
+        // when
+        final ItemImportResult result = itemImporter.importItems(new StringReader(csv), ItemImportFormat.CSV);
+
+        // then
+        assertEquals(6, result.getRows());
+        assertEquals(3, result.getInserted());
+        assertEquals(3, result.getRejected());
+        assertEquals(6, result.getErrors().get(0).getLine());
+        assertEquals(7, result.getErrors().get(1).getLine());
+        assertEquals(8, result.getErrors().get(2).getLine());
+        assertEquals("Name is missing", result.getErrors().get(1).getMessage());
+
+        final ItemResponse gadget = itemRepository.findResponsesByName("Imported Gadget").get(0);
+        assertEquals(new BigDecimal("4.50"), gadget.getPrice());
+        assertEquals("A gadget, imported", gadget.getDescription());
+        final ItemResponse quoted = itemRepository.findResponsesByName("Imported \"Quoted\" Gadget").get(0);
+        assertEquals("Spans\ntwo lines", quoted.getDescription());
+        assertEquals("", itemRepository.findResponsesByName("Imported Plain Gadget").get(0).getDescription());
+        assertEquals(3, itemSearchIndex.search("imported gadget", 10).size());
+        assertTrue(catalogVersion.get() > version);
+    }
+
+    @Test
+    public void shouldImportNdjsonAndUpdateItemsById() throws Exception {
+        // given
+        itemImporter.importItems(new StringReader("{\"name\": \"Imported Gadget\", \"price\": 3.00, \"description\": \"Old\"}\n"),
+                                 ItemImportFormat.NDJSON);
+        final Long id = itemRepository.findResponsesByName("Imported Gadget").get(0).getId();
+        final String ndjson = "{\"id\": " + id + ", \"name\": \"Imported Renamed Gadget\", \"price\": 2.50, \"description\": \"New\"}\n"
+                              + "\n"
+                              + "{\"id\": 999999999, \"name\": \"Imported Lost Gadget\", \"price\": 1}\n"
+                              + "{\"name\": \"Imported Broken Gadget\", \"price\": \n"
+                              + "[1, 2]\n"
+                              + "{\"name\": \"Imported New Gadget\", \"price\": \"7.25\"}\n";
+
+        // when
+        final ItemImportResult result = itemImporter.importItems(new StringReader(ndjson), ItemImportFormat.NDJSON);
+
+        // then
+        assertEquals(5, result.getRows());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getInserted());
+        assertEquals(3, result.getRejected());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals("There is no item with id 999999999", result.getErrors().get(0).getMessage());
+        assertEquals(4, result.getErrors().get(1).getLine());
+        assertEquals(5, result.getErrors().get(2).getLine());
+
+        final ItemResponse renamed = itemRepository.findResponseById(id).get();
+        assertEquals("Imported Renamed Gadget", renamed.getName());
+        assertEquals(new BigDecimal("2.50"), renamed.getPrice());
+        assertEquals(1, itemSearchIndex.search("renamed", 10).size());
+        assertTrue(itemSearchIndex.search("old", 10).isEmpty());
+        assertEquals(new BigDecimal("7.25"), itemRepository.findResponsesByName("Imported New Gadget").get(0).getPrice());
+    }
+
+    @Test
+    public void shouldStreamLargeFilesInBatches() throws Exception {
+        // given
+        final int rows = 20_000;
+
+        // when
+        final ItemImportResult result = itemImporter.importItems(new GeneratedCsv(rows), ItemImportFormat.CSV);
+
+        // then
+        assertEquals(rows, result.getInserted());
+        assertEquals(0, result.getRejected());
+        final List<Long> ids = new JdbcTemplate(dataSource).queryForList(
+                "select id from item where name like 'Imported%' order by id", Long.class);
+        assertEquals(rows, ids.size());
+        assertEquals(rows, ids.stream().distinct().count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseCsvWithoutPriceColumn() throws Exception {
+        itemImporter.importItems(new StringReader("name,description\nImported Gadget,No price\n"), ItemImportFormat.CSV);
+    }
+
+    /**
+     * CSV of numbered items generated as it is read, so the test does not hold the file either.
+     */
+    private static final class GeneratedCsv extends Reader {
+        private final int rows;
+        private int row = -1;
+        private String current = "";
+        private int position;
+
+        private GeneratedCsv(final int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (position == current.length()) {
+                if (++row > rows) {
+                    return -1;
+                }
+                current = row == 0 ? "name,price,description\n" : "Imported Gadget " + row + "," + row % 100 + ".99,Gadget number " + row + "\n";
+                position = 0;
+            }
+            final int count = Math.min(length, current.length() - position);
+            current.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
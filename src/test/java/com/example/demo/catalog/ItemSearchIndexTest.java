@@ -0,0 +1,84 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ItemSearchIndexTest {
+
+    private ItemSearchIndex itemSearchIndex;
+
+    @Before
+    public void setUp() {
+        itemSearchIndex = new ItemSearchIndex();
+        itemSearchIndex.put(createItem(1L, "Round Widget", "A widget that is round"));
+        itemSearchIndex.put(createItem(2L, "Square Widget", "A widget that is square"));
+        itemSearchIndex.put(createItem(3L, "Roundabout Gadget", "Goes around and around"));
+        itemSearchIndex.put(createItem(4L, "Gizmo", "Compatible with any widget"));
+    }
+
+    @Test
+    public void shouldFindByPrefixRankingNameMatchesFirst() {
+        // when
+        final List<Item> items = itemSearchIndex.search("wid", 10);
+
+        // then
+        assertEquals(3, items.size());
+        assertEquals(Long.valueOf(4L), items.get(2).getId());
+    }
+
+    @Test
+    public void shouldFindBySubstring() {
+        // when
+        final List<Item> items = itemSearchIndex.search("abou", 10);
+
+        // then
+        assertEquals(1, items.size());
+        assertEquals(Long.valueOf(3L), items.get(0).getId());
+    }
+
+    @Test
+    public void shouldRequireEveryTermAndPreferExactName() {
+        // when
+        final List<Item> items = itemSearchIndex.search("round widget", 10);
+
+        // then
+        assertEquals(1, items.size());
+        assertEquals(Long.valueOf(1L), items.get(0).getId());
+    }
+
+    @Test
+    public void shouldLimitResults() {
+        // when
+        final List<Item> items = itemSearchIndex.search("widget", 2);
+
+        // then
+        assertEquals(2, items.size());
+    }
+
+    @Test
+    public void shouldReflectUpdatesAndRemovals() {
+        // when
+        itemSearchIndex.put(createItem(4L, "Sprocket", "Fits nothing"));
+        itemSearchIndex.remove(2L);
+
+        // then
+        assertEquals(1, itemSearchIndex.search("widget", 10).size());
+        assertEquals(1, itemSearchIndex.search("sprock", 10).size());
+        assertTrue(itemSearchIndex.search("gizmo", 10).isEmpty());
+        assertEquals(3, itemSearchIndex.size());
+    }
+
+    private Item createItem(final Long id, final String name, final String description) {
+        final Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setPrice(new BigDecimal("1.00"));
+        item.setDescription(description);
+        return item;
+    }
+}
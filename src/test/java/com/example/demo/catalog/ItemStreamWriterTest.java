@@ -0,0 +1,70 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemStreamWriterTest {
+
+    @Autowired
+    private ItemStreamWriter itemStreamWriter;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Item> saved = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 1200; i++) {
+            final Item item = new Item();
+            item.setName("Streamed Widget " + i);
+            item.setPrice(new BigDecimal("0.99"));
+            item.setDescription("A widget that is streamed");
+            saved.add(item);
+        }
+        itemRepository.saveAll(saved);
+    }
+
+    @After
+    public void tearDown() {
+        itemRepository.deleteAll(saved);
+    }
+
+    @Test
+    public void shouldWriteWholeCatalogAsJsonArrayInIdOrder() throws Exception {
+        // given
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        final long written = itemStreamWriter.writeAll(out);
+
+        // then
+        final JsonNode items = objectMapper.readTree(out.toByteArray());
+        assertTrue(items.isArray());
+        assertEquals(itemRepository.count(), written);
+        assertEquals(written, items.size());
+        for (int i = 1; i < items.size(); i++) {
+            assertTrue(items.get(i - 1).get("id").asLong() < items.get(i).get("id").asLong());
+        }
+    }
+}
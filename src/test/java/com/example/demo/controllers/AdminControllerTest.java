@@ -0,0 +1,206 @@
+package com.example.demo.controllers;
+
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The admin endpoints end to end, through the security filters, which only let the configured admins in.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "ecommerce.security.admins=export-admin, someone-else")
+public class AdminControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String IMPORT_CSV = "name,price,description\nImported Gadget,4.20,Loaded by an admin\n";
+
+    private String adminToken;
+
+    private String clerkToken;
+
+    @Before
+    public void setUp() {
+        adminToken = signIn("export-admin");
+        clerkToken = signIn("export-clerk");
+    }
+
+    @Test
+    public void shouldRefuseTheExportToUsersWhoAreNotAdmins() {
+        assertEquals(HttpStatus.FORBIDDEN, get("/api/admin/orders/export", clerkToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, get("/api/admin/orders/export", null, String.class).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, get("/api/admin/sales/items/top", clerkToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, get("/api/admin/sales/items/top", adminToken, String.class).getStatusCode());
+    }
+
+    @Test
+    public void shouldShowCacheStatisticsToAdminsOnly() {
+        assertEquals(HttpStatus.FORBIDDEN, get("/api/admin/cache/users", clerkToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, get("/api/admin/cache/catalog", clerkToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, get("/api/cache/users", clerkToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, get("/api/admin/cache/users", adminToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, get("/api/admin/cache/catalog", adminToken, String.class).getStatusCode());
+    }
+
+    @Test
+    public void shouldRefuseTheImportToUsersWhoAreNotAdmins() {
+        // when
+        final ResponseEntity<String> clerk = post("/api/admin/items/import", IMPORT_CSV, "text/csv", clerkToken);
+        final ResponseEntity<String> anonymous = post("/api/admin/items/import", IMPORT_CSV, "text/csv", null);
+
+        // then
+        assertEquals(HttpStatus.FORBIDDEN, clerk.getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, anonymous.getStatusCode());
+        assertTrue(itemRepository.findByName("Imported Gadget").isEmpty());
+    }
+
+    @Test
+    public void shouldImportItemsForAdmins() throws Exception {
+        try {
+            // when
+            final ResponseEntity<String> response = post("/api/admin/items/import", IMPORT_CSV, "text/csv", adminToken);
+
+            // then
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(1, objectMapper.readTree(response.getBody()).get("inserted").asLong());
+            assertEquals(1, itemRepository.findByName("Imported Gadget").size());
+        } finally {
+            itemRepository.deleteAll(itemRepository.findByName("Imported Gadget"));
+        }
+    }
+
+    @Test
+    public void shouldAnswerBadRequestToUnusableImports() {
+        assertEquals(HttpStatus.BAD_REQUEST, post("/api/admin/items/import", "name\n", "text/csv", adminToken).getStatusCode());
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                     post("/api/admin/items/import", "[]", "application/json", adminToken).getStatusCode());
+    }
+
+    @Test
+    public void shouldExportOrdersGzipCompressed() throws Exception {
+        // given
+        final long id = submitOrder("export-clerk", clerkToken);
+
+        // when
+        final ResponseEntity<byte[]> response = get("/api/admin/orders/export?gzip=true&fromId=" + id + "&toId=" + (id + 1),
+                                                    adminToken, byte[].class);
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/gzip", response.getHeaders().getContentType().toString());
+        assertEquals("attachment; filename=\"orders.ndjson.gz\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        final String ndjson;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(response.getBody())), StandardCharsets.UTF_8))) {
+            ndjson = reader.lines().collect(Collectors.joining("\n"));
+        }
+        final JsonNode order = objectMapper.readTree(ndjson);
+        assertEquals(id, order.get("id").asLong());
+        assertEquals("export-clerk", order.get("username").asText());
+        assertEquals(1, order.get("lines").size());
+    }
+
+    @Test
+    public void shouldExportOrdersOfTheDayAsCsv() {
+        // given
+        final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        final long id = submitOrder("export-clerk", clerkToken);
+
+        // when
+        final ResponseEntity<String> sinceToday = get("/api/admin/orders/export?format=csv&fromId=" + id + "&from=" + today,
+                                                      adminToken, String.class);
+        final ResponseEntity<String> beforeToday = get("/api/admin/orders/export?format=csv&fromId=" + id + "&to=" + today,
+                                                       adminToken, String.class);
+
+        // then
+        assertEquals(HttpStatus.OK, sinceToday.getStatusCode());
+        assertTrue(sinceToday.getHeaders().getContentType().toString().startsWith("text/csv"));
+        final String[] rows = sinceToday.getBody().split("\r\n");
+        assertEquals(2, rows.length);
+        assertTrue(rows[1], rows[1].startsWith(id + ","));
+        assertEquals(1, beforeToday.getBody().split("\r\n").length);
+    }
+
+    @Test
+    public void shouldAnswerBadRequestToUnknownFormatsAndTimes() {
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/admin/orders/export?format=xml", adminToken, String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/admin/orders/export?from=yesterday", adminToken, String.class).getStatusCode());
+    }
+
+    private long submitOrder(final String username, final String token) {
+        restTemplate.exchange("/api/cart/addToCart", HttpMethod.POST,
+                              request("{\"username\":\"" + username + "\",\"itemId\":1,\"quantity\":2}", token), String.class);
+        final ResponseEntity<JsonNode> order = restTemplate.exchange("/api/order/submit/" + username, HttpMethod.POST,
+                                                                     request(null, token), JsonNode.class);
+        assertEquals(HttpStatus.OK, order.getStatusCode());
+        return order.getBody().get("id").asLong();
+    }
+
+    private String signIn(final String username) {
+        if (userRepository.findByUsername(username) == null) {
+            final String signUp = "{\"username\":\"" + username + "\",\"password\":\"thePassword\",\"mirrorPassword\":\"thePassword\"}";
+            restTemplate.postForEntity("/api/user/create", request(signUp, null), String.class);
+        }
+        final String token = restTemplate.postForEntity("/login", request("{\"username\":\"" + username + "\",\"password\":\"thePassword\"}", null),
+                                                        String.class)
+                                         .getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        assertNotNull(token);
+        return token;
+    }
+
+    private ResponseEntity<String> post(final String path, final String body, final String contentType, final String token) {
+        return restTemplate.exchange(path, HttpMethod.POST, request(body, token, contentType), String.class);
+    }
+
+    private <T> ResponseEntity<T> get(final String path, final String token, final Class<T> type) {
+        return restTemplate.exchange(path, HttpMethod.GET, request(null, token), type);
+    }
+
+    private static HttpEntity<String> request(final String body, final String token) {
+        return request(body, token, "application/json");
+    }
+
+    private static HttpEntity<String> request(final String body, final String token, final String contentType) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -1,23 +1,43 @@
 package com.example.demo.controllers;
 
+import com.example.demo.cart.CartStore;
+import com.example.demo.cart.CartUpdater;
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.jdbc.JdbcExecutor;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.LineItem;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.ItemRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.requests.BulkModifyCartRequest;
+import com.example.demo.model.requests.CartLineChange;
 import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.model.responses.CartResponse;
+import com.example.demo.model.responses.LineItemResponse;
+import com.example.demo.replica.ReadRouting;
 import com.example.demo.utils.InjectDependencies;
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Optional;
+import javax.persistence.EntityManagerFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CartControllerTest {
@@ -34,9 +54,47 @@ public class CartControllerTest {
     public void setUp() {
         cartController = new CartController();
 
+        InjectDependencies.injectObjects(cartController, "jdbcExecutor", new JdbcExecutor(mock(EntityManagerFactory.class), false, 1, 1, 1));
+
         InjectDependencies.injectObjects(cartController, "userRepository", userRepository);
-        InjectDependencies.injectObjects(cartController, "cartRepository", cartRepository);
+        final CartStore cartStore = new CartStore();
+        InjectDependencies.injectObjects(cartStore, "cartUpdater",
+                                         new CartUpdater(cartRepository, mock(PlatformTransactionManager.class), 16, 3));
+        InjectDependencies.injectObjects(cartController, "cartStore", cartStore);
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
         InjectDependencies.injectObjects(cartController, "itemRepository", itemRepository);
+        InjectDependencies.injectObjects(cartController, "userIdentityCache", new UserIdentityCache(100, 600));
+        InjectDependencies.injectObjects(cartController, "readRouting", new ReadRouting(false, true));
+    }
+
+    @Test
+    public void shouldLoadCartByIdOnceUserIsKnown() {
+        // given
+        final User user = createUser(5L, "test5", "testPassword5");
+        final Cart cart = new Cart();
+        cart.setId(5L);
+        cart.setUser(user);
+        user.setCart(cart);
+        when(userRepository.findByUsername("test5")).thenReturn(user);
+        when(cartRepository.findById(5L)).thenReturn(Optional.of(cart));
+
+        final Item item = createItem(5L, "itemTest5", "1.50", "precious item5");
+        when(itemRepository.findById(5L)).thenReturn(Optional.of(item));
+
+        final ModifyCartRequest cartRequest = new ModifyCartRequest();
+        cartRequest.setItemId(5L);
+        cartRequest.setQuantity(1);
+        cartRequest.setUsername("test5");
+
+        // when
+        cartController.addToCart(cartRequest).join();
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, quantityOf(response.getBody(), item));
+        verify(userRepository, times(1)).findByUsername("test5");
+        verify(cartRepository, times(2)).findById(5L);
     }
 
     @Test
@@ -63,6 +121,7 @@ public class CartControllerTest {
         final Cart cart = new Cart();
         cart.setUser(user);
         user.setCart(cart);
+        stubCart(cart, 10L);
 
         // request body
         final ModifyCartRequest cartRequest = new ModifyCartRequest();
@@ -71,18 +130,56 @@ public class CartControllerTest {
         cartRequest.setUsername(username);
 
         // when
-        final ResponseEntity<Cart> response = cartController.addToCart(cartRequest);
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final Cart cartResponse = response.getBody();
+        final CartResponse cartResponse = response.getBody();
         assertNotNull(cartResponse);
         assertEquals(1, cartResponse.getItems().size());
 
         assertEquals(new BigDecimal("2.99"), cartResponse.getTotal());
-        assertEquals(user, cartResponse.getUser());
+        assertEquals(user.getId(), cartResponse.getUser().getId());
+        assertEquals(user.getUsername(), cartResponse.getUser().getUsername());
+    }
+
+    @Test
+    public void shouldKeepOneLinePerItemWhenAddingManyUnits() {
+        // given
+        final String username = "test9";
+        final User user = createUser(9L, username, "testPassword9");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final long itemId = 9L;
+        final Item item = createItem(itemId, "itemTest9", "1.50", "precious item9");
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 11L);
+
+        final ModifyCartRequest cartRequest = new ModifyCartRequest();
+        cartRequest.setItemId(itemId);
+        cartRequest.setQuantity(500);
+        cartRequest.setUsername(username);
+
+        // when
+        cartController.addToCart(cartRequest).join();
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
+
+        // then
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCodeValue());
+
+        final CartResponse cartResponse = response.getBody();
+        assertNotNull(cartResponse);
+        assertEquals(1, cartResponse.getLines().size());
+        assertEquals(1000, quantityOf(cartResponse, item));
+        assertEquals(1000, cartResponse.getItems().size());
+        assertEquals(new BigDecimal("1500.00"), cartResponse.getTotal());
     }
 
     @Test
@@ -109,6 +206,7 @@ public class CartControllerTest {
         final Cart cart = new Cart();
         cart.setUser(user);
         user.setCart(cart);
+        stubCart(cart, 12L);
 
         // request body
         final ModifyCartRequest cartRequest = new ModifyCartRequest();
@@ -117,7 +215,7 @@ public class CartControllerTest {
         cartRequest.setUsername(username);
 
         // when
-        final ResponseEntity<Cart> response = cartController.addToCart(cartRequest);
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
 
         // then
         assertNotNull(response);
@@ -148,6 +246,7 @@ public class CartControllerTest {
         final Cart cart = new Cart();
         cart.setUser(user);
         user.setCart(cart);
+        stubCart(cart, 13L);
 
         // request body
         final ModifyCartRequest cartRequest = new ModifyCartRequest();
@@ -156,7 +255,7 @@ public class CartControllerTest {
         cartRequest.setUsername(username);
 
         // when
-        final ResponseEntity<Cart> response = cartController.addToCart(cartRequest);
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
 
         // then
         assertNotNull(response);
@@ -187,6 +286,7 @@ public class CartControllerTest {
         cart.setItems(new LinkedList<>(Arrays.asList(item)));
         cart.setUser(user);
         user.setCart(cart);
+        stubCart(cart, 14L);
 
         when(userRepository.findByUsername(username)).thenReturn(user);
 
@@ -197,17 +297,52 @@ public class CartControllerTest {
         cartRequest.setUsername(username);
 
         // when
-        final ResponseEntity<Cart> response = cartController.removeFromCart(cartRequest);
+        final ResponseEntity<CartResponse> response = cartController.removeFromCart(cartRequest).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final Cart cartResponse = response.getBody();
+        final CartResponse cartResponse = response.getBody();
         assertNotNull(cartResponse);
         assertEquals(0, cartResponse.getItems().size());
     }
 
+    @Test
+    public void shouldNotRemoveMoreUnitsThanInCart() {
+        // given
+        final String username = "test10";
+        final User user = createUser(10L, username, "testPassword10");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final long itemId = 10L;
+        final Item item = createItem(itemId, "itemTest10", "2.00", "precious item10");
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+
+        final Cart cart = new Cart();
+        cart.addItem(item, 3);
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 15L);
+
+        final ModifyCartRequest cartRequest = new ModifyCartRequest();
+        cartRequest.setItemId(itemId);
+        cartRequest.setQuantity(5);
+        cartRequest.setUsername(username);
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.removeFromCart(cartRequest).join();
+
+        // then
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCodeValue());
+
+        final CartResponse cartResponse = response.getBody();
+        assertNotNull(cartResponse);
+        assertEquals(0, cartResponse.getLines().size());
+        assertEquals(0, cartResponse.getTotal().signum());
+    }
+
     @Test
     public void shouldThrowWhenRemoveFromCartAndUserNotFound() {
         // given
@@ -232,6 +367,7 @@ public class CartControllerTest {
         cart.setItems(new LinkedList<>(Arrays.asList(item)));
         cart.setUser(user);
         user.setCart(cart);
+        stubCart(cart, 16L);
 
         when(userRepository.findByUsername(username)).thenReturn(null);
 
@@ -242,7 +378,7 @@ public class CartControllerTest {
         cartRequest.setUsername(username);
 
         // when
-        final ResponseEntity<Cart> response = cartController.removeFromCart(cartRequest);
+        final ResponseEntity<CartResponse> response = cartController.removeFromCart(cartRequest).join();
 
         // then
         assertNotNull(response);
@@ -273,6 +409,7 @@ public class CartControllerTest {
         cart.setItems(new LinkedList<>(Arrays.asList(item)));
         cart.setUser(user);
         user.setCart(cart);
+        stubCart(cart, 17L);
 
         when(userRepository.findByUsername(username)).thenReturn(user);
 
@@ -283,13 +420,213 @@ public class CartControllerTest {
         cartRequest.setUsername(username);
 
         // when
-        final ResponseEntity<Cart> response = cartController.removeFromCart(cartRequest);
+        final ResponseEntity<CartResponse> response = cartController.removeFromCart(cartRequest).join();
 
         // then
         assertNotNull(response);
         assertEquals(404, response.getStatusCodeValue());
     }
 
+    @Test
+    public void shouldApplyBulkChangesWithOneItemQuery() {
+        // given
+        final String username = "test20";
+        final User user = createUser(20L, username, "testPassword20");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final Item first = createItem(20L, "itemTest20", "1.00", "precious item20");
+        final Item second = createItem(21L, "itemTest21", "2.50", "precious item21");
+        when(itemRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(first, second));
+
+        final Cart cart = new Cart();
+        cart.addItem(second, 4);
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 20L);
+
+        final BulkModifyCartRequest request = new BulkModifyCartRequest();
+        request.setUsername(username);
+        request.setChanges(Arrays.asList(new CartLineChange(20L, 3), new CartLineChange(21L, -1),
+                                         new CartLineChange(20L, -1)));
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.modify(request).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, quantityOf(response.getBody(), first));
+        assertEquals(3, quantityOf(response.getBody(), second));
+        assertEquals(new BigDecimal("9.50"), response.getBody().getTotal());
+        verify(itemRepository, times(1)).findAllById(anyIterable());
+        verify(itemRepository, never()).findById(anyLong());
+        verify(cartRepository, times(1)).saveAndFlush(cart);
+    }
+
+    @Test
+    public void shouldNotChangeCartWhenBulkChangeHasUnknownItem() {
+        // given
+        final String username = "test22";
+        final User user = createUser(22L, username, "testPassword22");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final Item item = createItem(22L, "itemTest22", "1.00", "precious item22");
+        when(itemRepository.findAllById(anyIterable())).thenReturn(Collections.singletonList(item));
+
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 22L);
+
+        final BulkModifyCartRequest request = new BulkModifyCartRequest();
+        request.setUsername(username);
+        request.setChanges(Arrays.asList(new CartLineChange(22L, 1), new CartLineChange(23L, 1)));
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.modify(request).join();
+
+        // then
+        assertEquals(404, response.getStatusCodeValue());
+        assertEquals(0, cart.getQuantity(item));
+        verify(cartRepository, never()).saveAndFlush(any(Cart.class));
+    }
+
+    @Test
+    public void shouldRefuseToOverfillCartLine() {
+        // given
+        final String username = "test24";
+        final User user = createUser(24L, username, "testPassword24");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final Item item = createItem(24L, "itemTest24", "1.00", "precious item24");
+        when(itemRepository.findById(24L)).thenReturn(Optional.of(item));
+
+        final Cart cart = new Cart();
+        cart.addItem(item, Cart.MAX_LINE_QUANTITY - 1);
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 24L);
+
+        final ModifyCartRequest cartRequest = new ModifyCartRequest();
+        cartRequest.setItemId(24L);
+        cartRequest.setQuantity(2);
+        cartRequest.setUsername(username);
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
+
+        // then
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals(Cart.MAX_LINE_QUANTITY - 1, cart.getQuantity(item));
+        assertEquals(new BigDecimal("9999.00"), cart.getTotal());
+        verify(cartRepository, never()).saveAndFlush(any(Cart.class));
+    }
+
+    @Test
+    public void shouldRejectQuantityAboveLineLimit() {
+        // given
+        final ModifyCartRequest cartRequest = new ModifyCartRequest();
+        cartRequest.setItemId(25L);
+        cartRequest.setQuantity(Integer.MAX_VALUE);
+        cartRequest.setUsername("test25");
+
+        // when
+        final ResponseEntity<CartResponse> added = cartController.addToCart(cartRequest).join();
+        final ResponseEntity<CartResponse> removed = cartController.removeFromCart(cartRequest).join();
+
+        // then
+        assertEquals(400, added.getStatusCodeValue());
+        assertEquals(400, removed.getStatusCodeValue());
+        verify(userRepository, never()).findByUsername("test25");
+    }
+
+    @Test
+    public void shouldNotChangeCartWhenBulkChangeOverfillsLine() {
+        // given
+        final String username = "test26";
+        final User user = createUser(26L, username, "testPassword26");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final Item first = createItem(26L, "itemTest26", "1.00", "precious item26");
+        final Item second = createItem(27L, "itemTest27", "1.00", "precious item27");
+        when(itemRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(first, second));
+
+        final Cart cart = new Cart();
+        cart.addItem(second, 1);
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 26L);
+
+        final BulkModifyCartRequest request = new BulkModifyCartRequest();
+        request.setUsername(username);
+        request.setChanges(Arrays.asList(new CartLineChange(26L, 5), new CartLineChange(27L, Cart.MAX_LINE_QUANTITY)));
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.modify(request).join();
+
+        // then
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals(0, cart.getQuantity(first));
+        assertEquals(1, cart.getQuantity(second));
+        verify(cartRepository, never()).saveAndFlush(any(Cart.class));
+    }
+
+    @Test
+    public void shouldLeaveOutExpandedItemsOfLargeCart() {
+        // given
+        final String username = "test28";
+        final User user = createUser(28L, username, "testPassword28");
+        when(userRepository.findByUsername(username)).thenReturn(user);
+
+        final Item item = createItem(28L, "itemTest28", "1.00", "precious item28");
+        when(itemRepository.findById(28L)).thenReturn(Optional.of(item));
+
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        stubCart(cart, 28L);
+
+        final ModifyCartRequest cartRequest = new ModifyCartRequest();
+        cartRequest.setItemId(28L);
+        cartRequest.setQuantity(LineItem.MAX_EXPANDED_ITEMS + 1);
+        cartRequest.setUsername(username);
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.addToCart(cartRequest).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(LineItem.MAX_EXPANDED_ITEMS + 1, quantityOf(response.getBody(), item));
+        assertNull(response.getBody().getItems());
+        assertNull(cart.getItems());
+    }
+
+    @Test
+    public void shouldRejectEmptyBulkChange() {
+        // given
+        final BulkModifyCartRequest request = new BulkModifyCartRequest();
+        request.setUsername("test23");
+        request.setChanges(Collections.emptyList());
+
+        // when
+        final ResponseEntity<CartResponse> response = cartController.modify(request).join();
+
+        // then
+        assertEquals(400, response.getStatusCodeValue());
+        verify(userRepository, never()).findByUsername("test23");
+    }
+
+    private static int quantityOf(CartResponse cart, Item item) {
+        return cart.getLines().stream()
+                   .filter(line -> line.getItem().getId().equals(item.getId()))
+                   .mapToInt(LineItemResponse::getQuantity)
+                   .sum();
+    }
+
+    private void stubCart(Cart cart, Long id) {
+        cart.setId(id);
+        when(cartRepository.findById(id)).thenReturn(Optional.of(cart));
+    }
+
     public User createUser(Long id, String username, String password) {
         final User user = new User();
         user.setId(id);
@@ -0,0 +1,138 @@
+package com.example.demo.controllers;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import java.math.BigDecimal;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ETags and {@code If-None-Match} end to end, through the security filters, which must leave the tags and the
+ * revalidation directive of these responses alone.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ConditionalRequestsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String token;
+
+    @Before
+    public void setUp() {
+        if (userRepository.findByUsername("etag-test") == null) {
+            final String signUp = "{\"username\":\"etag-test\",\"password\":\"thePassword\",\"mirrorPassword\":\"thePassword\"}";
+            restTemplate.postForEntity("/api/user/create", request(signUp, null, null), String.class);
+        }
+        token = restTemplate.postForEntity("/login", request("{\"username\":\"etag-test\",\"password\":\"thePassword\"}", null, null),
+                                           String.class)
+                            .getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        assertNotNull(token);
+    }
+
+    @Test
+    public void shouldAnswerUnchangedCatalogWithNotModified() {
+        // given
+        final ResponseEntity<String> first = get("/api/item", null);
+        final String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+        assertEquals("no-cache", first.getHeaders().getCacheControl());
+        assertEquals("no-cache, no-store, max-age=0, must-revalidate", get("/api/item/page", null).getHeaders().getCacheControl());
+
+        // when
+        final ResponseEntity<String> unchanged = get("/api/item", etag);
+        final ResponseEntity<String> single = get("/api/item/1", etag);
+
+        // then
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertEquals(etag, unchanged.getHeaders().getETag());
+        assertNull(unchanged.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, single.getStatusCode());
+
+        // when
+        final Item item = new Item();
+        item.setName("Conditional Widget");
+        item.setPrice(new BigDecimal("1.99"));
+        item.setDescription("A widget that changes the catalog");
+        itemRepository.save(item);
+        final ResponseEntity<String> changed;
+        try {
+            changed = get("/api/item", etag);
+        } finally {
+            itemRepository.delete(item);
+        }
+
+        // then
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertTrue(changed.getBody().contains("Conditional Widget"));
+    }
+
+    @Test
+    public void shouldAnswerUnchangedOrderHistoryWithNotModified() {
+        // given
+        final ResponseEntity<String> first = get("/api/order/history/etag-test", null);
+        final String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+
+        // when
+        final ResponseEntity<String> unchanged = get("/api/order/history/etag-test", etag);
+
+        // then
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+
+        // when
+        restTemplate.exchange("/api/cart/addToCart", HttpMethod.POST,
+                              request("{\"username\":\"etag-test\",\"itemId\":1,\"quantity\":1}", token, null), String.class);
+        assertEquals(HttpStatus.OK, restTemplate.exchange("/api/order/submit/etag-test", HttpMethod.POST,
+                                                          request(null, token, null), String.class).getStatusCode());
+        final ResponseEntity<String> changed = get("/api/order/history/etag-test", etag);
+
+        // then
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertFalse(changed.getBody().equals("[]"));
+    }
+
+    private ResponseEntity<String> get(final String path, final String ifNoneMatch) {
+        return restTemplate.exchange(path, HttpMethod.GET, request(null, token, ifNoneMatch), String.class);
+    }
+
+    private static HttpEntity<String> request(final String body, final String token, final String ifNoneMatch) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -1,18 +1,34 @@
 package com.example.demo.controllers;
 
+import com.example.demo.catalog.CatalogVersion;
+import com.example.demo.catalog.ItemChangedEvent;
+import com.example.demo.catalog.ItemSearchIndex;
+import com.example.demo.jdbc.JdbcExecutor;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.responses.ItemResponse;
 import com.example.demo.utils.InjectDependencies;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManagerFactory;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ItemControllerTest {
@@ -21,10 +37,18 @@ public class ItemControllerTest {
 
     private ItemRepository itemRepository = mock(ItemRepository.class);
 
+    private ItemSearchIndex itemSearchIndex = new ItemSearchIndex();
+
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
     @Before
     public void setUp() {
         itemController = new ItemController();
+
+        InjectDependencies.injectObjects(itemController, "jdbcExecutor", new JdbcExecutor(mock(EntityManagerFactory.class), false, 1, 1, 1));
         InjectDependencies.injectObjects(itemController, "itemRepository", itemRepository);
+        InjectDependencies.injectObjects(itemController, "itemSearchIndex", itemSearchIndex);
+        InjectDependencies.injectObjects(itemController, "catalogVersion", catalogVersion);
     }
 
     @Test
@@ -36,43 +60,138 @@ public class ItemControllerTest {
         final String description = "my precious item1";
         final Item item1 = createItem(id, name, price, description);
         final List<Item> items = Collections.singletonList(item1);
-        when(itemRepository.findAll()).thenReturn(items);
+        when(itemRepository.findAllResponses()).thenReturn(responsesOf(items));
 
         // when
-        final ResponseEntity<List<Item>> response = itemController.getItems();
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItems(null).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final List<Item> currentItems = response.getBody();
+        final List<ItemResponse> currentItems = response.getBody();
         assertNotNull(currentItems);
         assertEquals(1, currentItems.size());
 
-        final Item onlyItem = currentItems.get(0);
+        final ItemResponse onlyItem = currentItems.get(0);
         assertEquals(onlyItem.getId(), id);
         assertEquals(onlyItem.getPrice(), new BigDecimal(price));
         assertEquals(onlyItem.getName(), name);
         assertEquals(onlyItem.getDescription(), description);
     }
 
+    @Test
+    public void shouldAnswerUnchangedCatalogWithoutReadingIt() {
+        // given
+        when(itemRepository.findAllResponses()).thenReturn(Collections.emptyList());
+        final String etag = itemController.getItems(null).join().getHeaders().getETag();
+
+        // when
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItems("\"other\", W/" + etag).join();
+        final ResponseEntity<ItemResponse> single = itemController.getItemById(1L, etag).join();
+
+        // then
+        assertEquals(304, response.getStatusCodeValue());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        assertEquals(304, single.getStatusCodeValue());
+        verify(itemRepository, times(1)).findAllResponses();
+        verify(itemRepository, never()).findResponseById(anyLong());
+    }
+
+    @Test
+    public void shouldReturnCatalogAgainOnceItChanged() {
+        // given
+        when(itemRepository.findAllResponses()).thenReturn(Collections.emptyList());
+        final String etag = itemController.getItems(null).join().getHeaders().getETag();
+
+        // when
+        catalogVersion.onItemChanged(new ItemChangedEvent(createItem(1L, "item1", "2.99", "changed"), ItemChangedEvent.Type.SAVED));
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItems(etag).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertNotNull(response.getHeaders().getETag());
+        assertNotEquals(etag, response.getHeaders().getETag());
+    }
+
     @Test
     public void shouldReturnEmptyItems() {
         // given
-        when(itemRepository.findAll()).thenReturn(Collections.emptyList());
+        when(itemRepository.findAllResponses()).thenReturn(Collections.emptyList());
 
         // when
-        final ResponseEntity<List<Item>> response = itemController.getItems();
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItems(null).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final List<Item> currentItems = response.getBody();
+        final List<ItemResponse> currentItems = response.getBody();
         assertNotNull(currentItems);
         assertEquals(0, currentItems.size());
     }
 
+    @Test
+    public void shouldReturnFullPageWithNextCursor() {
+        // given
+        final Item item1 = createItem(11L, "item11", "1.99", "my precious item11");
+        final Item item2 = createItem(12L, "item12", "2.99", "my precious item12");
+        when(itemRepository.findResponsesAfter(10L, PageRequest.of(0, 2))).thenReturn(responsesOf(Arrays.asList(item1, item2)));
+
+        // when
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItemsPage(10L, 2).join();
+
+        // then
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, response.getBody().size());
+        assertEquals("12", response.getHeaders().getFirst(ItemController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void shouldReturnLastPageWithoutNextCursor() {
+        // given
+        final Item item1 = createItem(13L, "item13", "1.99", "my precious item13");
+        when(itemRepository.findResponsesAfter(12L, PageRequest.of(0, ItemController.MAX_PAGE_SIZE)))
+                .thenReturn(Collections.singletonList(ItemResponse.of(item1)));
+
+        // when
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItemsPage(12L, 1_000_000).join();
+
+        // then
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().size());
+        assertFalse(response.getHeaders().containsKey(ItemController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void shouldSearchItems() {
+        // given
+        itemSearchIndex.put(createItem(21L, "Round Widget", "2.99", "A widget that is round"));
+        itemSearchIndex.put(createItem(22L, "Square Widget", "1.99", "A widget that is square"));
+
+        // when
+        final ResponseEntity<List<ItemResponse>> response = itemController.searchItems("squ", 10);
+
+        // then
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(1, response.getBody().size());
+        assertEquals(Long.valueOf(22L), response.getBody().get(0).getId());
+    }
+
+    @Test
+    public void shouldReturnNotFoundWhenSearchMatchesNothing() {
+        // when
+        final ResponseEntity<List<ItemResponse>> response = itemController.searchItems("nothing", 10);
+
+        // then
+        assertNotNull(response);
+        assertEquals(404, response.getStatusCodeValue());
+    }
+
     @Test
     public void shouldReturnItemById() {
         // given
@@ -81,16 +200,16 @@ public class ItemControllerTest {
         final String price = "4.99";
         final String description = "my precious item2";
         final Item item1 = createItem(id, name, price, description);
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item1));
+        when(itemRepository.findResponseById(id)).thenReturn(Optional.of(ItemResponse.of(item1)));
 
         // when
-        final ResponseEntity<Item> response = itemController.getItemById(id);
+        final ResponseEntity<ItemResponse> response = itemController.getItemById(id, null).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final Item onlyItem = response.getBody();
+        final ItemResponse onlyItem = response.getBody();
         assertNotNull(onlyItem);
         assertEquals(onlyItem.getId(), id);
         assertEquals(onlyItem.getPrice(), new BigDecimal(price));
@@ -101,16 +220,29 @@ public class ItemControllerTest {
     @Test
     public void shouldReturnEmptyItemById() {
         // given
-        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemRepository.findResponseById(1L)).thenReturn(Optional.empty());
 
         // when
-        final ResponseEntity<Item> response = itemController.getItemById(1L);
+        final ResponseEntity<ItemResponse> response = itemController.getItemById(1L, null).join();
 
         // then
         assertNotNull(response);
         assertEquals(404, response.getStatusCodeValue());
     }
 
+    @Test
+    public void shouldNotAnswerUnknownItemAsUnchangedForAnyTag() {
+        // given
+        when(itemRepository.findResponseById(1L)).thenReturn(Optional.empty());
+
+        // when
+        final ResponseEntity<ItemResponse> response = itemController.getItemById(1L, "*").join();
+
+        // then
+        assertEquals(404, response.getStatusCodeValue());
+        verify(itemRepository).findResponseById(1L);
+    }
+
     @Test
     public void shouldReturnItemsByName() {
         // given
@@ -120,20 +252,20 @@ public class ItemControllerTest {
         final String description = "my precious item3";
         final Item item1 = createItem(id, name, price, description);
         final List<Item> items = Collections.singletonList(item1);
-        when(itemRepository.findByName(name)).thenReturn(items);
+        when(itemRepository.findResponsesByName(name)).thenReturn(responsesOf(items));
 
         // when
-        final ResponseEntity<List<Item>> response = itemController.getItemsByName(name);
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItemsByName(name).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final List<Item> currentItems = response.getBody();
+        final List<ItemResponse> currentItems = response.getBody();
         assertNotNull(currentItems);
         assertEquals(1, currentItems.size());
 
-        final Item onlyItem = currentItems.get(0);
+        final ItemResponse onlyItem = currentItems.get(0);
         assertEquals(onlyItem.getId(), id);
         assertEquals(onlyItem.getPrice(), new BigDecimal(price));
         assertEquals(onlyItem.getName(), name);
@@ -143,10 +275,10 @@ public class ItemControllerTest {
     @Test
     public void shouldReturnEmptyItemsByName() {
         // given
-        when(itemRepository.findByName("bla")).thenReturn(Collections.emptyList());
+        when(itemRepository.findResponsesByName("bla")).thenReturn(Collections.emptyList());
 
         // when
-        final ResponseEntity<List<Item>> response = itemController.getItemsByName("bla");
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItemsByName("bla").join();
 
         // then
         assertNotNull(response);
@@ -156,16 +288,20 @@ public class ItemControllerTest {
     @Test
     public void shouldReturnEmptyItemsByNameNull() {
         // given
-        when(itemRepository.findByName("bla")).thenReturn(null);
+        when(itemRepository.findResponsesByName("bla")).thenReturn(null);
 
         // when
-        final ResponseEntity<List<Item>> response = itemController.getItemsByName("bla");
+        final ResponseEntity<List<ItemResponse>> response = itemController.getItemsByName("bla").join();
 
         // then
         assertNotNull(response);
         assertEquals(404, response.getStatusCodeValue());
     }
 
+    private static List<ItemResponse> responsesOf(List<Item> items) {
+        return items.stream().map(ItemResponse::of).collect(Collectors.toList());
+    }
+
     Item createItem(Long id, String name, String price, String description) {
         final Item item = new Item();
         item.setId(id);
@@ -1,38 +1,82 @@
 package com.example.demo.controllers;
 
+import com.example.demo.cart.CartStore;
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.jdbc.JdbcExecutor;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository.OrderLine;
+import com.example.demo.model.persistence.repositories.OrderRepository.OrderSummary;
 import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.OrderResponse;
+import com.example.demo.order.OrderChangedEvent;
+import com.example.demo.order.OrderHistoryVersions;
+import com.example.demo.order.OrderStatus;
+import com.example.demo.order.OrderWriter;
+import com.example.demo.replica.ReadRouting;
 import com.example.demo.utils.InjectDependencies;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import javax.persistence.EntityManagerFactory;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.ResponseEntity;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class OrderControllerTest {
 
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
     private OrderController orderController;
 
     private UserRepository userRepository = mock(UserRepository.class);
 
     private OrderRepository orderRepository = mock(OrderRepository.class);
 
+    private OrderWriter orderWriter = mock(OrderWriter.class);
+
+    private CartRepository cartRepository = mock(CartRepository.class);
+
+    private OrderHistoryVersions orderHistoryVersions = new OrderHistoryVersions();
+
     @Before
     public void setUp() {
         orderController = new OrderController();
 
+        InjectDependencies.injectObjects(orderController, "jdbcExecutor", new JdbcExecutor(mock(EntityManagerFactory.class), false, 1, 1, 1));
+
         InjectDependencies.injectObjects(orderController, "userRepository", userRepository);
         InjectDependencies.injectObjects(orderController, "orderRepository", orderRepository);
+        InjectDependencies.injectObjects(orderController, "orderWriter", orderWriter);
+        InjectDependencies.injectObjects(orderController, "cartRepository", cartRepository);
+        InjectDependencies.injectObjects(orderController, "cartStore", new CartStore());
+        InjectDependencies.injectObjects(orderController, "userIdentityCache", new UserIdentityCache(100, 600));
+        InjectDependencies.injectObjects(orderController, "orderHistoryVersions", orderHistoryVersions);
+        InjectDependencies.injectObjects(orderController, "readRouting", new ReadRouting(false, true));
     }
 
     @Test
@@ -64,16 +108,16 @@ public class OrderControllerTest {
         user.setCart(cart);
 
         // when
-        final ResponseEntity<UserOrder> response = orderController.submit(username);
+        final ResponseEntity<OrderResponse> response = orderController.submit(username).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-       final UserOrder responseUserOrder = response.getBody();
+       final OrderResponse responseUserOrder = response.getBody();
        assertEquals(cart.getItems().size(), responseUserOrder.getItems().size());
         assertEquals(cart.getTotal(), responseUserOrder.getTotal());
-        assertEquals(cart.getUser(), responseUserOrder.getUser());
+        assertEquals(cart.getUser().getUsername(), responseUserOrder.getUser().getUsername());
     }
 
     @Test
@@ -105,7 +149,7 @@ public class OrderControllerTest {
         user.setCart(cart);
 
         // when
-        final ResponseEntity<UserOrder> response = orderController.submit(username);
+        final ResponseEntity<OrderResponse> response = orderController.submit(username).join();
 
         // then
         assertNotNull(response);
@@ -141,16 +185,97 @@ public class OrderControllerTest {
         user.setCart(cart);
 
         // when
-        final ResponseEntity<UserOrder> response = orderController.submit(username);
+        final ResponseEntity<OrderResponse> response = orderController.submit(username).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final UserOrder responseUserOrder = response.getBody();
+        final OrderResponse responseUserOrder = response.getBody();
         assertEquals(cart.getItems().size(), responseUserOrder.getItems().size());
         assertEquals(cart.getTotal(), responseUserOrder.getTotal());
-        assertEquals(cart.getUser(), responseUserOrder.getUser());
+        assertEquals(cart.getUser().getUsername(), responseUserOrder.getUser().getUsername());
+    }
+
+    @Test
+    public void shouldQueueOrderWhenWriteBehindIsEnabled() {
+        // given
+        final User user = createUser(6L, "test6", "testPassword6");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        cart.addItem(createItem(6L, "itemTest6", "1.99", "precious item6"));
+        user.setCart(cart);
+        when(userRepository.findByUsername("test6")).thenReturn(user);
+        when(orderWriter.isEnabled()).thenReturn(true);
+        when(orderWriter.accept(any())).thenReturn(true);
+
+        // when
+        final ResponseEntity<OrderResponse> response = orderController.submit("test6").join();
+
+        // then
+        assertEquals(202, response.getStatusCodeValue());
+        assertEquals("/api/order/status/" + response.getBody().getReference(),
+                     response.getHeaders().getLocation().toString());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    public void shouldRefuseOrderWhenWriteBehindQueueIsFull() {
+        // given
+        final User user = createUser(7L, "test7", "testPassword7");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        when(userRepository.findByUsername("test7")).thenReturn(user);
+        when(orderWriter.isEnabled()).thenReturn(true);
+        when(orderWriter.accept(any())).thenReturn(false);
+
+        // when
+        final ResponseEntity<OrderResponse> response = orderController.submit("test7").join();
+
+        // then
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    public void shouldGetOrderStatus() {
+        // given
+        when(orderWriter.status("ref-1")).thenReturn(new OrderStatus("ref-1", OrderStatus.State.PERSISTED, 8L));
+
+        // when
+        final ResponseEntity<OrderStatus> found = orderController.getOrderStatus("ref-1").join();
+        final ResponseEntity<OrderStatus> missing = orderController.getOrderStatus("ref-2").join();
+
+        // then
+        assertEquals(200, found.getStatusCodeValue());
+        assertEquals(OrderStatus.State.PERSISTED, found.getBody().getState());
+        assertEquals(404, missing.getStatusCodeValue());
+    }
+
+    @Test
+    public void shouldResolveKnownUserWithoutLookingUpUsername() {
+        // given
+        final User user = createUser(8L, "test8", "testPassword8");
+        final Cart cart = new Cart();
+        cart.setId(8L);
+        cart.setUser(user);
+        user.setCart(cart);
+        when(userRepository.findByUsername("test8")).thenReturn(user);
+        when(cartRepository.findById(8L)).thenReturn(Optional.of(cart));
+        when(orderRepository.findSummariesByUserIdBefore(eq(8L), anyLong(), any())).thenReturn(Collections.emptyList());
+
+        // when
+        orderController.submit("test8").join();
+        final ResponseEntity<OrderResponse> response = orderController.submit("test8").join();
+        final ResponseEntity<List<OrderResponse>> history =
+                orderController.getOrdersForUser("test8", Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(user.getId(), response.getBody().getUser().getId());
+        assertEquals(200, history.getStatusCodeValue());
+        verify(userRepository, times(1)).findByUsername("test8");
     }
 
     @Test
@@ -181,21 +306,102 @@ public class OrderControllerTest {
         cart.setId(cartId);
         user.setCart(cart);
 
-        final UserOrder userOrder = new UserOrder();
-        userOrder.setItems(Collections.singletonList(item));
-        userOrder.setTotal(item.getPrice());
-        userOrder.setUser(user);
-        when(orderRepository.findByUser(user)).thenReturn(Collections.singletonList(userOrder));
+        when(orderRepository.findSummariesByUserIdBefore(eq(user.getId()), eq(Long.MAX_VALUE), any()))
+                .thenReturn(Collections.singletonList(summary(1L, item.getPriceInMinorUnits())));
+        when(orderRepository.findLinesByOrderIdIn(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(line(1L, item, 1)));
 
         // when
-        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(username);
+        final ResponseEntity<List<OrderResponse>> response =
+                orderController.getOrdersForUser(username, Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null).join();
 
         // then
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
 
-        final List<UserOrder> responseListUserOrder = response.getBody();
+        final List<OrderResponse> responseListUserOrder = response.getBody();
         assertEquals(cart.getItems().size(), responseListUserOrder.size());
+        assertEquals(item.getPrice(), responseListUserOrder.get(0).getTotal());
+        assertEquals(name, responseListUserOrder.get(0).getLines().get(0).getItem().getName());
+        assertEquals(username, responseListUserOrder.get(0).getUser().getUsername());
+        assertNull(response.getHeaders().getFirst(ItemController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void shouldAnswerUnchangedOrderHistoryWithoutTouchingRepositories() {
+        // given
+        final User user = createUser(6L, "test6", "testPassword6");
+        when(userRepository.findByUsername("test6")).thenReturn(user);
+        when(orderRepository.findSummariesByUserIdBefore(eq(6L), anyLong(), any())).thenReturn(Collections.emptyList());
+        final String etag = orderController.getOrdersForUser("test6", Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null)
+                .join().getHeaders().getETag();
+
+        // when
+        final ResponseEntity<List<OrderResponse>> response =
+                orderController.getOrdersForUser("test6", Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, etag).join();
+
+        // then
+        assertNotNull(etag);
+        assertEquals(304, response.getStatusCodeValue());
+        assertEquals(etag, response.getHeaders().getETag());
+        verify(userRepository, times(1)).findByUsername("test6");
+        verify(orderRepository, times(1)).findSummariesByUserIdBefore(eq(6L), anyLong(), any());
+    }
+
+    @Test
+    public void shouldReturnOrderHistoryAgainOnceAnOrderWasPlaced() {
+        // given
+        final User user = createUser(7L, "test7", "testPassword7");
+        when(userRepository.findByUsername("test7")).thenReturn(user);
+        when(orderRepository.findSummariesByUserIdBefore(eq(7L), anyLong(), any())).thenReturn(Collections.emptyList());
+        final String etag = orderController.getOrdersForUser("test7", Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null)
+                .join().getHeaders().getETag();
+        final UserOrder order = new UserOrder();
+        order.setUser(user);
+
+        // when
+        orderHistoryVersions.onOrderChanged(new OrderChangedEvent(order, OrderChangedEvent.Type.CREATED));
+        final ResponseEntity<List<OrderResponse>> response =
+                orderController.getOrdersForUser("test7", Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, etag).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertNotEquals(etag, response.getHeaders().getETag());
+    }
+
+    @Test
+    public void shouldReturnNextCursorWhenOrderHistoryPageIsFull() {
+        // given
+        final User user = createUser(4L, "test4", "testPassword4");
+        when(userRepository.findByUsername("test4")).thenReturn(user);
+
+        when(orderRepository.findSummariesByUserIdBefore(eq(user.getId()), eq(10L), eq(PageRequest.of(0, 2))))
+                .thenReturn(Arrays.asList(summary(9L, 0), summary(7L, 0)));
+
+        // when
+        final ResponseEntity<List<OrderResponse>> response = orderController.getOrdersForUser("test4", 10L, 2, null).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(2, response.getBody().size());
+        assertEquals("7", response.getHeaders().getFirst(ItemController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void shouldNotQueryOrdersWhenHistoryIsEmpty() {
+        // given
+        final User user = createUser(5L, "test5", "testPassword5");
+        when(userRepository.findByUsername("test5")).thenReturn(user);
+        when(orderRepository.findSummariesByUserIdBefore(eq(user.getId()), anyLong(), any())).thenReturn(Collections.emptyList());
+
+        // when
+        final ResponseEntity<List<OrderResponse>> response =
+                orderController.getOrdersForUser("test5", Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null).join();
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertTrue(response.getBody().isEmpty());
+        verify(orderRepository, never()).findLinesByOrderIdIn(any());
     }
 
     @Test
@@ -226,20 +432,39 @@ public class OrderControllerTest {
         cart.setId(cartId);
         user.setCart(cart);
 
-        final UserOrder userOrder = new UserOrder();
-        userOrder.setItems(Collections.singletonList(item));
-        userOrder.setTotal(item.getPrice());
-        userOrder.setUser(user);
-        when(orderRepository.findByUser(user)).thenReturn(Collections.singletonList(userOrder));
+        when(orderRepository.findSummariesByUserIdBefore(eq(user.getId()), eq(Long.MAX_VALUE), any()))
+                .thenReturn(Collections.singletonList(summary(1L, item.getPriceInMinorUnits())));
+        when(orderRepository.findLinesByOrderIdIn(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(line(1L, item, 1)));
 
         // when
-        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(username);
+        final ResponseEntity<List<OrderResponse>> response =
+                orderController.getOrdersForUser(username, Long.MAX_VALUE, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null).join();
 
         // then
         assertNotNull(response);
         assertEquals(404, response.getStatusCodeValue());
     }
 
+    private static OrderSummary summary(long id, long total) {
+        final Map<String, Object> columns = new HashMap<>();
+        columns.put("id", id);
+        columns.put("reference", "ref-" + id);
+        columns.put("total", total);
+        return PROJECTIONS.createProjection(OrderSummary.class, columns);
+    }
+
+    private static OrderLine line(long orderId, Item item, int quantity) {
+        final Map<String, Object> columns = new HashMap<>();
+        columns.put("orderId", orderId);
+        columns.put("itemId", item.getId());
+        columns.put("name", item.getName());
+        columns.put("price", item.getPriceInMinorUnits());
+        columns.put("description", item.getDescription());
+        columns.put("quantity", quantity);
+        return PROJECTIONS.createProjection(OrderLine.class, columns);
+    }
+
     public User createUser(Long id, String username, String password) {
         final User user = new User();
         user.setId(id);
@@ -0,0 +1,126 @@
+package com.example.demo.controllers;
+
+import com.example.demo.identity.UserIdentityCache;
+import com.example.demo.jdbc.JdbcExecutor;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.DaySalesResponse;
+import com.example.demo.model.responses.ItemSalesResponse;
+import com.example.demo.model.responses.UserResponse;
+import com.example.demo.model.responses.UserSalesResponse;
+import com.example.demo.order.SalesAggregates;
+import com.example.demo.utils.InjectDependencies;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SalesControllerTest {
+
+    private SalesController salesController;
+
+    private SalesAggregates salesAggregates = mock(SalesAggregates.class);
+
+    private UserRepository userRepository = mock(UserRepository.class);
+
+    @Before
+    public void setUp() {
+        salesController = new SalesController();
+
+        InjectDependencies.injectObjects(salesController, "salesAggregates", salesAggregates);
+        InjectDependencies.injectObjects(salesController, "userIdentityCache", new UserIdentityCache(100, 600));
+        InjectDependencies.injectObjects(salesController, "userRepository", userRepository);
+        InjectDependencies.injectObjects(salesController, "jdbcExecutor", new JdbcExecutor(mock(EntityManagerFactory.class), false, 1, 1, 1));
+        when(salesAggregates.day(any(LocalDate.class))).then(invocation -> new DaySalesResponse(invocation.getArgument(0), 1, 250));
+    }
+
+    @Test
+    public void shouldReturnEveryDayOfTheRange() {
+        // when
+        final ResponseEntity<List<DaySalesResponse>> response = salesController.getDays("2026-02-27", "2026-03-02");
+
+        // then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().size());
+        assertEquals(LocalDate.parse("2026-02-27"), response.getBody().get(0).getDate());
+        assertEquals(LocalDate.parse("2026-03-01"), response.getBody().get(2).getDate());
+        assertEquals(new BigDecimal("2.50"), response.getBody().get(2).getRevenue());
+    }
+
+    @Test
+    public void shouldReturnTheLastDaysByDefault() {
+        // when
+        final ResponseEntity<List<DaySalesResponse>> response = salesController.getDays(null, null);
+
+        // then
+        assertEquals(SalesController.DEFAULT_DAYS, response.getBody().size());
+        assertEquals(LocalDate.now(ZoneOffset.UTC), response.getBody().get(SalesController.DEFAULT_DAYS - 1).getDate());
+    }
+
+    @Test
+    public void shouldRefuseUnreadableAndTooLongRanges() {
+        assertEquals(HttpStatus.BAD_REQUEST, salesController.getDays("yesterday", null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, salesController.getDays("2026-03-02", "2026-03-01").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, salesController.getDays("2024-01-01", "2026-01-01").getStatusCode());
+    }
+
+    @Test
+    public void shouldBoundTheNumberOfTopItems() {
+        // given
+        final List<ItemSalesResponse> top = Collections.singletonList(new ItemSalesResponse(1L, "Round Widget", 3, 897));
+        when(salesAggregates.topItems(SalesController.MAX_TOP_ITEMS)).thenReturn(top);
+        when(salesAggregates.topItems(1)).thenReturn(top);
+
+        // when
+        final ResponseEntity<List<ItemSalesResponse>> many = salesController.getTopItems(Integer.MAX_VALUE);
+        final ResponseEntity<List<ItemSalesResponse>> none = salesController.getTopItems(0);
+
+        // then
+        assertEquals(top, many.getBody());
+        assertEquals(top, none.getBody());
+    }
+
+    @Test
+    public void shouldReturnSalesOfUserAndCacheTheIdentity() {
+        // given
+        final User user = new User();
+        user.setId(7L);
+        user.setUsername("test");
+        when(userRepository.findByUsername("test")).thenReturn(user);
+        when(salesAggregates.user(7L, "test")).thenReturn(new UserSalesResponse(new UserResponse(7L, "test"), 2, 1000));
+
+        // when
+        final ResponseEntity<UserSalesResponse> first = salesController.getUser("test").join();
+        final ResponseEntity<UserSalesResponse> second = salesController.getUser("test").join();
+
+        // then
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(2, first.getBody().getOrders());
+        assertEquals(new BigDecimal("10.00"), second.getBody().getSpend());
+        verify(userRepository, times(1)).findByUsername("test");
+    }
+
+    @Test
+    public void shouldNotFindSalesOfUnknownUser() {
+        // when
+        final ResponseEntity<UserSalesResponse> response = salesController.getUser("nobody").join();
+
+        // then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(salesAggregates, times(0)).user(anyLong(), anyString());
+    }
+}
@@ -1,18 +1,26 @@
 package com.example.demo.controllers;
 
+import com.example.demo.identity.UserIdentityCache;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.CreateUserRequest;
+import com.example.demo.replica.ReadRouting;
+import com.example.demo.security.PasswordHashingRejectedException;
 import com.example.demo.utils.InjectDependencies;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class UserControllerTest {
@@ -31,6 +39,8 @@ public class UserControllerTest {
         InjectDependencies.injectObjects(userController, "userRepository", userRepository);
         InjectDependencies.injectObjects(userController, "cartRepository", cartRepository);
         InjectDependencies.injectObjects(userController, "bCryptPasswordEncoder", bCryptPasswordEncoder);
+        InjectDependencies.injectObjects(userController, "userIdentityCache", new UserIdentityCache(100, 600));
+        InjectDependencies.injectObjects(userController, "readRouting", new ReadRouting(false, true));
     }
 
     @Test
@@ -55,6 +65,22 @@ public class UserControllerTest {
         assertEquals("hashedPassword", userResponse.getPassword());
     }
 
+    @Test
+    public void shouldRejectUserCreationWhenPasswordHashingIsSaturated() {
+        // given
+        final String password = "testPassword";
+        when(bCryptPasswordEncoder.encode(password))
+                .thenThrow(new PasswordHashingRejectedException(new RejectedExecutionException()));
+
+        // when
+        final ResponseEntity<User> response = createUser("test10", password, password);
+
+        // then
+        assertEquals(429, response.getStatusCodeValue());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     public void shouldNotCreateUserWhenPasswordIsEmpty() {
         // given
@@ -163,6 +189,27 @@ public class UserControllerTest {
         assertEquals(createdUserResponse.getUsername(), userResponse.getUsername());
     }
 
+    @Test
+    public void shouldFindKnownUserById() {
+        // given
+        final String username = "test9";
+        when(bCryptPasswordEncoder.encode("testPassword")).thenReturn("hashedPassword");
+        final User user = createUser(username, "testPassword", "testPassword").getBody();
+        user.setId(9L);
+        when(userRepository.findByUsername(username)).thenReturn(user);
+        when(userRepository.findById(9L)).thenReturn(Optional.of(user));
+        userController.findByUserName(username);
+
+        // when
+        final ResponseEntity<User> response = userController.findByUserName(username);
+
+        // then
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(user, response.getBody());
+        verify(userRepository, times(1)).findByUsername(username);
+        verify(userRepository, times(1)).findById(9L);
+    }
+
     @Test
     public void shouldNotFindUserByUsername() {
         // given
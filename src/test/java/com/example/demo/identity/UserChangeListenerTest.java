@@ -0,0 +1,51 @@
+package com.example.demo.identity;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserChangeListenerTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdentityCache userIdentityCache;
+
+    @Test
+    public void shouldInvalidateCachedIdentityWhenUserIsWritten() {
+        // given
+        final User user = new User();
+        user.setUsername("listener-test");
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        user.setCart(new Cart());
+        userRepository.save(user);
+        userIdentityCache.put(user);
+        assertNotNull(userIdentityCache.get("listener-test"));
+
+        // when
+        user.setUsername("listener-renamed");
+        userRepository.save(user);
+
+        // then
+        assertNull(userIdentityCache.get("listener-test"));
+
+        // when
+        userIdentityCache.put(user);
+        // by id, saving the rename bumped the cart version past the one this copy holds
+        userRepository.deleteById(user.getId());
+
+        // then
+        assertNull(userIdentityCache.get("listener-renamed"));
+    }
+}
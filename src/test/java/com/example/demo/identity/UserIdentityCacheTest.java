@@ -0,0 +1,136 @@
+package com.example.demo.identity;
+
+import com.example.demo.cache.ExpiringCache;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UserIdentityCacheTest {
+
+    private AtomicLong now;
+
+    private UserIdentityCache userIdentityCache;
+
+    @Before
+    public void setUp() {
+        now = new AtomicLong(System.currentTimeMillis());
+        userIdentityCache = new UserIdentityCache(new ExpiringCache<>(1000, now::get), 1000, now::get);
+    }
+
+    @Test
+    public void shouldCacheUserAndCartIds() {
+        // given
+        final User user = createUser(1L, "test1", 11L);
+
+        // when
+        userIdentityCache.put(user);
+        final UserIdentity identity = userIdentityCache.get("test1");
+
+        // then
+        assertEquals(1L, identity.getUserId());
+        assertEquals((Long) 11L, identity.getCartId());
+        assertEquals(1, userIdentityCache.getCache().getHitCount());
+    }
+
+    @Test
+    public void shouldExpireEntriesAfterTtl() {
+        // given
+        userIdentityCache.put(createUser(1L, "test1", 11L));
+
+        // when
+        now.addAndGet(1000);
+
+        // then
+        assertNull(userIdentityCache.get("test1"));
+    }
+
+    @Test
+    public void shouldInvalidateWhenUserIsCreatedOrChanged() {
+        // given
+        userIdentityCache.put(createUser(1L, "test1", 11L));
+        userIdentityCache.put(createUser(2L, "test2", 12L));
+
+        // when
+        userIdentityCache.onUserChanged(new UserChangedEvent(createUser(3L, "test1", 13L), UserChangedEvent.Type.CREATED));
+
+        // then
+        assertNull(userIdentityCache.get("test1"));
+
+        // when the user cached as test2 is renamed
+        userIdentityCache.onUserChanged(new UserChangedEvent(createUser(2L, "renamed", 12L), UserChangedEvent.Type.UPDATED));
+
+        // then
+        assertNull(userIdentityCache.get("test2"));
+    }
+
+    @Test
+    public void shouldStayBoundedAndConsistentUnderConcurrentAccess() throws Exception {
+        // given
+        final int users = 5000;
+        final int threads = 16;
+        final int operations = 20_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tasks.add(() -> {
+                int wrong = 0;
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operations; i++) {
+                    final long id = random.nextInt(users);
+                    final String username = "user" + id;
+                    final int action = random.nextInt(10);
+                    if (action == 0) {
+                        userIdentityCache.onUserChanged(
+                                new UserChangedEvent(createUser(id, username, id + users), UserChangedEvent.Type.UPDATED));
+                    } else if (action < 3) {
+                        userIdentityCache.put(createUser(id, username, id + users));
+                    } else {
+                        final UserIdentity identity = userIdentityCache.get(username);
+                        if (identity != null && (identity.getUserId() != id || identity.getCartId() != id + users)) {
+                            wrong++;
+                        }
+                    }
+                }
+                return wrong;
+            });
+        }
+
+        // when
+        int wrong = 0;
+        for (Future<Integer> result : executor.invokeAll(tasks)) {
+            wrong += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // then
+        final ExpiringCache<String, UserIdentity> cache = userIdentityCache.getCache();
+        assertEquals(0, wrong);
+        assertTrue(cache.size() <= cache.getMaximumSize());
+        assertTrue(cache.getHitCount() > 0);
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    private static User createUser(final long id, final String username, final long cartId) {
+        final Cart cart = new Cart();
+        cart.setId(cartId);
+        final User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setCart(cart);
+        return user;
+    }
+}
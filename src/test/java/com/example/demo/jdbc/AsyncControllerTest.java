@@ -0,0 +1,75 @@
+package com.example.demo.jdbc;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The controllers end to end with their database work on the {@link JdbcExecutor}, through the security filters and
+ * the asynchronous dispatch back to the servlet container.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+                properties = "ecommerce.async.enabled=true")
+public class AsyncControllerTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcExecutor jdbcExecutor;
+
+    @Test
+    public void shouldServeControllersFromJdbcThreads() {
+        // given
+        assertTrue(jdbcExecutor.isEnabled());
+        final String signUp = "{\"username\":\"async-test\",\"password\":\"thePassword\",\"mirrorPassword\":\"thePassword\"}";
+        assertEquals(HttpStatus.OK, restTemplate.postForEntity("/api/user/create", json(signUp, null), String.class)
+                                                .getStatusCode());
+        final ResponseEntity<String> login = restTemplate.postForEntity(
+                "/login", json("{\"username\":\"async-test\",\"password\":\"thePassword\"}", null), String.class);
+        final String token = login.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        assertNotNull(token);
+
+        // when
+        final ResponseEntity<String> item = restTemplate.exchange("/api/item/1", HttpMethod.GET, json(null, token), String.class);
+        final ResponseEntity<String> missing = restTemplate.exchange("/api/item/999999", HttpMethod.GET, json(null, token), String.class);
+        final ResponseEntity<String> cart = restTemplate.exchange(
+                "/api/cart/addToCart", HttpMethod.POST,
+                json("{\"username\":\"async-test\",\"itemId\":1,\"quantity\":2}", token), String.class);
+        final ResponseEntity<String> order = restTemplate.exchange("/api/order/submit/async-test", HttpMethod.POST,
+                                                                   json(null, token), String.class);
+        final ResponseEntity<String> history = restTemplate.exchange("/api/order/history/async-test", HttpMethod.GET,
+                                                                     json(null, token), String.class);
+
+        // then
+        assertEquals(HttpStatus.OK, item.getStatusCode());
+        assertTrue(item.getBody().contains("\"id\":1"));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+        assertEquals(HttpStatus.OK, cart.getStatusCode());
+        assertTrue(cart.getBody().contains("\"quantity\":2"));
+        assertEquals(HttpStatus.OK, order.getStatusCode());
+        assertEquals(HttpStatus.OK, history.getStatusCode());
+        assertTrue(history.getBody().contains("async-test"));
+    }
+
+    private static HttpEntity<String> json(final String body, final String token) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.jdbc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.DeferredResultMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompletedFutureReturnValueHandlerTest {
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private final ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+    private final ModelAndViewContainer mavContainer = new ModelAndViewContainer();
+
+    private final CompletedFutureReturnValueHandler handler = new CompletedFutureReturnValueHandler(Arrays.asList(
+            new DeferredResultMethodReturnValueHandler(),
+            new HttpEntityMethodProcessor(Collections.singletonList(new StringHttpMessageConverter()))));
+
+    private MethodParameter returnType;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        request.setAsyncSupported(true);
+        WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        returnType = new MethodParameter(CompletedFutureReturnValueHandlerTest.class.getDeclaredMethod("controller"), -1);
+    }
+
+    @Test
+    public void shouldWriteCompletedFutureWithoutAsyncDispatch() throws Exception {
+        // given
+        assertTrue(handler.supportsReturnType(returnType));
+
+        // when
+        handler.handleReturnValue(CompletableFuture.completedFuture(ResponseEntity.status(201).body("done")), returnType,
+                                  mavContainer, webRequest);
+
+        // then
+        assertFalse(request.isAsyncStarted());
+        assertFalse(WebAsyncUtils.getAsyncManager(webRequest).isConcurrentHandlingStarted());
+        assertTrue(mavContainer.isRequestHandled());
+        assertEquals(201, response.getStatus());
+        assertEquals("done", response.getContentAsString());
+    }
+
+    @Test
+    public void shouldRethrowWhatCompletedFutureFailedWith() throws Exception {
+        // given
+        final CompletableFuture<ResponseEntity<String>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new JdbcExecutorRejectedException("full"));
+
+        // when
+        try {
+            handler.handleReturnValue(failed, returnType, mavContainer, webRequest);
+            fail("Expected the failure of the future");
+        } catch (JdbcExecutorRejectedException ex) {
+            // then
+            assertEquals("full", ex.getMessage());
+            assertFalse(request.isAsyncStarted());
+        }
+    }
+
+    @Test
+    public void shouldLeavePendingFutureToAsyncDispatch() throws Exception {
+        // when
+        handler.handleReturnValue(new CompletableFuture<ResponseEntity<String>>(), returnType, mavContainer, webRequest);
+
+        // then
+        assertTrue(request.isAsyncStarted());
+        assertFalse(mavContainer.isRequestHandled());
+    }
+
+    @SuppressWarnings("unused")
+    private static CompletableFuture<ResponseEntity<String>> controller() {
+        return null;
+    }
+}
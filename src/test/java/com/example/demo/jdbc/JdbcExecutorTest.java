@@ -0,0 +1,130 @@
+package com.example.demo.jdbc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JdbcExecutorTest {
+
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+
+    private JdbcExecutor jdbcExecutor;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        jdbcExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldRunInlineWhenDisabled() {
+        // given
+        jdbcExecutor = new JdbcExecutor(entityManagerFactory, false, 1, 1, 1);
+        final Thread caller = Thread.currentThread();
+
+        // when
+        final CompletableFuture<Boolean> sameThread = jdbcExecutor.supply(() -> Thread.currentThread() == caller);
+        final CompletableFuture<Object> failed = jdbcExecutor.supply(() -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // then
+        assertTrue(sameThread.isDone());
+        assertTrue(sameThread.join());
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    public void shouldRunWithEntityManagerBoundOnPoolThread() {
+        // given
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        when(entityManager.isOpen()).thenReturn(true);
+        jdbcExecutor = new JdbcExecutor(entityManagerFactory, true, 1, 1, 1000);
+        final Thread caller = Thread.currentThread();
+
+        // when
+        final boolean bound = jdbcExecutor.supply(() -> Thread.currentThread() != caller
+                && TransactionSynchronizationManager.hasResource(entityManagerFactory)).join();
+
+        // then
+        assertTrue(bound);
+        verify(entityManager).close();
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws InterruptedException {
+        // given one busy thread and a queue of one
+        jdbcExecutor = new JdbcExecutor(entityManagerFactory, true, 1, 1, 60_000);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<String> busy = jdbcExecutor.supply(() -> {
+            running.countDown();
+            awaitQuietly(release);
+            return "busy";
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<String> queued = jdbcExecutor.supply(() -> "queued");
+
+        // when
+        final CompletableFuture<String> rejected = jdbcExecutor.supply(() -> "rejected");
+        release.countDown();
+
+        // then
+        assertRejected(rejected);
+        assertEquals("busy", busy.join());
+        assertEquals("queued", queued.join());
+    }
+
+    @Test
+    public void shouldDropWorkThatWaitedLongerThanQueueTimeout() throws InterruptedException {
+        // given
+        jdbcExecutor = new JdbcExecutor(entityManagerFactory, true, 1, 1, 50);
+        when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        final CountDownLatch release = new CountDownLatch(1);
+        jdbcExecutor.supply(() -> {
+            awaitQuietly(release);
+            return null;
+        });
+        final CompletableFuture<String> late = jdbcExecutor.supply(() -> "late");
+
+        // when
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        assertRejected(late);
+    }
+
+    private static void assertRejected(final CompletableFuture<?> future) {
+        try {
+            future.join();
+            fail("Expected the work to be refused");
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof JdbcExecutorRejectedException);
+        }
+        assertFalse(future.isCancelled());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
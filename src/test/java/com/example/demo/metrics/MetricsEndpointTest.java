@@ -0,0 +1,98 @@
+package com.example.demo.metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+public class MetricsEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldExposePrometheusMetricsToLocalScrapeWithoutToken() {
+        // given some traffic through sign up, login and an authenticated endpoint
+        final String credentials = "{\"username\":\"metrics-test\",\"password\":\"thePassword\"}";
+        final String signUp = "{\"username\":\"metrics-test\",\"password\":\"thePassword\",\"mirrorPassword\":\"thePassword\"}";
+        assertEquals(HttpStatus.OK, restTemplate.postForEntity("/api/user/create", json(signUp, null), String.class)
+                                                .getStatusCode());
+        final ResponseEntity<String> login = restTemplate.postForEntity("/login", json(credentials, null), String.class);
+        final String token = login.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        assertNotNull(token);
+        assertEquals(HttpStatus.OK, restTemplate.exchange("/api/item", HttpMethod.GET, json(null, token), String.class)
+                                                .getStatusCode());
+
+        // when
+        final ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        // then
+        assertEquals(HttpStatus.OK, scrape.getStatusCode());
+        final String body = scrape.getBody();
+        assertTrue(body.contains("http_server_requests_seconds_bucket{application=\"ecommerce\""));
+        assertTrue(body.contains("uri=\"/api/item\""));
+        assertTrue(body.contains("security_login_seconds_count{application=\"ecommerce\",outcome=\"success\",}"));
+        assertTrue(body.contains("security_jwt_verification_seconds_count{application=\"ecommerce\",outcome=\"valid\",}"));
+        assertTrue(body.contains("security_bcrypt_seconds_count{application=\"ecommerce\",operation=\"matches\",}"));
+        assertTrue(body.contains("security_bcrypt_queued"));
+        assertTrue(body.contains("hibernate_query_executions_total"));
+        assertTrue(body.contains("hibernate_entities_loads_total"));
+        assertTrue(body.contains("hibernate_second_level_cache_requests_total"));
+        assertTrue(body.contains("hikaricp_connections_active"));
+        assertTrue(body.contains("hikaricp_connections_acquire_seconds_bucket"));
+        assertTrue(body.contains("cache_gets_total{application=\"ecommerce\",cache=\"users\",result=\"hit\",}"));
+        assertTrue(body.contains("cache_gets_total{application=\"ecommerce\",cache=\"verified-tokens\""));
+        assertTrue(body.contains("orders_writer_queued"));
+    }
+
+    @Test
+    public void shouldKeepOtherActuatorEndpointsBehindAuthentication() {
+        // when
+        final ResponseEntity<String> health = restTemplate.getForEntity("/actuator/health", String.class);
+        final ResponseEntity<String> metrics = restTemplate.getForEntity("/actuator/metrics", String.class);
+
+        // then
+        assertEquals(HttpStatus.OK, health.getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, metrics.getStatusCode());
+    }
+
+    @Test
+    public void shouldRefuseScrapeFromOtherAddressesWithoutToken() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(request -> {
+                   request.setRemoteAddr("203.0.113.7");
+                   return request;
+               }))
+               .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus"))
+               .andExpect(status().isOk());
+    }
+
+    private static HttpEntity<String> json(final String body, final String token) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        return new HttpEntity<>(body, headers);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.model.persistence;
+
+import java.math.BigDecimal;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class MoneyTest {
+
+    @Test
+    public void shouldConvertExactlyBetweenDecimalAndMinorUnits() {
+        // when
+        final long minorUnits = Money.toMinorUnits(new BigDecimal("2.9"));
+
+        // then
+        assertEquals(290, minorUnits);
+        assertEquals(new BigDecimal("2.90"), Money.toBigDecimal(minorUnits));
+        assertEquals(new BigDecimal("-0.05"), Money.toBigDecimal(-5));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldRejectFractionsOfMinorUnit() {
+        // when
+        Money.toMinorUnits(new BigDecimal("2.999"));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldRejectOverflowingTotals() {
+        // when
+        Money.times(Long.MAX_VALUE / 2, 3);
+    }
+
+    @Test
+    public void shouldPriceOrderFromItsLinesRatherThanCartTotal() {
+        // given a cart whose stored total no longer matches its lines
+        final Item item = new Item();
+        item.setId(1L);
+        item.setPrice(new BigDecimal("1.25"));
+        final Cart cart = new Cart();
+        cart.addItem(item, 4);
+        cart.setTotal(new BigDecimal("1.00"));
+
+        // when
+        final UserOrder order = UserOrder.createFromCart(cart);
+        cart.recalculateTotal();
+
+        // then
+        assertEquals(new BigDecimal("5.00"), order.getTotal());
+        assertEquals(500, cart.getTotalInMinorUnits());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.model.persistence.repositories;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BatchedInsertTest {
+
+    private static final int ROWS = 40;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private final List<User> users = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        users.forEach(user -> {
+            orderRepository.deleteAll(orderRepository.findByUser(user));
+            userRepository.delete(user);
+        });
+    }
+
+    @Test
+    public void shouldInsertUsersAndCartsInBatches() {
+        // given
+        final List<User> created = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            created.add(newUser("batched-user-" + i));
+        }
+
+        // when
+        final long statements = statementsToRun(() -> userRepository.saveAll(created));
+        users.addAll(created);
+
+        // then one insert per row, two per user with its cart, would be 80 statements plus key reads
+        assertEquals(ROWS, created.stream().map(User::getId).distinct().count());
+        assertTrue("Expected a handful of batched statements but got " + statements, statements <= 6);
+    }
+
+    @Test
+    public void shouldInsertOrdersAndTheirLinesInBatches() {
+        // given
+        final List<Item> items = itemRepository.findAll();
+        final User user = newUser("batched-orders");
+        user.getCart().addItem(items.get(0), 3);
+        user.getCart().addItem(items.get(1), 1);
+        userRepository.save(user);
+        users.add(user);
+        final List<UserOrder> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            orders.add(UserOrder.createFromCart(user.getCart()));
+        }
+
+        // when, as the write-behind order writer saves a batch
+        final long statements = statementsToRun(() -> orderRepository.saveAll(orders));
+
+        // then one insert per order and per order line would be 120 statements plus key reads
+        assertEquals(ROWS, orderRepository.findByUser(user).size());
+        assertTrue("Expected a handful of batched statements but got " + statements, statements <= 6);
+    }
+
+    private long statementsToRun(final Runnable work) {
+        return transactionTemplate.execute(status -> {
+            statistics.clear();
+            work.run();
+            status.flush();
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    private static User newUser(final String username) {
+        final User user = new User();
+        user.setUsername(username);
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        return user;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.model.persistence.repositories;
+
+import com.example.demo.controllers.OrderController;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.responses.OrderResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class OrderRepositoryTest {
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private final List<User> users = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        users.forEach(user -> {
+            orderRepository.deleteAll(orderRepository.findByUser(user));
+            userRepository.delete(user);
+        });
+    }
+
+    @Test
+    public void shouldLoadOrderHistoryInConstantNumberOfStatements() throws Exception {
+        // given
+        createUserWithOrders("history-small", 2);
+        createUserWithOrders("history-large", 40);
+
+        // when
+        final long small = statementsToRender("history-small", 2);
+        final long large = statementsToRender("history-large", 40);
+
+        // then
+        assertEquals(small, large);
+    }
+
+    @Test
+    public void shouldWalkHistoryNewestFirstWithCursor() {
+        // given
+        createUserWithOrders("history-paged", 5);
+
+        // when
+        final ResponseEntity<List<OrderResponse>> first = orderController.getOrdersForUser("history-paged", Long.MAX_VALUE, 3, null).join();
+        final long cursor = Long.parseLong(first.getHeaders().getFirst("X-Next-Cursor"));
+        final ResponseEntity<List<OrderResponse>> second = orderController.getOrdersForUser("history-paged", cursor, 3, null).join();
+
+        // then
+        assertEquals(3, first.getBody().size());
+        assertEquals(2, second.getBody().size());
+        assertNull(second.getHeaders().getFirst("X-Next-Cursor"));
+        assertEquals((Long) cursor, first.getBody().get(2).getId());
+        assertTrue(first.getBody().get(0).getId() > first.getBody().get(1).getId());
+        assertTrue(second.getBody().get(0).getId() < cursor);
+    }
+
+    @Test
+    public void shouldRenderHistoryFromProjectionsWithoutLoadingEntities() throws Exception {
+        // given the user's identity is cached by a first request
+        createUserWithOrders("history-projected", 2);
+        final Item first = itemRepository.findAll().get(0);
+        orderController.getOrdersForUser("history-projected", Long.MAX_VALUE, 50, null).join();
+        statistics.clear();
+
+        // when
+        final ResponseEntity<List<OrderResponse>> response =
+                orderController.getOrdersForUser("history-projected", Long.MAX_VALUE, 50, null).join();
+        final String json = objectMapper.writeValueAsString(response.getBody());
+
+        // then
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        final OrderResponse order = response.getBody().get(0);
+        assertEquals("history-projected", order.getUser().getUsername());
+        assertEquals(first.getPrice().multiply(BigDecimal.valueOf(3)).add(itemRepository.findAll().get(1).getPrice()), order.getTotal());
+        assertEquals(first.getPrice(), order.getLines().stream()
+                                            .filter(line -> line.getItem().getId().equals(first.getId()))
+                                            .findFirst().get().getItem().getPrice());
+        assertTrue(json.contains("\"lines\""));
+        assertTrue(json.contains("\"items\""));
+    }
+
+    /**
+     * Statements issued to load and serialise a history page, as an open session in view request would.
+     */
+    private long statementsToRender(final String username, final int expectedOrders) throws Exception {
+        return transactionTemplate.execute(status -> {
+            statistics.clear();
+            final ResponseEntity<List<OrderResponse>> response =
+                    orderController.getOrdersForUser(username, Long.MAX_VALUE, 50, null).join();
+            try {
+                objectMapper.writeValueAsString(response.getBody());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertEquals(expectedOrders, response.getBody().size());
+            response.getBody().forEach(order -> assertEquals(4, order.getItems().size()));
+            return statistics.getPrepareStatementCount();
+        });
+    }
+
+    private void createUserWithOrders(final String username, final int orders) {
+        final List<Item> items = itemRepository.findAll();
+        final User user = new User();
+        user.setUsername(username);
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        cart.addItem(items.get(0), 3);
+        cart.addItem(items.get(1), 1);
+        userRepository.save(user);
+        users.add(user);
+
+        for (int i = 0; i < orders; i++) {
+            orderRepository.save(UserOrder.createFromCart(user.getCart()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.model.persistence.repositories;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Asks H2 for the plan of every statement each repository finder issues, eager loads included, and checks that the
+ * finder's lookup goes through the index the migrations create for it and that no statement scans a whole table.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                             + "com.example.demo.model.persistence.repositories.QueryPlanTest$RecordingInspector")
+public class QueryPlanTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    private Item item;
+
+    private UserOrder order;
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        item = itemRepository.findAll().get(0);
+        user = new User();
+        user.setUsername("query-plan");
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        cart.addItem(item, 2);
+        userRepository.save(user);
+        order = orderRepository.save(UserOrder.createFromCart(user.getCart()));
+    }
+
+    @After
+    public void tearDown() {
+        orderRepository.deleteById(order.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    public void shouldLookUpItemsByIndex() throws SQLException {
+        assertPlans("ITEM_NAME_IDX", () -> itemRepository.findByName(item.getName()));
+        assertPlans("ITEM_NAME_IDX", () -> itemRepository.findResponsesByName(item.getName()));
+        assertPlans("PRIMARY_KEY", () -> itemRepository.findResponseById(item.getId()));
+        assertPlans("PRIMARY_KEY", () -> itemRepository.findResponsesAfter(item.getId(), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    public void shouldLookUpUsersAndCartsByIndex() throws SQLException {
+        assertPlans("USER_USERNAME_UK", () -> userRepository.findByUsername(user.getUsername()));
+        assertPlans("USER_CART_ID_IDX", () -> cartRepository.findByUser(user));
+        assertPlans("PRIMARY_KEY", () -> cartRepository.findById(user.getCart().getId()));
+    }
+
+    @Test
+    public void shouldLookUpOrdersByIndex() throws SQLException {
+        assertPlans("USER_ORDER_USER_ID_IDX", () -> orderRepository.findByUser(user));
+        assertPlans("USER_ORDER_USER_ID_IDX",
+                    () -> orderRepository.findSummariesByUserIdBefore(user.getId(), Long.MAX_VALUE, PageRequest.of(0, 10)));
+        assertPlans("PRIMARY_KEY", () -> orderRepository.findLinesByOrderIdIn(Collections.singletonList(order.getId())));
+        assertPlans("USER_ORDER_REFERENCE_UK", () -> orderRepository.findIdByReference(order.getReference()));
+    }
+
+    /**
+     * Runs {@code finder} in a transaction, so eager collections load as they would in a request, and checks the plans
+     * of the statements it issued: one of them must use {@code index}, and none may scan a table.
+     */
+    private void assertPlans(final String index, final Runnable finder) throws SQLException {
+        RecordingInspector.statements.clear();
+        transactionTemplate.execute(status -> {
+            finder.run();
+            return null;
+        });
+        final List<String> plans = new ArrayList<>();
+        for (String sql : RecordingInspector.statements) {
+            plans.add(explain(sql));
+        }
+        assertFalse("no statement was issued", plans.isEmpty());
+        plans.forEach(plan -> assertFalse(plan, plan.contains("tableScan")));
+        assertTrue(index + " not used by " + plans, plans.stream().anyMatch(plan -> plan.contains(index)));
+    }
+
+    private String explain(final String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            // the plan depends on the indexes the predicates can use, not on the values compared
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setLong(i, 1L);
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1).toUpperCase(Locale.ROOT).replace("TABLESCAN", "tableScan");
+            }
+        }
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(final String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderExporterTest {
+
+    @Autowired
+    private OrderExporter orderExporter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<User> users = new ArrayList<>();
+
+    private final List<UserOrder> orders = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        users.forEach(user -> {
+            orderRepository.deleteAll(orderRepository.findByUser(user));
+            userRepository.delete(user);
+        });
+    }
+
+    @Test
+    public void shouldExportOrdersWithTheirLinesAsNdjson() throws Exception {
+        // given
+        final User user = createUser("export-ndjson");
+        // lines come in item id order
+        final Item first = user.getCart().getQuantities().keySet().stream().min(Comparator.comparing(Item::getId)).get();
+        createOrder(user, null);
+        createOrder(user, null);
+        final UserOrder empty = createEmptyOrder(user);
+
+        // when
+        final String ndjson = export(OrderExportFormat.NDJSON, OrderExporter.FIRST_CREATED_AT, OrderExporter.LAST_CREATED_AT);
+
+        // then
+        final String[] lines = ndjson.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(ndjson.endsWith("\n"));
+        final JsonNode order = objectMapper.readTree(lines[0]);
+        assertEquals(orders.get(0).getId().longValue(), order.get("id").asLong());
+        assertEquals(orders.get(0).getReference(), order.get("reference").asText());
+        assertEquals(orders.get(0).getCreatedAt(), Instant.parse(order.get("createdAt").asText()));
+        assertEquals(user.getId(), order.get("userId").asLong());
+        assertEquals("export-ndjson", order.get("username").asText());
+        assertEquals(orders.get(0).getTotal(), order.get("total").decimalValue());
+        assertEquals(2, order.get("lines").size());
+        final JsonNode line = order.get("lines").get(0);
+        assertEquals(first.getId().longValue(), line.get("itemId").asLong());
+        assertEquals(first.getName(), line.get("name").asText());
+        assertEquals(first.getPrice(), line.get("price").decimalValue());
+        assertEquals(3, line.get("quantity").asInt());
+        final JsonNode last = objectMapper.readTree(lines[2]);
+        assertEquals(empty.getId().longValue(), last.get("id").asLong());
+        assertEquals(0, last.get("lines").size());
+    }
+
+    @Test
+    public void shouldExportThePricesLinesWereOrderedAt() throws Exception {
+        // given
+        final User user = createUser("export-repriced");
+        final UserOrder order = createOrder(user, null);
+        final List<Item> repriced = reprice(order, new BigDecimal("1000.00"));
+
+        try {
+            // when
+            final JsonNode exported = objectMapper.readTree(export(OrderExportFormat.NDJSON, OrderExporter.FIRST_CREATED_AT,
+                                                                   OrderExporter.LAST_CREATED_AT));
+
+            // then
+            BigDecimal sum = BigDecimal.ZERO;
+            for (JsonNode line : exported.get("lines")) {
+                final Item item = itemRepository.findById(line.get("itemId").asLong()).get();
+                assertNotEquals(item.getPrice(), line.get("price").decimalValue());
+                sum = sum.add(line.get("price").decimalValue().multiply(BigDecimal.valueOf(line.get("quantity").asInt())));
+            }
+            assertEquals(order.getTotal(), sum);
+            assertEquals(order.getTotal(), exported.get("total").decimalValue());
+        } finally {
+            itemRepository.saveAll(repriced);
+        }
+    }
+
+    @Test
+    public void shouldExportOneCsvRowPerLineWithQuotedFields() throws Exception {
+        // given
+        final User user = createUser("export,\"csv\"");
+        createOrder(user, null);
+        createEmptyOrder(user);
+
+        // when
+        final String csv = export(OrderExportFormat.CSV, OrderExporter.FIRST_CREATED_AT, OrderExporter.LAST_CREATED_AT);
+
+        // then
+        final String[] rows = csv.split("\r\n");
+        assertEquals(4, rows.length);
+        assertEquals(OrderExporter.CSV_HEADER, rows[0]);
+        final UserOrder order = orders.get(0);
+        assertTrue(rows[1], rows[1].startsWith(order.getId() + "," + order.getReference() + "," + order.getCreatedAt() + ","
+                                               + user.getId() + ",\"export,\"\"csv\"\"\"," + order.getTotal() + ","));
+        assertEquals(3 + 1, quantity(rows[1]) + quantity(rows[2]));
+        assertTrue(rows[3], rows[3].endsWith(",,,,"));
+    }
+
+    @Test
+    public void shouldExportOnlyOrdersPlacedInThePeriod() throws Exception {
+        // given
+        final User user = createUser("export-period");
+        createOrder(user, null);
+        final UserOrder old = createOrder(user, Instant.parse("2020-01-01T12:00:00Z"));
+        createOrder(user, Instant.parse("2020-01-02T00:00:00Z"));
+
+        // when
+        final String ndjson = export(OrderExportFormat.NDJSON, Instant.parse("2020-01-01T00:00:00Z"),
+                                     Instant.parse("2020-01-02T00:00:00Z"));
+
+        // then
+        final String[] lines = ndjson.split("\n");
+        assertEquals(1, lines.length);
+        assertEquals(old.getId().longValue(), objectMapper.readTree(lines[0]).get("id").asLong());
+    }
+
+    @Test
+    public void shouldExcludeOrdersPlacedAtTheEndOfThePeriod() {
+        // given
+        final User user = createUser("export-bounds");
+        final UserOrder order = createOrder(user, null);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        final long excluded = orderExporter.export(out, OrderExportFormat.NDJSON, order.getId(), order.getId() + 1,
+                                                   OrderExporter.FIRST_CREATED_AT, order.getCreatedAt());
+        final long included = orderExporter.export(new ByteArrayOutputStream(), OrderExportFormat.NDJSON, order.getId(),
+                                                   order.getId() + 1, order.getCreatedAt(), order.getCreatedAt().plusMillis(1));
+
+        // then
+        assertEquals(0, excluded);
+        assertEquals(0, out.size());
+        assertEquals(1, included);
+    }
+
+    /**
+     * Exports the orders this test created. The id range picks them out of most of what other tests left behind, the
+     * lines of orders other contexts numbered from sequence blocks in between are dropped.
+     */
+    private String export(final OrderExportFormat format, final Instant from, final Instant to) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderExporter.export(out, format, orders.get(0).getId(), orders.get(orders.size() - 1).getId() + 1, from, to);
+        final String separator = format == OrderExportFormat.CSV ? "\r\n" : "\n";
+        final StringBuilder ours = new StringBuilder();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split(separator)) {
+            if (line.equals(OrderExporter.CSV_HEADER) || orders.stream().anyMatch(order -> line.contains(order.getReference()))) {
+                ours.append(line).append(separator);
+            }
+        }
+        return ours.toString();
+    }
+
+    /**
+     * Sets the price of the items of the order in the catalog.
+     *
+     * @return the items as they were, to save back once done
+     */
+    private List<Item> reprice(final UserOrder order, final BigDecimal price) {
+        final List<Item> previous = new ArrayList<>();
+        for (Item ordered : order.getQuantities().keySet()) {
+            final Item item = itemRepository.findById(ordered.getId()).get();
+            previous.add(copy(item));
+            item.setPrice(price);
+            itemRepository.save(item);
+        }
+        return previous;
+    }
+
+    private static Item copy(final Item item) {
+        final Item copy = new Item();
+        copy.setId(item.getId());
+        copy.setName(item.getName());
+        copy.setPrice(item.getPrice());
+        copy.setDescription(item.getDescription());
+        return copy;
+    }
+
+    private static int quantity(final String row) {
+        return Integer.parseInt(row.substring(row.lastIndexOf(',') + 1));
+    }
+
+    private User createUser(final String username) {
+        final List<Item> items = itemRepository.findAll();
+        final User user = new User();
+        user.setUsername(username);
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        cart.addItem(items.get(0), 3);
+        cart.addItem(items.get(1), 1);
+        userRepository.save(user);
+        users.add(user);
+        return user;
+    }
+
+    private UserOrder createOrder(final User user, final Instant createdAt) {
+        final UserOrder order = UserOrder.createFromCart(user.getCart());
+        if (createdAt != null) {
+            order.setCreatedAt(createdAt);
+        }
+        orders.add(orderRepository.save(order));
+        return order;
+    }
+
+    private UserOrder createEmptyOrder(final User user) {
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        final UserOrder order = UserOrder.createFromCart(cart);
+        orders.add(orderRepository.save(order));
+        return order;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.replica.ReadRouting;
+import com.example.demo.utils.InjectDependencies;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrderWriterTest {
+
+    private OrderWriter orderWriter;
+
+    private OrderRepository orderRepository = mock(OrderRepository.class);
+
+    private final List<UserOrder> written = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        orderWriter = new OrderWriter();
+
+        InjectDependencies.injectObjects(orderWriter, "orderRepository", orderRepository);
+        InjectDependencies.injectObjects(orderWriter, "transactionManager", mock(PlatformTransactionManager.class));
+        InjectDependencies.injectObjects(orderWriter, "readRouting", new ReadRouting(false, true));
+        InjectDependencies.injectObjects(orderWriter, "enabled", true);
+        InjectDependencies.injectObjects(orderWriter, "queueCapacity", 2);
+        InjectDependencies.injectObjects(orderWriter, "batchSize", 10);
+        // mockito answers 0 for wrapper types, an unknown reference has no id
+        when(orderRepository.findIdByReference(anyString())).thenReturn(null);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        orderWriter.stop();
+    }
+
+    @Test
+    public void shouldRefuseOrdersWhenQueueIsFull() throws InterruptedException {
+        // given
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            written.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        }).when(orderRepository).saveAll(anyList());
+        orderWriter.start();
+
+        // when
+        assertTrue(orderWriter.accept(createOrder()));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        final boolean second = orderWriter.accept(createOrder());
+        final boolean third = orderWriter.accept(createOrder());
+        final boolean fourth = orderWriter.accept(createOrder());
+        release.countDown();
+
+        // then
+        assertTrue(second);
+        assertTrue(third);
+        assertFalse(fourth);
+    }
+
+    @Test
+    public void shouldWriteEveryAcceptedOrderBeforeStopping() throws InterruptedException {
+        // given
+        InjectDependencies.injectObjects(orderWriter, "queueCapacity", 100);
+        doAnswer(invocation -> {
+            Thread.sleep(20);
+            written.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        }).when(orderRepository).saveAll(anyList());
+        orderWriter.start();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(orderWriter.accept(createOrder()));
+        }
+
+        // when
+        orderWriter.stop();
+
+        // then
+        assertEquals(50, written.size());
+        assertEquals(0, orderWriter.getQueueSize());
+        assertFalse(orderWriter.accept(createOrder()));
+    }
+
+    @Test
+    public void shouldReportOrderQueuedUntilWritten() throws InterruptedException {
+        // given
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.getArgument(0);
+        }).when(orderRepository).saveAll(anyList());
+        orderWriter.start();
+        final UserOrder order = createOrder();
+        when(orderRepository.findIdByReference(order.getReference())).thenReturn(7L);
+
+        // when
+        orderWriter.accept(order);
+
+        // then
+        assertEquals(OrderStatus.State.QUEUED, orderWriter.status(order.getReference()).getState());
+
+        // when
+        release.countDown();
+        orderWriter.stop();
+
+        // then
+        final OrderStatus status = orderWriter.status(order.getReference());
+        assertEquals(OrderStatus.State.PERSISTED, status.getState());
+        assertEquals((Long) 7L, status.getOrderId());
+        assertNull(orderWriter.status("unknown"));
+    }
+
+    @Test
+    public void shouldRetryFailedBatchOneOrderAtATime() throws InterruptedException {
+        // given
+        InjectDependencies.injectObjects(orderWriter, "queueCapacity", 10);
+        final UserOrder good = createOrder();
+        final UserOrder bad = createOrder();
+        when(orderRepository.saveAll(anyList())).thenThrow(new IllegalStateException("constraint violation"));
+        doAnswer(invocation -> {
+            final UserOrder order = invocation.getArgument(0);
+            if (order == bad) {
+                throw new IllegalStateException("constraint violation");
+            }
+            written.add(order);
+            return order;
+        }).when(orderRepository).save(any(UserOrder.class));
+        orderWriter.start();
+
+        // when
+        orderWriter.accept(good);
+        orderWriter.accept(bad);
+        orderWriter.stop();
+
+        // then
+        assertEquals(Collections.singletonList(good), written);
+        assertEquals(OrderStatus.State.FAILED, orderWriter.status(bad.getReference()).getState());
+    }
+
+    private static UserOrder createOrder() {
+        final User user = new User();
+        user.setUsername("test1");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        return UserOrder.createFromCart(cart);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.order;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.model.responses.DaySalesResponse;
+import com.example.demo.model.responses.ItemSalesResponse;
+import com.example.demo.model.responses.UserSalesResponse;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SalesAggregatesTest {
+
+    @Autowired
+    private SalesAggregates salesAggregates;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private Item gadget;
+
+    private User user;
+
+    @Before
+    public void setUp() {
+        gadget = new Item();
+        gadget.setName("Sales Gadget");
+        gadget.setPrice(new BigDecimal("2.50"));
+        gadget.setDescription("Sold by the thousand");
+        itemRepository.save(gadget);
+
+        user = new User();
+        user.setUsername("sales-test");
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        cart.addItem(gadget, 10_000);
+        userRepository.save(user);
+    }
+
+    @After
+    public void tearDown() {
+        orderRepository.deleteAll(orderRepository.findByUser(user));
+        userRepository.delete(user);
+        itemRepository.delete(gadget);
+    }
+
+    @Test
+    public void shouldAddCommittedOrders() {
+        // given
+        final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        final DaySalesResponse before = salesAggregates.day(today);
+
+        // when
+        final UserOrder first = placeOrder();
+        final UserOrder second = placeOrder();
+
+        // then
+        final DaySalesResponse after = salesAggregates.day(today);
+        assertEquals(before.getOrders() + 2, after.getOrders());
+        assertEquals(before.getRevenueInMinorUnits() + first.getTotalInMinorUnits() + second.getTotalInMinorUnits(),
+                     after.getRevenueInMinorUnits());
+        final UserSalesResponse sales = salesAggregates.user(user.getId(), "sales-test");
+        assertEquals(2, sales.getOrders());
+        assertEquals(new BigDecimal("50000.00"), sales.getSpend());
+        final ItemSalesResponse top = salesAggregates.topItems(1).get(0);
+        assertEquals(gadget.getId().longValue(), top.getItemId());
+        assertEquals("Sales Gadget", top.getName());
+        assertEquals(20_000, top.getQuantity());
+        assertEquals(new BigDecimal("50000.00"), top.getRevenue());
+    }
+
+    @Test
+    public void shouldSubtractDeletedOrders() {
+        // given
+        placeOrder();
+        final UserOrder deleted = placeOrder();
+
+        // when
+        orderRepository.delete(deleted);
+
+        // then
+        assertEquals(1, salesAggregates.user(user.getId(), "sales-test").getOrders());
+        assertEquals(10_000, salesAggregates.topItems(1).get(0).getQuantity());
+
+        // when
+        orderRepository.deleteAll(orderRepository.findByUser(user));
+
+        // then
+        assertEquals(0, salesAggregates.user(user.getId(), "sales-test").getOrders());
+        final List<ItemSalesResponse> top = salesAggregates.topItems(100);
+        assertTrue(top.stream().noneMatch(item -> item.getItemId() == gadget.getId()));
+    }
+
+    @Test
+    public void shouldRestoreCheckpointAndAddLaterOrders() throws Exception {
+        // given
+        final UserOrder checkpointed = placeOrder();
+        salesAggregates.checkpoint();
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertEquals(Long.valueOf(1), jdbcTemplate.queryForObject("select orders from sales_user where user_id = ?",
+                                                                  Long.class, user.getId()));
+        assertTrue(jdbcTemplate.queryForObject("select last_order_id from sales_checkpoint", Long.class) >= checkpointed.getId());
+        placeOrder();
+
+        // when
+        final SalesAggregates restored = new SalesAggregates();
+        context.getAutowireCapableBeanFactory().autowireBean(restored);
+        restored.afterSingletonsInstantiated();
+        restored.stop();
+
+        // then
+        final UserSalesResponse sales = restored.user(user.getId(), "sales-test");
+        assertEquals(2, sales.getOrders());
+        assertEquals(new BigDecimal("50000.00"), sales.getSpend());
+        assertEquals(20_000, restored.topItems(1).get(0).getQuantity());
+    }
+
+    @Test
+    public void shouldAddItemRevenueAtOrderedPrices() throws Exception {
+        // given
+        final UserOrder cheap = placeOrder();
+        gadget.setPrice(new BigDecimal("5.00"));
+        itemRepository.save(gadget);
+        placeOrder();
+
+        // when
+        final SalesAggregates restored = new SalesAggregates();
+        context.getAutowireCapableBeanFactory().autowireBean(restored);
+        restored.afterSingletonsInstantiated();
+        restored.stop();
+
+        // then
+        assertEquals(new BigDecimal("75000.00"), salesAggregates.topItems(1).get(0).getRevenue());
+        assertEquals(new BigDecimal("75000.00"), restored.topItems(1).get(0).getRevenue());
+
+        // when
+        orderRepository.delete(cheap);
+
+        // then
+        assertEquals(new BigDecimal("50000.00"), salesAggregates.topItems(1).get(0).getRevenue());
+    }
+
+    private UserOrder placeOrder() {
+        return orderRepository.save(UserOrder.createFromCart(user.getCart()));
+    }
+}
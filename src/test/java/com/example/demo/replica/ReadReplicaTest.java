@@ -0,0 +1,195 @@
+package com.example.demo.replica;
+
+import com.example.demo.catalog.CatalogVersion;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "ecommerce.datasource.replica.enabled=true",
+        "ecommerce.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "ecommerce.datasource.replica.copy-interval-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ReadReplicaTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReplicaCopier replicaCopier;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @After
+    public void tearDown() throws Exception {
+        replicaCopier.copy();
+    }
+
+    @Test
+    public void shouldServeReadOnlyQueriesFromReplicaOnceCopied() throws Exception {
+        // given
+        assertEquals(1, itemRepository.findResponsesByName("Round Widget").size());
+        final Item item = itemRepository.save(item("Replicated Widget"));
+
+        // then
+        assertTrue(itemRepository.findResponsesByName("Replicated Widget").isEmpty());
+
+        // when
+        final long version = catalogVersion.get();
+        final int copied = replicaCopier.copy();
+
+        // then
+        assertEquals(1, copied);
+        assertEquals(1, itemRepository.findResponsesByName("Replicated Widget").size());
+        assertTrue(catalogVersion.get() > version);
+
+        // when
+        itemRepository.delete(item);
+
+        // then
+        assertEquals(1, itemRepository.findResponsesByName("Replicated Widget").size());
+
+        // when
+        replicaCopier.copy();
+
+        // then
+        assertTrue(itemRepository.findResponsesByName("Replicated Widget").isEmpty());
+    }
+
+    @Test
+    public void shouldReadOwnWritesFromPrimaryUntilCopied() throws Exception {
+        // given
+        itemRepository.save(item("Pinned Widget"));
+
+        // when
+        readRouting.wrote("writer");
+
+        // then
+        assertEquals(1, readRouting.forUser("writer", () -> itemRepository.findResponsesByName("Pinned Widget")).size());
+        assertTrue(readRouting.forUser("reader", () -> itemRepository.findResponsesByName("Pinned Widget")).isEmpty());
+
+        // when
+        replicaCopier.copy();
+
+        // then
+        assertEquals(0, readRouting.getPinnedCount());
+        assertEquals(1, readRouting.forUser("reader", () -> itemRepository.findResponsesByName("Pinned Widget")).size());
+    }
+
+    @Test
+    public void shouldWriteToPrimaryAfterReplicaReadInSameEntityManager() {
+        // given an entity manager kept open across transactions, as open session in view does
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            itemRepository.findResponsesByName("Round Widget");
+
+            // when
+            itemRepository.save(item("Session Widget"));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        // then
+        assertEquals(Integer.valueOf(1), new JdbcTemplate(primaryDataSource).queryForObject(
+                "select count(*) from item where name = 'Session Widget'", Integer.class));
+    }
+
+    @Test
+    public void shouldCopyRowsWithCompositeKeys() throws Exception {
+        // given
+        final List<Item> items = itemRepository.findAll();
+        final User user = new User();
+        user.setUsername("replica-orderer");
+        user.setPassword("thePassword");
+        user.setMirrorPassword("thePassword");
+        final Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
+        cart.addItem(items.get(0), 3);
+        cart.addItem(items.get(1), 1);
+        userRepository.save(user);
+        final UserOrder order = orderRepository.save(UserOrder.createFromCart(cart));
+        final JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+
+        try {
+            // when
+            replicaCopier.copy();
+
+            // then
+            assertEquals(Integer.valueOf(2), replica.queryForObject(
+                    "select count(*) from cart_item where cart_id = ?", Integer.class, cart.getId()));
+            assertEquals(Integer.valueOf(2), replica.queryForObject(
+                    "select count(*) from user_order_item where user_order_id = ?", Integer.class, order.getId()));
+            assertEquals(Integer.valueOf(3), replica.queryForObject(
+                    "select quantity from user_order_item where user_order_id = ? and item_id = ?", Integer.class,
+                    order.getId(), items.get(0).getId()));
+            assertEquals(2, orderRepository.findLinesByOrderIdIn(Collections.singletonList(order.getId())).size());
+
+            // when
+            orderRepository.delete(order);
+            replicaCopier.copy();
+
+            // then
+            assertEquals(Integer.valueOf(0), replica.queryForObject(
+                    "select count(*) from user_order_item where user_order_id = ?", Integer.class, order.getId()));
+        } finally {
+            orderRepository.deleteAll(orderRepository.findByUser(user));
+            userRepository.delete(user);
+        }
+    }
+
+    private static Item item(final String name) {
+        final Item item = new Item();
+        item.setName(name);
+        item.setPrice(new BigDecimal("1.99"));
+        item.setDescription("A widget for the replica");
+        return item;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.replica;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadRoutingTest {
+
+    @Test
+    public void shouldPinUserUntilReplicaHasTheWrite() {
+        // given
+        final ReadRouting readRouting = new ReadRouting(true, true);
+
+        // when
+        readRouting.wrote("writer");
+
+        // then
+        assertTrue(readRouting.isPinned("writer"));
+        assertFalse(readRouting.isPinned("reader"));
+        assertTrue(readRouting.forUser("writer", ReadRouting::isPrimaryRequired));
+        assertFalse(readRouting.forUser("reader", ReadRouting::isPrimaryRequired));
+        assertFalse(ReadRouting.isPrimaryRequired());
+
+        // when the copier caught up with a point in time before the write, then after it
+        readRouting.replicated(System.nanoTime() - 1_000_000_000L);
+        final boolean pinnedBefore = readRouting.isPinned("writer");
+        readRouting.replicated(System.nanoTime());
+
+        // then
+        assertTrue(pinnedBefore);
+        assertFalse(readRouting.isPinned("writer"));
+        assertEquals(0, readRouting.getPinnedCount());
+    }
+
+    @Test
+    public void shouldKeepPrimaryForNestedReads() {
+        // given
+        final ReadRouting readRouting = new ReadRouting(true, true);
+
+        // when
+        final boolean nested = readRouting.primary(() -> readRouting.primary(ReadRouting::isPrimaryRequired)
+                                                         && ReadRouting.isPrimaryRequired());
+
+        // then
+        assertTrue(nested);
+        assertFalse(ReadRouting.isPrimaryRequired());
+    }
+
+    @Test
+    public void shouldNotPinWithoutReadYourWrites() {
+        // given
+        final ReadRouting readRouting = new ReadRouting(true, false);
+
+        // when
+        readRouting.wrote("writer");
+
+        // then
+        assertFalse(readRouting.isPinned("writer"));
+        assertEquals(0, readRouting.getPinnedCount());
+    }
+
+    @Test
+    public void shouldRunReadsAsTheyAreWhenDisabled() {
+        // given
+        final ReadRouting readRouting = new ReadRouting(false, true);
+
+        // when
+        readRouting.wrote("writer");
+
+        // then
+        assertFalse(readRouting.isPinned("writer"));
+        assertFalse(readRouting.primary(ReadRouting::isPrimaryRequired));
+    }
+}
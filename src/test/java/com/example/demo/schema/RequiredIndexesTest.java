@@ -0,0 +1,98 @@
+package com.example.demo.schema;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The check against a database of its own, migrated from {@code db/migration} as the application's is.
+ */
+public class RequiredIndexesTest {
+
+    private JdbcDataSource dataSource;
+
+    private RequiredIndexes requiredIndexes;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:required-indexes;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        requiredIndexes = new RequiredIndexes(dataSource);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        execute("drop all objects");
+    }
+
+    @Test
+    public void shouldFindEveryRequiredIndexAfterMigrations() throws SQLException {
+        // when
+        requiredIndexes.afterSingletonsInstantiated();
+
+        // then
+        assertTrue(requiredIndexes.missing().isEmpty());
+    }
+
+    @Test
+    public void shouldBackForeignKeysWithNamedIndexes() throws SQLException {
+        // when
+        final boolean generated;
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "select index_name from information_schema.indexes where index_name like '%FK_INDEX%'")) {
+            generated = rows.next();
+        }
+
+        // then
+        assertFalse(generated);
+    }
+
+    @Test
+    public void shouldRefuseToStartWithoutRequiredIndex() throws SQLException {
+        // given
+        execute("drop index item_name_idx");
+
+        // when
+        try {
+            requiredIndexes.afterSingletonsInstantiated();
+            fail("started without an index on item.name");
+        } catch (IllegalStateException ex) {
+            // then
+            assertTrue(ex.getMessage().contains("item[name]"));
+        }
+        assertEquals("[item[name]]", requiredIndexes.missing().toString());
+    }
+
+    @Test
+    public void shouldAcceptIndexWithRequiredLeadingColumns() throws SQLException {
+        // given
+        execute("drop index item_name_idx");
+        execute("create index item_name_price_idx on item (name, price)");
+
+        // when
+        requiredIndexes.afterSingletonsInstantiated();
+
+        // then
+        assertTrue(requiredIndexes.missing().isEmpty());
+    }
+
+    private void execute(final String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
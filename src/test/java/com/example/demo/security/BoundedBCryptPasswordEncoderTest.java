@@ -0,0 +1,98 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BoundedBCryptPasswordEncoderTest {
+
+    private ThreadPoolExecutor executor;
+
+    private BoundedBCryptPasswordEncoder encoder;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        encoder = new BoundedBCryptPasswordEncoder(4, executor);
+    }
+
+    @After
+    public void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    public void shouldHashAndMatchOnThePool() {
+        // when
+        final String hash = encoder.encode("testPassword");
+
+        // then
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("testPassword", hash));
+        assertFalse(encoder.matches("otherPassword", hash));
+        assertEquals(3, executor.getTaskCount());
+    }
+
+    @Test
+    public void shouldRejectWhenPoolAndQueueAreFull() throws InterruptedException {
+        // given the only thread is busy and the only queue slot is taken
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+
+        // when
+        try {
+            encoder.encode("testPassword");
+            fail("expected the hash to be rejected");
+        } catch (PasswordHashingRejectedException ex) {
+            // then
+            assertEquals(1, encoder.getRejectionCount());
+        } finally {
+            release.countDown();
+        }
+
+        // and the encoder recovers once the backlog clears
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getCompletedTaskCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(encoder.matches("testPassword", encoder.encode("testPassword")));
+    }
+
+    @Test
+    public void shouldRecordHashingOnceBound() {
+        // given
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        // when
+        final String hash = encoder.encode("testPassword");
+        encoder.matches("testPassword", hash);
+        encoder.matches("otherPassword", hash);
+
+        // then
+        assertEquals(1, registry.get("security.bcrypt").tag("operation", "encode").timer().count());
+        assertEquals(2, registry.get("security.bcrypt").tag("operation", "matches").timer().count());
+        assertEquals(0, registry.get("security.bcrypt.queued").gauge().value(), 0);
+        assertEquals(0, registry.get("security.bcrypt.rejected").functionCounter().count(), 0);
+    }
+}
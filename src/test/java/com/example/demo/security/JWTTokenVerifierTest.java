@@ -0,0 +1,86 @@
+package com.example.demo.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.cache.ExpiringCache;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JWTTokenVerifierTest {
+
+    private AtomicLong now;
+
+    private ExpiringCache<String, String> cache;
+
+    private JWTTokenVerifier tokenVerifier;
+
+    @Before
+    public void setUp() {
+        now = new AtomicLong(System.currentTimeMillis());
+        cache = new ExpiringCache<>(10, now::get);
+        tokenVerifier = new JWTTokenVerifier(cache);
+    }
+
+    @Test
+    public void shouldServeRepeatedVerificationFromCache() {
+        // given
+        final String token = createToken("test1", SecurityConstants.EXPIRATION_TIME);
+
+        // when
+        final String first = tokenVerifier.verify(token);
+        final String second = tokenVerifier.verify(token);
+
+        // then
+        assertEquals("test1", first);
+        assertEquals("test1", second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldNotCacheTokenPastItsOwnExpiry() {
+        // given
+        final String token = createToken("test2", 60_000);
+        tokenVerifier.verify(token);
+
+        // when
+        now.addAndGet(120_000);
+
+        // then
+        assertNull(cache.get(token));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test(expected = JWTVerificationException.class)
+    public void shouldRejectTamperedToken() {
+        // given
+        final String token = createToken("test3", SecurityConstants.EXPIRATION_TIME);
+
+        // when
+        tokenVerifier.verify(token.substring(0, token.length() - 2) + "xx");
+    }
+
+    @Test
+    public void shouldStayWithinMaximumSize() {
+        // given
+        for (int i = 0; i < 25; i++) {
+            tokenVerifier.verify(createToken("user" + i, SecurityConstants.EXPIRATION_TIME));
+        }
+
+        // then
+        assertTrue(cache.size() <= cache.getMaximumSize());
+        assertTrue(cache.getEvictionCount() >= 15);
+    }
+
+    private String createToken(final String subject, final long expiresIn) {
+        return JWT.create()
+                  .withSubject(subject)
+                  .withExpiresAt(new Date(System.currentTimeMillis() + expiresIn))
+                  .sign(SecurityConstants.ALGORITHM);
+    }
+}